@@ -0,0 +1,9 @@
+package org.exchange.modules.engine.application.job;
+
+import org.exchange.modules.core.domain.message.JobInterface;
+
+public record CancelOrderJob(
+        String clientOrderId,
+        Long userId,
+        Long instrumentId
+) implements JobInterface {}
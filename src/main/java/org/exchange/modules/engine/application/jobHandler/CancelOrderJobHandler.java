@@ -0,0 +1,29 @@
+package org.exchange.modules.engine.application.jobHandler;
+
+import org.exchange.modules.core.domain.message.JobHandlerInterface;
+import org.exchange.modules.engine.application.job.CancelOrderJob;
+import org.exchange.modules.engine.domain.MatchingEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CancelOrderJobHandler implements JobHandlerInterface<CancelOrderJob> {
+    private static final Logger log = LoggerFactory.getLogger(CancelOrderJobHandler.class);
+    private final MatchingEngine engine;
+
+    public CancelOrderJobHandler(MatchingEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void handle(CancelOrderJob job) {
+        log.info("Handle cancel job: {}", job);
+
+        engine.submitCancel(
+                job.clientOrderId(),
+                job.userId(),
+                job.instrumentId()
+        );
+    }
+}
@@ -3,7 +3,6 @@ package org.exchange.modules.engine.application.jobHandler;
 import org.exchange.modules.core.domain.message.JobHandlerInterface;
 import org.exchange.modules.engine.application.job.DepositJob;
 import org.exchange.modules.engine.domain.MatchingEngine;
-import org.exchange.modules.engine.domain.model.Deposit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -20,12 +19,10 @@ public class DepositJobHandler implements JobHandlerInterface<DepositJob> {
     public void handle(DepositJob job) {
         log.info("Handle deposit job");
 
-        Deposit deposit = new Deposit(
+        engine.submitDeposit(
                 job.userId(),
                 job.assetId(),
                 job.amount()
         );
-
-        engine.process(deposit);
     }
 }
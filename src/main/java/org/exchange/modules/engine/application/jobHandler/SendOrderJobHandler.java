@@ -3,7 +3,6 @@ package org.exchange.modules.engine.application.jobHandler;
 import org.exchange.modules.core.domain.message.JobHandlerInterface;
 import org.exchange.modules.engine.application.job.SendOrderJob;
 import org.exchange.modules.engine.domain.MatchingEngine;
-import org.exchange.modules.engine.domain.model.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -21,7 +20,7 @@ public class SendOrderJobHandler implements JobHandlerInterface<SendOrderJob> {
     public void handle(SendOrderJob job) {
         log.info("Handle job: {}", job);
 
-        Order order = new Order(
+        engine.submitOrder(
                 job.clientOrderId(),
                 job.userId(),
                 job.side(),
@@ -29,7 +28,5 @@ public class SendOrderJobHandler implements JobHandlerInterface<SendOrderJob> {
                 job.amount(),
                 job.price()
         );
-
-        engine.process(order);
     }
 }
@@ -0,0 +1,68 @@
+package org.exchange.modules.engine.domain;
+
+import java.util.Arrays;
+
+/**
+ * Balances drained from BalanceManager, in fixed-point units (see FixedPoint).
+ * Parallel primitive arrays, reused by the caller from drain to drain. Not thread safe.
+ */
+public final class BalanceChanges {
+    private long[] userIds;
+    private long[] assetIds;
+    private long[] available;
+    private long[] locked;
+    private int size;
+
+    public BalanceChanges(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        userIds = new long[initialCapacity];
+        assetIds = new long[initialCapacity];
+        available = new long[initialCapacity];
+        locked = new long[initialCapacity];
+    }
+
+    void add(long userId, long assetId, long available, long locked) {
+        if (size == userIds.length) {
+            int capacity = size * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            assetIds = Arrays.copyOf(assetIds, capacity);
+            this.available = Arrays.copyOf(this.available, capacity);
+            this.locked = Arrays.copyOf(this.locked, capacity);
+        }
+        userIds[size] = userId;
+        assetIds[size] = assetId;
+        this.available[size] = available;
+        this.locked[size] = locked;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long userId(int index) {
+        return userIds[index];
+    }
+
+    public long assetId(int index) {
+        return assetIds[index];
+    }
+
+    public long available(int index) {
+        return available[index];
+    }
+
+    public long locked(int index) {
+        return locked[index];
+    }
+}
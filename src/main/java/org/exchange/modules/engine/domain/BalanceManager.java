@@ -1,88 +1,209 @@
 package org.exchange.modules.engine.domain;
 
+import org.exchange.modules.engine.domain.model.FixedPoint;
 import org.exchange.modules.engine.domain.model.Instrument;
 import org.exchange.modules.engine.domain.model.Side;
 import org.exchange.modules.engine.domain.model.TradeMatch;
 import org.exchange.modules.engine.domain.model.TradingBalance;
-import org.exchange.modules.engine.infrastructure.cache.InstrumentCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
-
 
+/**
+ * Balances are shared by all matching workers. They are split by user into stripes, each a BalanceStore guarded
+ * by its own monitor, so workers settling trades of different users do not wait for each other.
+ * A trade touches two users, its taker and maker halves are settled one after another under their own stripes
+ * (never holding both, so there is no lock order to keep). Only the state write lock of the engine sees all halves
+ * of a batch at once, drainChanges() may return one half of a trade and the other half on the next drain.
+ * Amounts are fixed-point balance units, see FixedPoint. Storage is a primitive table, see BalanceStore.
+ * Changed balances are tracked, BalanceDatabaseFlusher drains them to the balances table.
+ */
 @Component
 public class BalanceManager {
-    // userId -> assetId -> balance
-    private final Map<Long, Map<Long, TradingBalance>> balances = new HashMap<>();
     private static final Logger log = LoggerFactory.getLogger(BalanceManager.class);
+    private final BalanceStore[] stripes;
+    private final int stripeShift;
+
+    public BalanceManager(
+            @Value("${app.engine.balances.expected-size:65536}") int expectedSize,
+            @Value("${app.engine.balances.stripes:16}") int stripeCount
+    ) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Balance stripes must be a power of two");
+        }
+        this.stripes = new BalanceStore[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new BalanceStore(expectedSize / stripeCount);
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(stripeCount);
+    }
 
+    /**
+     * @return copy of current balance, zero when user never held the asset
+     */
     public TradingBalance getBalance(Long userId, Long assetId) {
-        return balances
-                .computeIfAbsent(userId, k -> new HashMap<>())
-                .computeIfAbsent(assetId, k -> new TradingBalance());
+        BalanceStore balances = stripe(userId);
+        synchronized (balances) {
+            return new TradingBalance(balances.available(userId, assetId), balances.locked(userId, assetId));
+        }
     }
 
-    public void deposit(Long userId, Long assetId, BigDecimal amount) {
-        getBalance(userId, assetId).deposit(amount);
+    public void deposit(long userId, long assetId, long amount) {
+        BalanceStore balances = stripe(userId);
+        synchronized (balances) {
+            balances.deposit(userId, assetId, amount);
+        }
     }
 
-    public boolean tryLockFunds(Long userId, Long assetId, BigDecimal amount) {
-        TradingBalance balance = getBalance(userId, assetId);
-        if (balance.getAvailable().compareTo(amount) < 0) {
-            return false;
+    public boolean tryLockFunds(long userId, long assetId, long amount) {
+        BalanceStore balances = stripe(userId);
+        synchronized (balances) {
+            return balances.tryLock(userId, assetId, amount);
         }
-        balance.lock(amount);
-        return true;
     }
 
+    public void unlockFunds(long userId, long assetId, long amount) {
+        BalanceStore balances = stripe(userId);
+        synchronized (balances) {
+            balances.unlock(userId, assetId, amount);
+        }
+    }
+
+    /**
+     * Settles one fill. Both sides pay out of their own lock: the part of the lock the filled lots held
+     * (lockUnits before the fill minus after it) is consumed up to the traded amount, the rest goes back to available.
+     * That rest is the taker's price improvement plus rounding, so an order that is fully filled or cancelled
+     * leaves nothing locked.
+     */
     public void processTrade(TradeMatch trade, Instrument instrument) {
-        Long baseAssetId = instrument.getBaseAssetId();
-        Long quoteAssetId = instrument.getQuoteAssetId();
+        long baseAssetId = instrument.getBaseAssetId();
+        long quoteAssetId = instrument.getQuoteAssetId();
+        long taker = trade.getTakerUserId();
+        long maker = trade.getMakerUserId();
+        long lots = trade.getQuantityLots();
+        Side takerSide = trade.getTakerSide();
+        Side makerSide = takerSide == Side.BUY ? Side.SELL : Side.BUY;
 
-        BigDecimal baseAmount = trade.quantity();
-        BigDecimal quoteAmount = trade.quantity().multiply(trade.price());
+        long baseAmount = instrument.baseUnits(lots);
+        long quoteAmount = instrument.quoteUnits(trade.getPriceTicks(), lots);
+        long takerReleased = released(instrument, takerSide, trade.getTakerPriceTicks(), trade.getTakerRemainingLots(), lots);
+        // maker rests at the trade price
+        long makerReleased = released(instrument, makerSide, trade.getPriceTicks(), trade.getMakerRemainingLots(), lots);
 
-        if (trade.takerSide() == Side.BUY) {
+        if (takerSide == Side.BUY) {
             // Taker (Buyer) Settlement
             // Taker buy base, sell quote
-            TradingBalance takerQuote = getBalance(trade.takerUserId(), quoteAssetId);
-            TradingBalance takerBase = getBalance(trade.takerUserId(), baseAssetId);
-            takerQuote.consumeLocked(quoteAmount);
-            takerBase.deposit(baseAmount);
+            settle(taker, quoteAssetId, takerReleased, quoteAmount, baseAssetId, baseAmount);
 
             // Maker settlement
             // Maker sell base, buy quote
-            TradingBalance makerQuote = getBalance(trade.makerUserId(), quoteAssetId);
-            TradingBalance makerBase = getBalance(trade.makerUserId(), baseAssetId);
-            makerQuote.deposit(quoteAmount);
-            makerBase.consumeLocked(baseAmount);
+            settle(maker, baseAssetId, makerReleased, baseAmount, quoteAssetId, quoteAmount);
         } else {
             // Taker (Seller) Settlement
             // Taker sell base, buy quote
-            TradingBalance takerQuote = getBalance(trade.takerUserId(), quoteAssetId);
-            TradingBalance takerBase = getBalance(trade.takerUserId(), baseAssetId);
-            takerQuote.deposit(quoteAmount);
-            takerBase.consumeLocked(baseAmount);
+            settle(taker, baseAssetId, takerReleased, baseAmount, quoteAssetId, quoteAmount);
 
             // Maker settlement
             // Maker buy base, sell quote
-            TradingBalance makerQuote = getBalance(trade.makerUserId(), quoteAssetId);
-            TradingBalance makerBase = getBalance(trade.makerUserId(), baseAssetId);
-            makerQuote.consumeLocked(quoteAmount);
-            makerBase.deposit(baseAmount);
+            settle(maker, quoteAssetId, makerReleased, quoteAmount, baseAssetId, baseAmount);
+        }
+    }
+
+    // lock held by the filled lots of an order with remainingLots left after the fill
+    private static long released(Instrument instrument, Side side, long priceTicks, long remainingLots, long lots) {
+        return instrument.lockUnits(side, priceTicks, remainingLots + lots) - instrument.lockUnits(side, priceTicks, remainingLots);
+    }
+
+    // one side of a trade: pays out of its lock, gets the other asset
+    private void settle(long userId, long paidAssetId, long released, long paid, long receivedAssetId, long received) {
+        BalanceStore balances = stripe(userId);
+        synchronized (balances) {
+            balances.consumeLocked(userId, paidAssetId, paid);
+            if (released > paid) {
+                balances.unlock(userId, paidAssetId, released - paid);
+            }
+            balances.deposit(userId, receivedAssetId, received);
         }
     }
 
+    /**
+     * Appends balances changed since the last drain to changes, each once with its current value.
+     * Drains one stripe after another under its lock, its cost is the number of changed balances, not of all balances.
+     * @return number of balances appended
+     */
+    public int drainChanges(BalanceChanges changes) {
+        int drained = 0;
+        for (BalanceStore balances : stripes) {
+            synchronized (balances) {
+                drained += balances.drainDirty(changes::add);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Marks drained balances changed again, so that the next drain returns them with their values by then.
+     */
+    public void retainChanges(BalanceChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            long userId = changes.userId(i);
+            BalanceStore balances = stripe(userId);
+            synchronized (balances) {
+                balances.markDirty(userId, changes.assetId(i));
+            }
+        }
+    }
+
+    public int pendingChanges() {
+        int pending = 0;
+        for (BalanceStore balances : stripes) {
+            synchronized (balances) {
+                pending += balances.dirtyCount();
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Visits stripe by stripe, consistent across stripes only while nothing changes balances (snapshot).
+     */
+    void forEachBalance(BalanceStore.Visitor visitor) {
+        for (BalanceStore balances : stripes) {
+            synchronized (balances) {
+                balances.forEach(visitor);
+            }
+        }
+    }
+
+    /**
+     * Overwrites balance, used to restore a snapshot.
+     */
+    void restore(long userId, long assetId, long available, long locked) {
+        BalanceStore balances = stripe(userId);
+        synchronized (balances) {
+            balances.set(userId, assetId, available, locked);
+        }
+    }
+
+    // fibonacci hashing on the user only, all assets of a user share a stripe. Takes the top bits, BalanceStore
+    // slots come from lower ones; shifted in two steps since a shift by 64 (one stripe) would be a no-op
+    private BalanceStore stripe(long userId) {
+        return stripes[(int) ((userId * 0x9E3779B97F4A7C15L) >>> 32 >>> stripeShift)];
+    }
+
     //TODO: remove only for testing
     public void getBalances() {
-        this.balances.forEach((userId, assetBalances) -> {
-            assetBalances.forEach((assetId, balance) -> {
-                System.out.println("User: " + userId + " Asset: " + assetId + " Balance:  available:" + balance.getAvailable() + " locked:" + balance.getLocked());
-            });
-        });
+        int size = 0;
+        for (BalanceStore balances : stripes) {
+            synchronized (balances) {
+                size += balances.size();
+            }
+        }
+        log.info("{} balances", size);
+        forEachBalance((userId, assetId, available, locked) ->
+                System.out.println("User: " + userId + " Asset: " + assetId + " Balance:  available:" + FixedPoint.fromUnits(available) + " locked:" + FixedPoint.fromUnits(locked))
+        );
     }
 }
@@ -0,0 +1,223 @@
+package org.exchange.modules.engine.domain;
+
+import java.util.Arrays;
+
+/**
+ * (userId, assetId) -> available and locked balance units.
+ * Open addressing with linear probing over one packed long key, values live in parallel primitive arrays,
+ * so a lookup neither boxes nor allocates. Entries are never removed. Not thread safe.
+ *
+ * Every change marks its entry dirty, drainDirty() hands out the entries changed since the last drain,
+ * each once however often it changed. The dirty list holds keys, so it survives a resize.
+ */
+final class BalanceStore {
+    private static final float MAX_LOAD = 0.7f;
+    private static final long EMPTY = -1L;
+    private static final int ASSET_BITS = 16;
+    private static final long MAX_USER_ID = (1L << (63 - ASSET_BITS)) - 1;
+    private static final long MAX_ASSET_ID = (1L << ASSET_BITS) - 1;
+
+    private long[] keys;
+    private long[] available;
+    private long[] locked;
+    private boolean[] dirty;
+    private long[] dirtyKeys = new long[64];
+    private int dirtyCount;
+    private int mask;
+    private int shift;
+    private int size;
+
+    BalanceStore(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1);
+    }
+
+    long available(long userId, long assetId) {
+        int i = find(key(userId, assetId));
+        return i < 0 ? 0L : available[i];
+    }
+
+    long locked(long userId, long assetId) {
+        int i = find(key(userId, assetId));
+        return i < 0 ? 0L : locked[i];
+    }
+
+    void deposit(long userId, long assetId, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        int i = findOrInsert(key(userId, assetId));
+        available[i] += amount;
+        markDirty(i);
+    }
+
+    /**
+     * Moves amount from available to locked.
+     * @return false when available balance is not enough, nothing is changed then
+     */
+    boolean tryLock(long userId, long assetId, long amount) {
+        int i = findOrInsert(key(userId, assetId));
+        if (available[i] < amount) {
+            return false;
+        }
+        available[i] -= amount;
+        locked[i] += amount;
+        markDirty(i);
+        return true;
+    }
+
+    void unlock(long userId, long assetId, long amount) {
+        int i = lockedSlot(userId, assetId, amount);
+        locked[i] -= amount;
+        available[i] += amount;
+        markDirty(i);
+    }
+
+    void consumeLocked(long userId, long assetId, long amount) {
+        int i = lockedSlot(userId, assetId, amount);
+        locked[i] -= amount;
+        markDirty(i);
+    }
+
+    void set(long userId, long assetId, long available, long locked) {
+        if (available < 0 || locked < 0) {
+            throw new IllegalArgumentException("Balance must not be negative");
+        }
+        int i = findOrInsert(key(userId, assetId));
+        this.available[i] = available;
+        this.locked[i] = locked;
+        markDirty(i);
+    }
+
+    /**
+     * Marks an entry dirty again, e.g. when writing out its drained values failed. Unknown entries are ignored.
+     */
+    void markDirty(long userId, long assetId) {
+        int i = find(key(userId, assetId));
+        if (i >= 0) {
+            markDirty(i);
+        }
+    }
+
+    /**
+     * Visits entries changed since the last drain with their current values and clears their dirty marks.
+     * @return number of entries visited
+     */
+    int drainDirty(Visitor visitor) {
+        int count = dirtyCount;
+        for (int k = 0; k < count; k++) {
+            long key = dirtyKeys[k];
+            int i = find(key);
+            dirty[i] = false;
+            visitor.visit(key >>> ASSET_BITS, key & MAX_ASSET_ID, available[i], locked[i]);
+        }
+        dirtyCount = 0;
+        return count;
+    }
+
+    int dirtyCount() {
+        return dirtyCount;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key != EMPTY) {
+                visitor.visit(key >>> ASSET_BITS, key & MAX_ASSET_ID, available[i], locked[i]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(long userId, long assetId, long available, long locked);
+    }
+
+    private void markDirty(int i) {
+        if (dirty[i]) {
+            return;
+        }
+        dirty[i] = true;
+        if (dirtyCount == dirtyKeys.length) {
+            dirtyKeys = Arrays.copyOf(dirtyKeys, dirtyKeys.length * 2);
+        }
+        dirtyKeys[dirtyCount++] = keys[i];
+    }
+
+    private int lockedSlot(long userId, long assetId, long amount) {
+        int i = findOrInsert(key(userId, assetId));
+        if (locked[i] < amount) {
+            throw new IllegalArgumentException("Not enough locked balance");
+        }
+        return i;
+    }
+
+    private int find(long key) {
+        for (int i = slot(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findOrInsert(long key) {
+        int i = slot(key);
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        if (size + 1 > keys.length * MAX_LOAD) {
+            resize();
+            return findOrInsert(key);
+        }
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldAvailable = available;
+        long[] oldLocked = locked;
+        boolean[] oldDirty = dirty;
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                available[i] = oldAvailable[j];
+                locked[i] = oldLocked[j];
+                dirty[i] = oldDirty[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        available = new long[capacity];
+        locked = new long[capacity];
+        dirty = new boolean[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    // fibonacci hashing, consecutive user ids spread over the table
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private static long key(long userId, long assetId) {
+        if (userId < 0 || userId > MAX_USER_ID || assetId < 0 || assetId > MAX_ASSET_ID) {
+            throw new IllegalArgumentException("User or asset id out of range: " + userId + "/" + assetId);
+        }
+        return (userId << ASSET_BITS) | assetId;
+    }
+}
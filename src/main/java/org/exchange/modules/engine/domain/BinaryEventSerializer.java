@@ -1,41 +1,107 @@
 package org.exchange.modules.engine.domain;
 
 import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+import org.exchange.modules.engine.domain.journal.OutputEvent;
 import org.exchange.modules.engine.domain.model.Deposit;
 import org.exchange.modules.engine.domain.model.EventType;
 import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.OrderCancel;
 import org.exchange.modules.engine.domain.model.Side;
+import org.exchange.modules.engine.domain.ring.EngineEvent;
 
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Journal record codec. Every record is an int length followed by the payload, the first payload byte is the header:
+ * format version in the high nibble, EventType code in the low one.
+ *
+ * Version 0 (records of older journals) stores ids and numbers as length prefixed UTF-8 strings.
+ * Version 2 is fixed width per type: numbers as unscaled long plus scale byte,
+ * client order ids as length byte plus CLIENT_ORDER_ID_LENGTH bytes, zero padded.
+ * Version 3 (written now) is version 2 with the journal sequence and a nanosecond timestamp right after the header.
+ *
+ * Output journal records (OutputEvent) use the order layout followed by reject reason and source sequence,
+ * trades add the counterparty (maker) user and client order id.
+ * All are read through EventRecordView, deserialize() is kept for readers that need objects.
+ */
 public class BinaryEventSerializer {
 
-    private static final int MAX_RECORD_SIZE = 1024;
+    public static final int MAX_RECORD_SIZE = 1024;
+    public static final int CLIENT_ORDER_ID_LENGTH = 36;
 
-    public static void serialize(JournalModelEvent event, ByteBuffer buffer) {
+    static final int VERSION_LEGACY = 0;
+    static final int VERSION_COMPACT = 2;
+    static final int VERSION_STAMPED = 3;
+
+    // stamped layout, offsets from the start of the payload
+    static final int SEQUENCE = 1;
+    static final int TIMESTAMP = 9;
+    static final int STAMP_LENGTH = 16;
+
+    // compact layout, offsets from the start of the payload, shifted by STAMP_LENGTH in stamped records
+    static final int USER_ID = 1;
+    static final int INSTRUMENT_ID = 9;
+    static final int ASSET_ID = 9;
+    static final int ORDER_SIDE = 17;
+    static final int ORDER_AMOUNT = 18;
+    static final int ORDER_PRICE = 27;
+    static final int ORDER_CLIENT_ID = 36;
+    static final int CANCEL_CLIENT_ID = 17;
+    static final int DEPOSIT_AMOUNT = 17;
+    static final int OUTPUT_REASON = ORDER_CLIENT_ID + 1 + CLIENT_ORDER_ID_LENGTH;
+    static final int OUTPUT_SOURCE = OUTPUT_REASON + 1;
+    static final int TRADE_COUNTERPARTY = OUTPUT_SOURCE + 8;
+    static final int TRADE_COUNTERPARTY_CLIENT_ID = TRADE_COUNTERPARTY + 8;
+
+    public static final int ORDER_RECORD_SIZE = 4 + STAMP_LENGTH + ORDER_CLIENT_ID + 1 + CLIENT_ORDER_ID_LENGTH;
+    public static final int CANCEL_RECORD_SIZE = 4 + STAMP_LENGTH + CANCEL_CLIENT_ID + 1 + CLIENT_ORDER_ID_LENGTH;
+    public static final int DEPOSIT_RECORD_SIZE = 4 + STAMP_LENGTH + DEPOSIT_AMOUNT + 9;
+    public static final int ORDER_STATE_RECORD_SIZE = 4 + STAMP_LENGTH + OUTPUT_SOURCE + 8;
+    public static final int TRADE_RECORD_SIZE = 4 + STAMP_LENGTH + TRADE_COUNTERPARTY_CLIENT_ID + 1 + CLIENT_ORDER_ID_LENGTH;
+
+    /**
+     * Writes the record at buffer position, stamped with journal sequence and epoch nanoseconds.
+     */
+    public static void serialize(JournalModelEvent event, ByteBuffer buffer, long sequence, long timestampNanos) {
         // 1. Zapamiętujemy pozycję startową, żeby potem wpisać długość
         int startPos = buffer.position();
         // Zostawiamy 4 bajty miejsca na "Długość całego rekordu"
         buffer.putInt(0);
+        // header is known once the event type is, sequence and timestamp follow it
+        int headerPos = buffer.position();
+        buffer.position(headerPos + 1);
+        buffer.putLong(sequence);
+        buffer.putLong(timestampNanos);
 
-        if (event instanceof Order order) {
-            buffer.put(EventType.ORDER_NEW.getCode()); // Typ: ORDER_NEW
-
-            buffer.putLong(order.getUserId() != null ? order.getUserId() : 0L);
-            writeString(buffer, order.getClientOrderId());
-            buffer.put((byte) (order.getSide() == Side.BUY ? 0 : 1));
-            buffer.putLong(order.getInstrumentId());
-            writeString(buffer, order.getAmount().toString());
-            writeString(buffer, order.getPrice().toString());
+        EventType type;
+        if (event instanceof EngineEvent slot) {
+            type = slot.getType();
+            switch (type) {
+                case ORDER_NEW -> writeOrder(buffer, slot.getUserId(), slot.getClientOrderId(), slot.getSide(),
+                        slot.getInstrumentId(), slot.getAmount(), slot.getPrice());
+                case ORDER_CANCEL -> writeCancel(buffer, slot.getUserId(), slot.getClientOrderId(), slot.getInstrumentId());
+                case BALANCE_DEPOSIT -> writeDeposit(buffer, slot.getUserId(), slot.getAssetId(), slot.getAmount());
+                default -> throw new IllegalArgumentException("Unsupported event type: " + type);
+            }
+        } else if (event instanceof OutputEvent output) {
+            type = output.getType();
+            writeOutput(buffer, output);
+        } else if (event instanceof Order order) {
+            type = EventType.ORDER_NEW;
+            writeOrder(buffer, order.getUserId() != null ? order.getUserId() : 0L, order.getClientOrderId(),
+                    order.getSide(), order.getInstrumentId(), order.getAmount(), order.getPrice());
         } else if (event instanceof Deposit deposit) {
-            buffer.put(EventType.BALANCE_DEPOSIT.getCode()); // Typ: BALANCE_DEPOSIT
-
-            buffer.putLong(deposit.getUserId());
-            buffer.putLong(deposit.getAssetId());
-            writeString(buffer, deposit.getAmount().toString());
+            type = EventType.BALANCE_DEPOSIT;
+            writeDeposit(buffer, deposit.getUserId(), deposit.getAssetId(), deposit.getAmount());
+        } else if (event instanceof OrderCancel cancel) {
+            type = EventType.ORDER_CANCEL;
+            writeCancel(buffer, cancel.getUserId(), cancel.getClientOrderId(), cancel.getInstrumentId());
+        } else {
+            throw new IllegalArgumentException("Unsupported event: " + event);
         }
+        buffer.put(headerPos, (byte) (VERSION_STAMPED << 4 | type.getCode()));
 
         // Obliczamy faktyczną długość
         int endPos = buffer.position();
@@ -44,13 +110,131 @@ public class BinaryEventSerializer {
         buffer.position(endPos);
     }
 
+    private static void writeOrder(ByteBuffer buffer, long userId, String clientOrderId, Side side,
+                                   long instrumentId, BigDecimal amount, BigDecimal price) {
+        buffer.putLong(userId);
+        buffer.putLong(instrumentId);
+        buffer.put((byte) (side == Side.BUY ? 0 : 1));
+        writeDecimal(buffer, amount);
+        writeDecimal(buffer, price);
+        writeClientOrderId(buffer, clientOrderId);
+    }
+
+    private static void writeDeposit(ByteBuffer buffer, long userId, long assetId, BigDecimal amount) {
+        buffer.putLong(userId);
+        buffer.putLong(assetId);
+        writeDecimal(buffer, amount);
+    }
+
+    private static void writeOutput(ByteBuffer buffer, OutputEvent output) {
+        buffer.putLong(output.getUserId());
+        buffer.putLong(output.getInstrumentId());
+        // rejected cancels have no side
+        buffer.put((byte) (output.getSide() == Side.SELL ? 1 : 0));
+        buffer.putLong(output.getAmountUnscaled());
+        buffer.put((byte) output.getAmountScale());
+        buffer.putLong(output.getPriceUnscaled());
+        buffer.put((byte) output.getPriceScale());
+        writeClientOrderId(buffer, output.getClientOrderId());
+        buffer.put(output.getReason().getCode());
+        buffer.putLong(output.getSourceSequence());
+        if (output.getType() == EventType.TRADE) {
+            buffer.putLong(output.getCounterpartyUserId());
+            writeClientOrderId(buffer, output.getCounterpartyClientOrderId());
+        }
+    }
+
+    private static void writeCancel(ByteBuffer buffer, long userId, String clientOrderId, long instrumentId) {
+        buffer.putLong(userId);
+        buffer.putLong(instrumentId);
+        writeClientOrderId(buffer, clientOrderId);
+    }
+
+    /**
+     * Throws when client order id does not fit the fixed width field, checked on ingress before anything is locked.
+     */
+    public static void checkClientOrderId(String clientOrderId) {
+        if (encodedLength(clientOrderId) > CLIENT_ORDER_ID_LENGTH) {
+            throw new IllegalArgumentException("Client order ID longer than " + CLIENT_ORDER_ID_LENGTH + " bytes");
+        }
+    }
+
+    /**
+     * @throws ArithmeticException when value can not be stored as unscaled long plus scale byte
+     */
+    public static void checkDecimal(BigDecimal value) {
+        canonical(value).unscaledValue().longValueExact();
+    }
+
+    private static void writeDecimal(ByteBuffer buffer, BigDecimal value) {
+        BigDecimal canonical = canonical(value);
+        buffer.putLong(canonical.unscaledValue().longValueExact());
+        buffer.put((byte) canonical.scale());
+    }
+
+    // trailing zeros are dropped only when the value would not fit otherwise
+    static BigDecimal canonical(BigDecimal value) {
+        if (value.precision() <= 18 && value.scale() == (byte) value.scale()) {
+            return value;
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        if (stripped.scale() != (byte) stripped.scale()) {
+            throw new ArithmeticException("Scale out of range: " + stripped.scale());
+        }
+        return stripped;
+    }
+
+    private static void writeClientOrderId(ByteBuffer buffer, String clientOrderId) {
+        int length = encodedLength(clientOrderId);
+        if (length > CLIENT_ORDER_ID_LENGTH) {
+            throw new IllegalArgumentException("Client order ID longer than " + CLIENT_ORDER_ID_LENGTH + " bytes");
+        }
+        buffer.put((byte) length);
+        if (length == clientOrderId.length()) {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) clientOrderId.charAt(i));
+            }
+        } else {
+            buffer.put(clientOrderId.getBytes(StandardCharsets.UTF_8));
+        }
+        for (int i = length; i < CLIENT_ORDER_ID_LENGTH; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    // UTF-8 length without encoding, ASCII ids (the usual case) are copied char by char
+    private static int encodedLength(String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                return s.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Decodes record at buffer position into an object, for readers that keep events around.
+     */
     public static JournalModelEvent deserialize(ByteBuffer buffer) {
+        if (version(buffer.get(buffer.position())) != VERSION_LEGACY) {
+            return new EventRecordView().wrap(buffer).toEvent();
+        }
+        return deserializeLegacy(buffer);
+    }
+
+    static int version(byte header) {
+        return (header >> 4) & 0x0F;
+    }
+
+    static JournalModelEvent deserializeLegacy(ByteBuffer buffer) {
        // Odczytaj typ (to jest ten 1 bajt po długości)
         EventType type = EventType.fromCode(buffer.get());
 
         return switch (type) {
             case ORDER_NEW -> deserializeOrder(buffer);
             case BALANCE_DEPOSIT -> deserializeDeposit(buffer);
+            case ORDER_CANCEL -> deserializeCancel(buffer);
             default -> throw new IllegalArgumentException("Unknown event type: " + type);
         };
     }
@@ -75,10 +259,12 @@ public class BinaryEventSerializer {
         return new Deposit(userId, assetId, amount);
     }
 
-    private static void writeString(ByteBuffer buf, String s) {
-        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
-        buf.putInt(bytes.length); // Najpierw długość
-        buf.put(bytes);           // Potem treść
+    private static OrderCancel deserializeCancel(ByteBuffer buffer) {
+        Long userId = buffer.getLong();
+        String reqId = readString(buffer);
+        Long instrumentId = buffer.getLong();
+
+        return new OrderCancel(reqId, userId, instrumentId);
     }
 
     private static String readString(ByteBuffer buf) {
@@ -0,0 +1,11 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+
+/**
+ * Receives cancelled order before its node goes back to the pool.
+ */
+@FunctionalInterface
+interface CancelListener {
+    void onCancelled(Instrument instrument, RestingOrder order);
+}
@@ -1,8 +1,10 @@
 package org.exchange.modules.engine.domain;
 
 import org.springframework.stereotype.Component;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,4 +28,11 @@ public class DeduplicationChecker {
     public void markAsProcessed(String clientOrderId) {
         processedIds.add(clientOrderId);
     }
+
+    /**
+     * @return remembered ids, oldest first
+     */
+    public List<String> window() {
+        return new ArrayList<>(processedIds);
+    }
 }
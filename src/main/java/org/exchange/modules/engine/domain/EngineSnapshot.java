@@ -0,0 +1,256 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Side;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of engine state: balances, resting orders of every book and the dedup window,
+ * tagged with the journal offset it covers. Restart loads the newest valid snapshot and replays the journal from its offset.
+ * Version 2 also records the last journal sequence and the output journal offset at the same point.
+ *
+ * Layout: magic, version, journal offset, created at, [journal sequence, output offset], balances, books, dedup ids,
+ * CRC32 of everything before it.
+ * Files are named by offset, written to a temp file that is forced and moved into place (the directory is forced
+ * after the move), the newest `retain` are kept. The caller forces the journal up to the offset before saving.
+ * A snapshot pointing past the end of the recovered journal (the journal lost its tail in a crash) is skipped on restore.
+ */
+final class EngineSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(EngineSnapshot.class);
+    private static final int MAGIC = 0x45585331; // EXS1
+    private static final int VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int retain;
+
+    EngineSnapshot(Path directory, int retain) {
+        if (retain <= 0) {
+            throw new IllegalArgumentException("Snapshots to retain must be positive");
+        }
+        this.directory = directory;
+        this.retain = retain;
+    }
+
+    /**
+     * Receives restored state, called only after the whole file was verified.
+     */
+    interface Target {
+        void balance(long userId, long assetId, long available, long locked);
+
+        void restingOrder(long instrumentId, String clientOrderId, long userId, Side side, long priceTicks, long remainingLots);
+
+        void processedId(String clientOrderId);
+    }
+
+    /**
+     * Journal position a snapshot covers. Snapshots of version 1 have sequence 0 and output offset -1.
+     */
+    record Position(long journalOffset, long journalSequence, long outputOffset) {
+    }
+
+    /**
+     * Serializes state in memory. Caller must make sure nothing changes it meanwhile.
+     */
+    byte[] encode(Position position, Map<Long, OrderBook> books, BalanceManager balances, DeduplicationChecker deduplicator)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(position.journalOffset());
+        out.writeLong(System.currentTimeMillis());
+        out.writeLong(position.journalSequence());
+        out.writeLong(position.outputOffset());
+
+        ByteArrayOutputStream balanceBytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream balanceOut = new DataOutputStream(balanceBytes);
+        int[] balanceCount = { 0 };
+        balances.forEachBalance((userId, assetId, available, locked) -> {
+            try {
+                balanceOut.writeLong(userId);
+                balanceOut.writeLong(assetId);
+                balanceOut.writeLong(available);
+                balanceOut.writeLong(locked);
+                balanceCount[0]++;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        out.writeInt(balanceCount[0]);
+        balanceBytes.writeTo(out);
+
+        out.writeInt(books.size());
+        for (Map.Entry<Long, OrderBook> entry : books.entrySet()) {
+            OrderBook book = entry.getValue();
+            out.writeLong(entry.getKey());
+            out.writeInt(book.restingCount());
+            for (Side side : Side.values()) {
+                book.forEachResting(side, order -> {
+                    try {
+                        out.writeUTF(order.clientOrderId);
+                        out.writeLong(order.userId);
+                        out.writeByte(order.side == Side.BUY ? 0 : 1);
+                        out.writeLong(order.priceTicks);
+                        out.writeLong(order.remainingLots);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+        }
+
+        List<String> processedIds = deduplicator.window();
+        out.writeInt(processedIds.size());
+        for (String id : processedIds) {
+            out.writeUTF(id);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    void save(long journalOffset, byte[] data) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, journalOffset, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        Files.write(temp, data);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        List<Path> snapshots = list();
+        for (int i = retain; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    // makes the rename durable, not every platform can open a directory
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Snapshot directory {} not forced", directory, e);
+        }
+    }
+
+    /**
+     * Restores the newest snapshot that passes verification and is covered by the journal,
+     * corrupt ones and ones past journalEnd or lastSequence are skipped.
+     * @return journal position covered by the restored snapshot, null when there is none
+     */
+    Position restoreLatest(Target target, long journalEnd, long lastSequence) throws IOException {
+        for (Path file : list()) {
+            byte[] data = Files.readAllBytes(file);
+            if (!verify(data)) {
+                log.warn("Skipping corrupt snapshot {}", file);
+                continue;
+            }
+            Position header = position(new DataInputStream(new ByteArrayInputStream(data)));
+            if (header.journalOffset() > journalEnd || header.journalSequence() > lastSequence) {
+                log.warn("Skipping snapshot {}, it is past the journal end (offset {}, sequence {})",
+                        file, journalEnd, lastSequence);
+                continue;
+            }
+            Position position = decode(data, target);
+            log.info("Restored snapshot {}", file);
+            return position;
+        }
+        return null;
+    }
+
+    private static boolean verify(byte[] data) throws IOException {
+        if (data.length < 8 + 8 + 8 + 8) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            return false;
+        }
+        int version = in.readInt();
+        if (version != 1 && version != VERSION) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 8);
+        long stored = new DataInputStream(new ByteArrayInputStream(data, data.length - 8, 8)).readLong();
+        return crc.getValue() == stored;
+    }
+
+    private static Position decode(byte[] data, Target target) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 8));
+        Position position = position(in);
+
+        int balanceCount = in.readInt();
+        for (int i = 0; i < balanceCount; i++) {
+            target.balance(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        }
+
+        int bookCount = in.readInt();
+        for (int b = 0; b < bookCount; b++) {
+            long instrumentId = in.readLong();
+            int orderCount = in.readInt();
+            for (int i = 0; i < orderCount; i++) {
+                String clientOrderId = in.readUTF();
+                long userId = in.readLong();
+                Side side = in.readByte() == 0 ? Side.BUY : Side.SELL;
+                target.restingOrder(instrumentId, clientOrderId, userId, side, in.readLong(), in.readLong());
+            }
+        }
+
+        int idCount = in.readInt();
+        for (int i = 0; i < idCount; i++) {
+            target.processedId(in.readUTF());
+        }
+        return position;
+    }
+
+    // reads the header up to the balances
+    private static Position position(DataInputStream in) throws IOException {
+        in.readInt(); // magic
+        int version = in.readInt();
+        long journalOffset = in.readLong();
+        in.readLong(); // created at
+        return version == 1
+                ? new Position(journalOffset, 0L, -1L)
+                : new Position(journalOffset, in.readLong(), in.readLong());
+    }
+
+    // newest first
+    private List<Path> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.OrderCancel;
+import org.exchange.modules.engine.domain.model.RejectReason;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.exchange.modules.engine.domain.BinaryEventSerializer.*;
+
+/**
+ * Flyweight over a journal record, fields are read straight from the buffer on access.
+ * One instance is reused for every record, nothing is allocated except clientOrderId() and toEvent().
+ *
+ * Records of the legacy (string based) format are decoded once on wrap, they only show up in old segments.
+ * The view is valid until the buffer is written to or the view is wrapped again.
+ */
+public final class EventRecordView {
+    private static final EventType[] TYPES_BY_CODE = new EventType[16];
+
+    static {
+        for (EventType type : EventType.values()) {
+            TYPES_BY_CODE[type.getCode()] = type;
+        }
+    }
+
+    private final byte[] idBytes = new byte[CLIENT_ORDER_ID_LENGTH];
+    private ByteBuffer buffer;
+    private int offset;
+    // start of the compact fields, past the stamp in stamped records
+    private int body;
+    private boolean stamped;
+    private EventType type;
+    private JournalModelEvent legacy;
+
+    /**
+     * Wraps the record between buffer position and limit, the buffer itself is not modified.
+     */
+    public EventRecordView wrap(ByteBuffer record) {
+        return wrap(record, record.position());
+    }
+
+    /**
+     * Wraps the record whose payload starts at given absolute offset.
+     */
+    public EventRecordView wrap(ByteBuffer buffer, int offset) {
+        byte header = buffer.get(offset);
+        int code = header & 0x0F;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.type = TYPES_BY_CODE[code];
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown EventType code: " + code);
+        }
+        int version = version(header);
+        if (version != VERSION_LEGACY && version != VERSION_COMPACT && version != VERSION_STAMPED) {
+            throw new IllegalArgumentException("Unknown journal record version: " + version);
+        }
+        this.stamped = version == VERSION_STAMPED;
+        this.body = stamped ? offset + STAMP_LENGTH : offset;
+        this.legacy = version == VERSION_LEGACY ? deserializeLegacy(buffer.duplicate().position(offset)) : null;
+        return this;
+    }
+
+    public EventType type() {
+        return type;
+    }
+
+    /**
+     * Journal sequence, 0 for records written before records were stamped.
+     */
+    public long sequence() {
+        return stamped ? buffer.getLong(offset + SEQUENCE) : 0L;
+    }
+
+    /**
+     * Epoch nanoseconds of the append, 0 for records written before records were stamped.
+     */
+    public long timestampNanos() {
+        return stamped ? buffer.getLong(offset + TIMESTAMP) : 0L;
+    }
+
+    public long userId() {
+        if (legacy != null) {
+            if (legacy instanceof Order order) {
+                return order.getUserId();
+            }
+            return legacy instanceof Deposit deposit ? deposit.getUserId() : ((OrderCancel) legacy).getUserId();
+        }
+        return buffer.getLong(body + USER_ID);
+    }
+
+    /**
+     * Orders, cancels and output records.
+     */
+    public long instrumentId() {
+        if (legacy != null) {
+            return legacy instanceof Order order ? order.getInstrumentId() : ((OrderCancel) legacy).getInstrumentId();
+        }
+        return buffer.getLong(body + INSTRUMENT_ID);
+    }
+
+    /**
+     * Deposits only.
+     */
+    public long assetId() {
+        if (legacy != null) {
+            return ((Deposit) legacy).getAssetId();
+        }
+        return buffer.getLong(body + ASSET_ID);
+    }
+
+    public Side side() {
+        if (legacy != null) {
+            return ((Order) legacy).getSide();
+        }
+        return buffer.get(body + ORDER_SIDE) == 0 ? Side.BUY : Side.SELL;
+    }
+
+    /**
+     * Amount of an order or deposit is amountUnscaled() * 10^-amountScale().
+     */
+    public long amountUnscaled() {
+        if (legacy != null) {
+            return canonical(legacyAmount()).unscaledValue().longValueExact();
+        }
+        return buffer.getLong(body + amountOffset());
+    }
+
+    public int amountScale() {
+        if (legacy != null) {
+            return canonical(legacyAmount()).scale();
+        }
+        return buffer.get(body + amountOffset() + 8);
+    }
+
+    public long priceUnscaled() {
+        if (legacy != null) {
+            return canonical(((Order) legacy).getPrice()).unscaledValue().longValueExact();
+        }
+        return buffer.getLong(body + ORDER_PRICE);
+    }
+
+    public int priceScale() {
+        if (legacy != null) {
+            return canonical(((Order) legacy).getPrice()).scale();
+        }
+        return buffer.get(body + ORDER_PRICE + 8);
+    }
+
+    public BigDecimal amount() {
+        return BigDecimal.valueOf(amountUnscaled(), amountScale());
+    }
+
+    public BigDecimal price() {
+        return BigDecimal.valueOf(priceUnscaled(), priceScale());
+    }
+
+    /**
+     * Output records only, NONE unless ORDER_REJECTED or CANCEL_REJECTED.
+     */
+    public RejectReason rejectReason() {
+        return RejectReason.fromCode(buffer.get(body + OUTPUT_REASON));
+    }
+
+    /**
+     * Output records only, input journal sequence of the event that caused this one, 0 for orders rejected before journaling.
+     */
+    public long sourceSequence() {
+        return buffer.getLong(body + OUTPUT_SOURCE);
+    }
+
+    /**
+     * Trades only, maker of the trade (the taker is userId()).
+     */
+    public long counterpartyUserId() {
+        return buffer.getLong(body + TRADE_COUNTERPARTY);
+    }
+
+    /**
+     * Trades only, allocates the String.
+     */
+    public String counterpartyClientOrderId() {
+        return readClientOrderId(body + TRADE_COUNTERPARTY_CLIENT_ID);
+    }
+
+    /**
+     * Compares without materializing the id.
+     */
+    public boolean clientOrderIdEquals(String clientOrderId) {
+        if (legacy != null) {
+            return clientOrderId.equals(clientOrderId());
+        }
+        int position = body + clientIdOffset();
+        int length = buffer.get(position);
+        if (length != clientOrderId.length()) {
+            // non ASCII ids take the slow path
+            return length > clientOrderId.length() && clientOrderId.equals(clientOrderId());
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + 1 + i) != (byte) clientOrderId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders, cancels and output records, allocates the String.
+     */
+    public String clientOrderId() {
+        if (legacy != null) {
+            return legacy instanceof Order order ? order.getClientOrderId() : ((OrderCancel) legacy).getClientOrderId();
+        }
+        return readClientOrderId(body + clientIdOffset());
+    }
+
+    /**
+     * Materializes an input record, for readers that keep events around. Output records are read through the view only.
+     */
+    public JournalModelEvent toEvent() {
+        if (legacy != null) {
+            return legacy;
+        }
+        return switch (type) {
+            case ORDER_NEW -> new Order(clientOrderId(), userId(), side(), instrumentId(), amount(), price());
+            case ORDER_CANCEL -> new OrderCancel(clientOrderId(), userId(), instrumentId());
+            case BALANCE_DEPOSIT -> new Deposit(userId(), assetId(), amount());
+            default -> throw new IllegalArgumentException("Unsupported event type: " + type);
+        };
+    }
+
+    private String readClientOrderId(int position) {
+        int length = buffer.get(position);
+        buffer.get(position + 1, idBytes, 0, length);
+        return new String(idBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int amountOffset() {
+        return type == EventType.BALANCE_DEPOSIT ? DEPOSIT_AMOUNT : ORDER_AMOUNT;
+    }
+
+    private int clientIdOffset() {
+        return type == EventType.ORDER_CANCEL ? CANCEL_CLIENT_ID : ORDER_CLIENT_ID;
+    }
+
+    private BigDecimal legacyAmount() {
+        return legacy instanceof Deposit deposit ? deposit.getAmount() : ((Order) legacy).getAmount();
+    }
+}
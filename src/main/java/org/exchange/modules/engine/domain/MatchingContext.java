@@ -0,0 +1,44 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.journal.OutputEventBuffer;
+import org.exchange.modules.engine.domain.model.TradeBuffer;
+
+/**
+ * Preallocated structures owned by one matching worker and shared by the books it owns.
+ */
+final class MatchingContext {
+    private final RestingOrderPool orderPool;
+    private final TradeBuffer trades;
+    private final OutputEventBuffer outputs;
+    // input event being processed, output events point back to it
+    private long sourceSequence;
+
+    MatchingContext(int orderPoolSize, int tradeBufferSize, int outputBufferSize) {
+        this.orderPool = new RestingOrderPool(orderPoolSize);
+        this.trades = new TradeBuffer(tradeBufferSize);
+        this.outputs = new OutputEventBuffer(outputBufferSize);
+    }
+
+    RestingOrderPool orderPool() {
+        return orderPool;
+    }
+
+    TradeBuffer trades() {
+        return trades;
+    }
+
+    /**
+     * Output events of the current batch, published after the journal flush.
+     */
+    OutputEventBuffer outputs() {
+        return outputs;
+    }
+
+    void begin(long sourceSequence) {
+        this.sourceSequence = sourceSequence;
+    }
+
+    long sourceSequence() {
+        return sourceSequence;
+    }
+}
@@ -3,168 +3,770 @@ package org.exchange.modules.engine.domain;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.exchange.modules.engine.domain.journal.ExchangeEventJournal;
-import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+import org.exchange.modules.engine.domain.journal.OutputEventBuffer;
+import org.exchange.modules.engine.domain.journal.OutputJournal;
 import org.exchange.modules.engine.domain.model.*;
+import org.exchange.modules.engine.domain.ring.EngineEvent;
+import org.exchange.modules.engine.domain.ring.EventRingBuffer;
+import org.exchange.modules.engine.domain.ring.WaitStrategy;
+import org.exchange.modules.engine.domain.ring.WaitStrategyFactory;
+import org.exchange.modules.engine.infrastructure.dto.EngineStatsView;
 import org.exchange.modules.engine.infrastructure.cache.InstrumentCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.exchange.modules.engine.infrastructure.dto.OrderBookView;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Routes events to per-instrument order books.
+ * Every instrument is owned by exactly one worker thread (instrumentId hashed onto workers),
+ * so a busy market never delays matching of the others.
+ * Ingress threads write events straight into preallocated slots of the worker's ring, see EventRingBuffer.
+ * A worker drains up to batch-size published events at once and flushes the journal once per batch.
+ * State is periodically snapshotted between batches, restart replays only the journal after the latest snapshot.
+ *
+ * Dedup, funds locking and journal append are done under one sequencer lock,
+ * so the journal order is the order in which balances were reserved and replay stays deterministic.
+ *
+ * Results (accepted, rejected, fills, cancels and trades) are collected per batch and published to the output journal
+ * after the input journal flush. Orders and cancels refused before journaling (unknown instrument, duplicate,
+ * insufficient funds, no such resting order) are answered too, with source sequence 0. Replay produces output again only for input records that have none yet.
+ */
 @Service
 public final class MatchingEngine {
-    private final BlockingQueue<JournalModelEvent> queue = new LinkedBlockingQueue<>();
-    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "Matching-Engine-Worker");
-        t.setDaemon(true);
-        return t;
-    });
-
-    private final OrderBook orderBook = new OrderBook();
     private static final Logger log = LoggerFactory.getLogger(MatchingEngine.class);
+    private static final long STOP_TIMEOUT_SECONDS = 10L;
+
+    private final Map<Long, OrderBook> orderBooks = new ConcurrentHashMap<>();
+    private final Worker[] workers;
+    private final int batchSize;
+    private final Object sequencer = new Object();
+    // workers hold the read lock for a whole batch, snapshot takes the write lock to see state between batches
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final EngineSnapshot snapshots;
+    private final boolean snapshotEnabled;
+    private volatile boolean started;
+    private long lastSnapshotOffset = -1L;
+    // created once, passing method references would allocate on every call
+    private final TradeListener settlement = this::settle;
+    private final CancelListener cancelUnlock = this::unlockRemaining;
+    // replay only: input sequences from outputBase on which already have output, null when replay emits nothing
+    private BitSet replayCovered;
+    private long replayBase;
 
     private final ExchangeEventJournal journal;
+    private final OutputJournal output;
     private final DeduplicationChecker deduplicator;
     private final BalanceManager balanceManager;
     private final InstrumentCache instrumentCache;
+    private final OrderBookFactory orderBookFactory;
 
     public MatchingEngine(
             ExchangeEventJournal journal,
+            OutputJournal output,
             DeduplicationChecker deduplicator,
             BalanceManager balanceManager,
-            InstrumentCache instrumentCache
+            InstrumentCache instrumentCache,
+            OrderBookFactory orderBookFactory,
+            WaitStrategyFactory waitStrategyFactory,
+            @Value("${app.engine.worker-threads:2}") int workerThreads,
+            @Value("${app.engine.order-pool-size:16384}") int orderPoolSize,
+            @Value("${app.engine.trade-buffer-size:64}") int tradeBufferSize,
+            @Value("${app.engine.ring-size:65536}") int ringSize,
+            @Value("${app.engine.batch-size:256}") int batchSize,
+            @Value("${app.engine.snapshot.enabled:true}") boolean snapshotEnabled,
+            @Value("${app.engine.snapshot.dir:data/snapshots}") String snapshotDir,
+            @Value("${app.engine.snapshot.retain:2}") int snapshotRetain
     ) {
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("Worker threads must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshots = new EngineSnapshot(Paths.get(snapshotDir), snapshotRetain);
         this.journal = journal;
+        this.output = output;
         this.deduplicator = deduplicator;
         this.balanceManager = balanceManager;
         this.instrumentCache = instrumentCache;
-    }
-
-    private void startWorker() {
-        worker.submit(() -> {
-            log.info("Matching Engine Worker started.");
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    JournalModelEvent event = queue.take();
-                    processInternal(event);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.info("Worker interrupted, shutting down.");
-                } catch (Exception e) {
-                    log.error("CRITICAL: Error processing order", e);
-                }
-            }
-        });
+        this.orderBookFactory = orderBookFactory;
+        this.workers = new Worker[workerThreads];
+        for (int i = 0; i < workerThreads; i++) {
+            workers[i] = new Worker(
+                    i,
+                    new EventRingBuffer(ringSize, waitStrategyFactory.create()),
+                    new MatchingContext(orderPoolSize, tradeBufferSize, batchSize * 4)
+            );
+        }
     }
 
     @PostConstruct
     public void init() throws IOException {
         log.info("Matching Engine init");
+        for (Instrument instrument : instrumentCache.getAllActive()) {
+            orderBooks.put(instrument.getId(), createOrderBook(instrument));
+        }
+        log.info("Created {} order books on {} workers", orderBooks.size(), workers.length);
+
         replayJournal();
-        startWorker();
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        started = true;
+    }
+
+    /**
+     * Producer side, called by ingress threads. Price and amount are scaled here,
+     * so the worker only sees ticks and lots.
+     */
+    public void submitOrder(
+            String clientOrderId,
+            Long userId,
+            Side side,
+            Long instrumentId,
+            BigDecimal amount,
+            BigDecimal price
+    ) {
+        if (clientOrderId == null || clientOrderId.isEmpty()) {
+            throw new IllegalArgumentException("Client order ID cannot be null or empty");
+        }
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (side == null) {
+            throw new IllegalArgumentException("Side cannot be null");
+        }
+        if (instrumentId == null) {
+            throw new IllegalArgumentException("Instrument ID cannot be null");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount cannot be null or less than or equal to zero");
+        }
+        if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Price cannot be null or less than or equal to zero");
+        }
+        BinaryEventSerializer.checkClientOrderId(clientOrderId);
+
+        Instrument instrument = instrumentCache.getById(instrumentId);
+        if (instrument == null || !orderBooks.containsKey(instrumentId)) {
+            try {
+                BinaryEventSerializer.checkDecimal(price);
+                BinaryEventSerializer.checkDecimal(amount);
+            } catch (ArithmeticException e) {
+                log.info("Order rejected, no order book for instrument {}: {}", instrumentId, clientOrderId);
+                return;
+            }
+            // the worker answers with ORDER_REJECTED / UNKNOWN_INSTRUMENT
+            EventRingBuffer ring = workerFor(instrumentId).ring;
+            long sequence = ring.claim();
+            ring.get(sequence).setOrder(clientOrderId, userId, side, instrumentId, amount, price, 0L, 0L);
+            ring.publish(sequence);
+            return;
+        }
+        long priceTicks;
+        long amountLots;
+        try {
+            priceTicks = instrument.toPriceTicks(price);
+            amountLots = instrument.toAmountLots(amount);
+            BinaryEventSerializer.checkDecimal(price);
+        } catch (ArithmeticException e) {
+            log.info("Order rejected, price or amount not representable for instrument {}: {}", instrumentId, clientOrderId);
+            return;
+        }
+
+        EventRingBuffer ring = workerFor(instrumentId).ring;
+        long sequence = ring.claim();
+        ring.get(sequence).setOrder(clientOrderId, userId, side, instrumentId, amount, price, priceTicks, amountLots);
+        ring.publish(sequence);
+    }
+
+    public void submitCancel(String clientOrderId, Long userId, Long instrumentId) {
+        if (clientOrderId == null || clientOrderId.isEmpty()) {
+            throw new IllegalArgumentException("Client order ID cannot be null or empty");
+        }
+        BinaryEventSerializer.checkClientOrderId(clientOrderId);
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (instrumentId == null) {
+            throw new IllegalArgumentException("Instrument ID cannot be null");
+        }
+
+        EventRingBuffer ring = workerFor(instrumentId).ring;
+        long sequence = ring.claim();
+        ring.get(sequence).setCancel(clientOrderId, userId, instrumentId);
+        ring.publish(sequence);
     }
 
-    public void process(Order order) {
-        queue.offer(order);
+    public void submitDeposit(Long userId, Long assetId, BigDecimal amount) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (assetId == null) {
+            throw new IllegalArgumentException("Asset ID cannot be null");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount cannot be null or less than or equal to zero");
+        }
+
+        // deposits only touch balances, any worker will do
+        EventRingBuffer ring = workerFor(userId).ring;
+        long sequence = ring.claim();
+        ring.get(sequence).setDeposit(userId, assetId, amount);
+        ring.publish(sequence);
     }
 
-    public void process(Deposit deposit) {
-        queue.offer(deposit);
+    private OrderBook createOrderBook(Instrument instrument) {
+        if (instrument == null) {
+            throw new IllegalArgumentException("Instrument cannot be null");
+        }
+        return orderBookFactory.create(instrument, workerFor(instrument.getId()).context);
+    }
+
+    private Worker workerFor(Long key) {
+        return workers[Math.floorMod(Long.hashCode(key), workers.length)];
     }
 
+    private MatchingContext contextFor(long instrumentId) {
+        return workerFor(instrumentId).context;
+    }
+
+    /**
+     * Restores the latest snapshot and replays the journal after it, or the whole journal when there is no snapshot.
+     */
     private void replayJournal() throws IOException
     {
-        journal.replay(journalObject -> {
-            if (journalObject instanceof Order order) {
-                //process order without adding to jurnal
-                tryLockFunds(order);
-                deduplicator.markAsProcessed(order.getClientOrderId());
+        EngineSnapshot.Position position = snapshotEnabled ? restoreSnapshot() : null;
+        prepareOutputReplay(position);
+        long start = System.nanoTime();
+        if (journal.isPartitioned()) {
+            // partitions are merged back by global sequence, the snapshot position is a sequence
+            long fromSequence = position != null ? position.journalSequence() + 1 : 1L;
+            long lastSequence = journal.replayFromSequence(fromSequence, this::replayEvent);
+            log.info("Replayed journal partitions, sequence {} -> {} in {} ms", fromSequence, lastSequence, (System.nanoTime() - start) / 1_000_000);
+            lastSnapshotOffset = position != null ? position.journalOffset() : -1L;
+        } else {
+            long fromOffset = position != null ? position.journalOffset() : journal.getStore().firstOffset();
+            long endOffset = journal.replay(fromOffset, this::replayEvent);
+            log.info("Replayed journal {} -> {} in {} ms", fromOffset, endOffset, (System.nanoTime() - start) / 1_000_000);
+            lastSnapshotOffset = fromOffset;
+        }
+        replayCovered = null;
+        journal.init();
+    }
 
-                MatchResult result = orderBook.process(order);
+    /**
+     * Finds input records after the snapshot whose output is already in the output journal, the rest was lost
+     * in a crash and is published again during replay. An empty output journal is not backfilled.
+     */
+    private void prepareOutputReplay(EngineSnapshot.Position position) throws IOException {
+        if (output.lastSequence() == 0L) {
+            replayCovered = null;
+            return;
+        }
+        replayBase = position != null ? position.journalSequence() + 1 : 1L;
+        long outputFrom = position != null && position.outputOffset() >= 0
+                ? position.outputOffset()
+                : output.getStore().firstOffset();
+        replayCovered = output.collectSources(outputFrom, replayBase);
+    }
 
-                Instrument instrument = instrumentCache.getById(order.getInstrumentId());
+    private void publishReplayed(MatchingContext context, long sequence) throws IOException {
+        if (replayCovered == null || sequence < replayBase || replayCovered.get((int) (sequence - replayBase))) {
+            context.outputs().clear();
+            return;
+        }
+        output.publish(context.outputs());
+    }
 
-                if (result.trades() != null) {
-                    for (TradeMatch trade : result.trades()) {
-                        balanceManager.processTrade(trade, instrument);
-                    }
+    private void replayEvent(EventRecordView record) {
+        try {
+            replayRecord(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replayRecord(EventRecordView record) throws IOException {
+        switch (record.type()) {
+            case ORDER_NEW -> {
+                //process order without adding to jurnal
+                OrderBook orderBook = bookFor(record.instrumentId());
+                Instrument instrument = orderBook.getInstrument();
+                long priceTicks = instrument.toPriceTicks(record.priceUnscaled(), record.priceScale());
+                long amountLots = instrument.toAmountLots(record.amountUnscaled(), record.amountScale());
+                String clientOrderId = record.clientOrderId();
+                long userId = record.userId();
+                Side side = record.side();
+                if (orderBook.findResting(clientOrderId) != null) {
+                    // journaled before resting ids were checked, live processing rejects it now
+                    log.warn("Replay skipped order {}, an order with that id is resting", clientOrderId);
+                    return;
                 }
-            } else if (journalObject instanceof Deposit deposit) {
-                //process deposit without adding to jurnal
-                balanceManager.deposit(
-                        deposit.getUserId(),
-                        deposit.getAssetId(),
-                        deposit.getAmount()
-                );
+                if (!tryLockFunds(clientOrderId, userId, side, priceTicks, amountLots, instrument)) {
+                    // only orders whose funds were locked are journaled, a record the journal lost before it is missing
+                    throw new IllegalStateException("Journal corrupt: order " + clientOrderId + " at sequence "
+                            + record.sequence() + " cannot lock funds on replay");
+                }
+                deduplicator.markAsProcessed(clientOrderId);
+
+                MatchingContext context = contextFor(instrument.getId());
+                context.begin(record.sequence());
+                match(context, orderBook, clientOrderId, userId, side, priceTicks, amountLots);
+                publishReplayed(context, record.sequence());
             }
-        });
-        journal.init();
+            case ORDER_CANCEL -> {
+                OrderBook orderBook = orderBooks.get(record.instrumentId());
+                if (orderBook != null) {
+                    MatchingContext context = contextFor(record.instrumentId());
+                    context.begin(record.sequence());
+                    orderBook.cancel(record.clientOrderId(), cancelUnlock);
+                    publishReplayed(context, record.sequence());
+                }
+            }
+            case BALANCE_DEPOSIT ->
+                //process deposit without adding to jurnal
+                    balanceManager.deposit(
+                            record.userId(),
+                            record.assetId(),
+                            FixedPoint.toUnits(record.amountUnscaled(), record.amountScale())
+                    );
+            default -> log.warn("Skipping unsupported journal record {}", record.type());
+        }
     }
 
+    private OrderBook bookFor(Long instrumentId) {
+        return orderBooks.computeIfAbsent(instrumentId, id -> createOrderBook(instrumentCache.getById(id)));
+    }
+
+    private EngineSnapshot.Position restoreSnapshot() throws IOException {
+        long start = System.nanoTime();
+        EngineSnapshot.Position position = snapshots.restoreLatest(new EngineSnapshot.Target() {
+            @Override
+            public void balance(long userId, long assetId, long available, long locked) {
+                balanceManager.restore(userId, assetId, available, locked);
+            }
 
-    private void processInternal(JournalModelEvent event) throws IOException {
-        if (event instanceof Order order) {
-            handleOrder(order);
-        } else if (event instanceof Deposit deposit) {
-            handleDeposit(deposit);
+            @Override
+            public void restingOrder(long instrumentId, String clientOrderId, long userId, Side side, long priceTicks, long remainingLots) {
+                OrderBook orderBook = bookFor(instrumentId);
+                if (orderBook.findResting(clientOrderId) != null) {
+                    // snapshot of a version that let a new order shadow a resting one, only the first is restored
+                    log.warn("Snapshot holds order {} twice, restoring it once", clientOrderId);
+                    return;
+                }
+                orderBook.restore(clientOrderId, userId, side, priceTicks, remainingLots);
+            }
+
+            @Override
+            public void processedId(String clientOrderId) {
+                deduplicator.markAsProcessed(clientOrderId);
+            }
+        }, journal.size(), journal.lastSequence());
+        if (position != null) {
+            log.info("Snapshot at journal offset {} restored in {} ms", position.journalOffset(), (System.nanoTime() - start) / 1_000_000);
         }
+        return position;
     }
 
-    private void handleOrder(Order order) throws IOException {
-        if (deduplicator.isDuplicate(order.getClientOrderId())) {
-            log.warn("Ignored duplicate order: {}", order.getClientOrderId());
+    /**
+     * Writes snapshot of books, balances and dedup window. Workers are paused only while state is copied to memory.
+     */
+    @Scheduled(
+            initialDelayString = "${app.engine.snapshot.interval-ms:60000}",
+            fixedDelayString = "${app.engine.snapshot.interval-ms:60000}"
+    )
+    public void takeSnapshot() {
+        if (!snapshotEnabled || !started) {
             return;
         }
+        long offset;
+        byte[] data;
+        stateLock.writeLock().lock();
+        try {
+            // no batch in progress, so every appended record is committed and applied and its output published
+            offset = journal.size();
+            if (offset == lastSnapshotOffset) {
+                return;
+            }
+            EngineSnapshot.Position position = new EngineSnapshot.Position(offset, journal.lastSequence(), output.size());
+            data = snapshots.encode(position, orderBooks, balanceManager, deduplicator);
+        } catch (IOException e) {
+            log.error("Snapshot failed", e);
+            return;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+
+        try {
+            // the snapshot must not point past what the journal holds after a crash
+            journal.fsync();
+            // replay after this snapshot never regenerates output before it
+            output.force();
+            snapshots.save(offset, data);
+            lastSnapshotOffset = offset;
+            log.info("Snapshot at journal offset {} written, {} bytes", offset, data.length);
+        } catch (IOException e) {
+            log.error("Snapshot write failed", e);
+        }
+    }
 
-        if (!tryLockFunds(order)) {
-            log.info("Order rejected due to insufficient funds: {}", order.getClientOrderId());
-            // Tu można wygenerować zdarzenie OrderRejected i zapisać/wysłać
+    private void processInternal(EngineEvent event) throws IOException {
+        switch (event.getType()) {
+            case ORDER_NEW -> handleOrder(event);
+            case ORDER_CANCEL -> handleCancel(event);
+            case BALANCE_DEPOSIT -> handleDeposit(event);
+            default -> log.warn("Unsupported event type {}", event.getType());
+        }
+    }
+
+    private void handleOrder(EngineEvent order) throws IOException {
+        OrderBook orderBook = orderBooks.get(order.getInstrumentId());
+        if (orderBook == null) {
+            log.info("Order rejected, no order book for instrument {}: {}", order.getInstrumentId(), order.getClientOrderId());
+            BigDecimal price = BinaryEventSerializer.canonical(order.getPrice());
+            BigDecimal amount = BinaryEventSerializer.canonical(order.getAmount());
+            contextFor(order.getInstrumentId()).outputs().next().setUnknownInstrument(
+                    order.getClientOrderId(),
+                    order.getUserId(),
+                    order.getSide(),
+                    order.getInstrumentId(),
+                    price.unscaledValue().longValueExact(),
+                    price.scale(),
+                    amount.unscaledValue().longValueExact(),
+                    amount.scale()
+            );
             return;
         }
 
-        MatchResult result = orderBook.process(order);
-        
-        Instrument instrument = instrumentCache.getById(order.getInstrumentId());
-        
-        if (result.trades() != null) {
-            for (TradeMatch trade : result.trades()) {
-                balanceManager.processTrade(trade, instrument);
+        MatchingContext context = contextFor(order.getInstrumentId());
+        synchronized (sequencer) {
+            // the dedup window is bounded, a long resting order can outlive its entry
+            if (deduplicator.isDuplicate(order.getClientOrderId())
+                    || orderBook.findResting(order.getClientOrderId()) != null) {
+                log.warn("Ignored duplicate order: {}", order.getClientOrderId());
+                reject(context, order, orderBook.getInstrument(), RejectReason.DUPLICATE);
+                return;
             }
+
+            if (!tryLockFunds(
+                    order.getClientOrderId(),
+                    order.getUserId(),
+                    order.getSide(),
+                    order.getPriceTicks(),
+                    order.getAmountLots(),
+                    orderBook.getInstrument()
+            )) {
+                log.info("Order rejected due to insufficient funds: {}", order.getClientOrderId());
+                reject(context, order, orderBook.getInstrument(), RejectReason.INSUFFICIENT_FUNDS);
+                return;
+            }
+
+            context.begin(journal.append(order));
+            deduplicator.markAsProcessed(order.getClientOrderId());
         }
-        
-        journal.append(order);
-        deduplicator.markAsProcessed(order.getClientOrderId());
+
+        match(
+                context,
+                orderBook,
+                order.getClientOrderId(),
+                order.getUserId(),
+                order.getSide(),
+                order.getPriceTicks(),
+                order.getAmountLots()
+        );
     }
 
-    private void handleDeposit(Deposit deposit) throws IOException {
-        journal.append(deposit);
-        balanceManager.deposit(deposit.getUserId(), deposit.getAssetId(), deposit.getAmount());
+    private void reject(MatchingContext context, EngineEvent order, Instrument instrument, RejectReason reason) {
+        // never journaled, so there is no source sequence and replay does not produce it again
+        context.outputs().next().setOrderState(
+                EventType.ORDER_REJECTED,
+                0L,
+                order.getClientOrderId(),
+                order.getUserId(),
+                order.getSide(),
+                instrument,
+                order.getPriceTicks(),
+                order.getAmountLots(),
+                reason
+        );
     }
 
-    private boolean tryLockFunds(Order order) {
-        Instrument instrument = instrumentCache.getById(order.getInstrumentId());
-        if (instrument == null) {
-            log.error("Instrument not found {}", order.getInstrumentId());
+    /**
+     * Matches an accepted order and collects its output: accepted, then every trade followed by the maker's new state,
+     * then the taker's state when anything was filled. Used by both live processing and replay.
+     */
+    private void match(
+            MatchingContext context,
+            OrderBook orderBook,
+            String clientOrderId,
+            long userId,
+            Side side,
+            long priceTicks,
+            long amountLots
+    ) {
+        Instrument instrument = orderBook.getInstrument();
+        OutputEventBuffer outputs = context.outputs();
+        long source = context.sourceSequence();
+        outputs.next().setOrderState(
+                EventType.ORDER_ACCEPTED, source, clientOrderId, userId, side, instrument, priceTicks, amountLots, RejectReason.NONE
+        );
+
+        orderBook.process(clientOrderId, userId, side, priceTicks, amountLots, settlement);
+
+        TradeBuffer trades = context.trades();
+        if (trades.isEmpty()) {
+            return;
+        }
+        Side makerSide = side == Side.BUY ? Side.SELL : Side.BUY;
+        long remainingLots = amountLots;
+        for (int i = 0; i < trades.size(); i++) {
+            TradeMatch trade = trades.get(i);
+            remainingLots -= trade.getQuantityLots();
+            outputs.next().setTrade(
+                    source,
+                    clientOrderId,
+                    userId,
+                    side,
+                    instrument,
+                    trade.getPriceTicks(),
+                    trade.getQuantityLots(),
+                    trade.getMakerClientOrderId(),
+                    trade.getMakerUserId()
+            );
+            outputs.next().setOrderState(
+                    trade.getMakerRemainingLots() == 0 ? EventType.ORDER_FILLED : EventType.ORDER_PARTIALLY_FILLED,
+                    source,
+                    trade.getMakerClientOrderId(),
+                    trade.getMakerUserId(),
+                    makerSide,
+                    instrument,
+                    trade.getPriceTicks(),
+                    trade.getMakerRemainingLots(),
+                    RejectReason.NONE
+            );
+        }
+        outputs.next().setOrderState(
+                remainingLots == 0 ? EventType.ORDER_FILLED : EventType.ORDER_PARTIALLY_FILLED,
+                source,
+                clientOrderId,
+                userId,
+                side,
+                instrument,
+                priceTicks,
+                remainingLots,
+                RejectReason.NONE
+        );
+    }
+
+    private void handleCancel(EngineEvent cancel) throws IOException {
+        OrderBook orderBook = orderBooks.get(cancel.getInstrumentId());
+        RestingOrder resting = orderBook != null ? orderBook.findResting(cancel.getClientOrderId()) : null;
+        if (resting == null || resting.userId != cancel.getUserId()) {
+            // e.g. the order filled before the cancel, which comes through its own queue
+            log.info("Cancel rejected, no resting order {} of user {}", cancel.getClientOrderId(), cancel.getUserId());
+            contextFor(cancel.getInstrumentId()).outputs().next().setCancelRejected(
+                    cancel.getClientOrderId(),
+                    cancel.getUserId(),
+                    cancel.getInstrumentId(),
+                    RejectReason.UNKNOWN_ORDER
+            );
+            return;
+        }
+
+        synchronized (sequencer) {
+            contextFor(cancel.getInstrumentId()).begin(journal.append(cancel));
+            orderBook.cancel(cancel.getClientOrderId(), cancelUnlock);
+        }
+    }
+
+    private void handleDeposit(EngineEvent deposit) throws IOException {
+        long units;
+        try {
+            units = FixedPoint.toUnits(deposit.getAmount());
+        } catch (ArithmeticException e) {
+            log.info("Deposit rejected, amount not representable: {}", deposit.getAmount());
+            return;
+        }
+
+        synchronized (sequencer) {
+            journal.append(deposit);
+            balanceManager.deposit(deposit.getUserId(), deposit.getAssetId(), units);
+        }
+    }
+
+    private void settle(Instrument instrument, TradeBuffer trades) {
+        for (int i = 0; i < trades.size(); i++) {
+            balanceManager.processTrade(trades.get(i), instrument);
+        }
+    }
+
+    private boolean tryLockFunds(
+            String clientOrderId,
+            long userId,
+            Side side,
+            long priceTicks,
+            long amountLots,
+            Instrument instrument
+    ) {
+        Long assetToLockId = (side == Side.BUY) ? instrument.getQuoteAssetId() : instrument.getBaseAssetId();
+        long fundsToLock;
+        try {
+            fundsToLock = instrument.lockUnits(side, priceTicks, amountLots);
+        } catch (ArithmeticException e) {
+            log.error("Order notional overflow {}", clientOrderId);
             return false;
         }
 
-        Long assetToLockId = (order.getSide() == Side.BUY) ? instrument.getQuoteAssetId() : instrument.getBaseAssetId();
-        BigDecimal fundsToLock = (order.getSide() == Side.BUY ? order.getAmount().multiply(order.getPrice()) : order.getAmount());
+        return balanceManager.tryLockFunds(userId, assetToLockId, fundsToLock);
+    }
 
-        return balanceManager.tryLockFunds(order.getUserId(), assetToLockId, fundsToLock);
+    private void unlockRemaining(Instrument instrument, RestingOrder order) {
+        MatchingContext context = contextFor(instrument.getId());
+        context.outputs().next().setOrderState(
+                EventType.ORDER_CANCELLED,
+                context.sourceSequence(),
+                order.clientOrderId,
+                order.userId,
+                order.side,
+                instrument,
+                order.priceTicks,
+                order.remainingLots,
+                RejectReason.NONE
+        );
+        balanceManager.unlockFunds(
+                order.userId,
+                order.side == Side.BUY ? instrument.getQuoteAssetId() : instrument.getBaseAssetId(),
+                instrument.lockUnits(order.side, order.priceTicks, order.remainingLots)
+        );
     }
 
+    /**
+     * Halts every ring and waits for the workers to finish their batch, so the journals (closed after this bean)
+     * are never closed under a worker that is still writing. A worker stuck past the timeout is interrupted.
+     */
     @PreDestroy
     public void stop() {
-        worker.shutdownNow();
+        for (Worker worker : workers) {
+            worker.ring.halt();
+            worker.executor.shutdown();
+        }
+        for (Worker worker : workers) {
+            try {
+                if (!worker.executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("Worker {} did not stop in {} s, interrupting", worker.index, STOP_TIMEOUT_SECONDS);
+                    worker.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                worker.executor.shutdownNow();
+            }
+        }
+    }
+
+    public EngineStatsView getStats() {
+        List<EngineStatsView.WorkerStats> stats = new ArrayList<>(workers.length);
+        for (Worker worker : workers) {
+            WaitStrategy waitStrategy = worker.ring.getWaitStrategy();
+            stats.add(new EngineStatsView.WorkerStats(
+                    worker.index,
+                    waitStrategy.getClass().getSimpleName(),
+                    worker.ring.backlog(),
+                    waitStrategy.parkCount(),
+                    waitStrategy.yieldCount()
+            ));
+        }
+        return new EngineStatsView(stats, journal.getStats());
     }
 
     //TODO: remove only for testing
     public void getOrderBookSnapshot(String symbol) {
+        Long instrumentId = instrumentCache.getIdBySymbol(symbol);
+        OrderBook orderBook = instrumentId != null ? orderBooks.get(instrumentId) : null;
+        if (orderBook == null) {
+            System.out.println("Order book not found: " + symbol);
+            return;
+        }
         OrderBookView snapshot = orderBook.getSnapshot(symbol, 10);
         System.out.println("Order book snapshot: " + snapshot);
     }
+
+    /**
+     * Single matching thread consuming its own ring. Owns the books of the instruments hashed onto it.
+     */
+    private final class Worker {
+        private final int index;
+        private final EventRingBuffer ring;
+        private final ExecutorService executor;
+        private final MatchingContext context;
+
+        private Worker(int index, EventRingBuffer ring, MatchingContext context) {
+            this.index = index;
+            this.ring = ring;
+            this.context = context;
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "Matching-Engine-Worker-" + index);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        private void start() {
+            executor.submit(() -> {
+                log.info("Matching Engine Worker started.");
+                long next = ring.consumedSequence() + 1;
+                while (!ring.isHalted() && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        ring.waitFor(next);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        log.info("Worker interrupted, shutting down.");
+                        break;
+                    }
+                    // drain everything published so far, journal records of the whole batch go in one write
+                    long last = ring.highestPublished(next, next + batchSize - 1);
+                    if (last < next) {
+                        // woken by halt()
+                        continue;
+                    }
+                    stateLock.readLock().lock();
+                    try {
+                        for (long sequence = next; sequence <= last; sequence++) {
+                            try {
+                                processInternal(ring.get(sequence));
+                            } catch (Exception e) {
+                                log.error("CRITICAL: Error processing order", e);
+                            }
+                        }
+                        try {
+                            journal.flush();
+                            output.publish(context.outputs());
+                        } catch (IOException e) {
+                            log.error("CRITICAL: Journal flush failed", e);
+                            context.outputs().clear();
+                        }
+                    } finally {
+                        stateLock.readLock().unlock();
+                    }
+                    ring.release(last);
+                    next = last + 1;
+                }
+            });
+        }
+    }
 }
@@ -1,133 +1,191 @@
 package org.exchange.modules.engine.domain;
 
-import org.exchange.modules.engine.domain.model.MatchResult;
-import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.Instrument;
 import org.exchange.modules.engine.domain.model.Side;
-import org.exchange.modules.engine.domain.model.TradeMatch;
+import org.exchange.modules.engine.domain.model.TradeBuffer;
 import org.exchange.modules.engine.infrastructure.dto.OrderBookView;
 
-import java.math.BigDecimal;
-import java.util.*;
-
-class OrderBook {
-    // price -> list of orders
-    private final NavigableMap<BigDecimal, LinkedList<Order>> bids = new TreeMap<>(Comparator.reverseOrder()); //list of buy orders
-    private final NavigableMap<BigDecimal, LinkedList<Order>> asks = new TreeMap<>(); //list of sell orders
-
-    public MatchResult process(Order order) {
-        List<TradeMatch> trades = new ArrayList<>();
-        if (order.getSide() == Side.BUY) {
-            matchBuy(order, trades);
-        } else {
-            matchSell(order, trades);
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Order book of a single instrument. Not thread safe, owned by one matching worker.
+ * Prices are instrument ticks and amounts are lots, see Instrument#toPriceTicks.
+ *
+ * Matching is shared, subclasses only decide how price levels are stored and found.
+ * Resting orders are indexed by client order id, so cancel is O(1).
+ */
+abstract class OrderBook {
+    private final Instrument instrument;
+    private final MatchingContext context;
+    private final RestingOrderIndex restingById;
+
+    OrderBook(Instrument instrument, MatchingContext context) {
+        if (instrument == null) {
+            throw new IllegalArgumentException("Instrument cannot be null");
         }
+        this.instrument = instrument;
+        this.context = context;
+        this.restingById = new RestingOrderIndex(1024);
+    }
 
-        return new MatchResult(trades, order);
+    public Instrument getInstrument() {
+        return instrument;
     }
 
-    private void matchBuy(Order buyOrder, List<TradeMatch> trades) {
-        // naive: match with lowest ask price <= buy.price
-        Iterator<Map.Entry<BigDecimal, LinkedList<Order>>> asksIterator = asks.entrySet().iterator();
-        BigDecimal remainingAmountToBuy = buyOrder.getAmount();
-        while (asksIterator.hasNext() && remainingAmountToBuy.compareTo(BigDecimal.ZERO) > 0) {
-            Map.Entry<BigDecimal, LinkedList<Order>> askLevel = asksIterator.next();
-            BigDecimal askLevelPrice = askLevel.getKey();
-            if (buyOrder.getPrice().compareTo(askLevelPrice) < 0) break; // price not acceptable
-            LinkedList<Order> offerList = askLevel.getValue();
-            while (!offerList.isEmpty() && remainingAmountToBuy.compareTo(BigDecimal.ZERO) > 0) {
-                // ask sell order
-                Order ask = offerList.peek();
-                // take sell order base qty what is available
-                BigDecimal tradeQtyToConsume = remainingAmountToBuy.min(ask.getAmount());
-                remainingAmountToBuy = remainingAmountToBuy.subtract(tradeQtyToConsume);
-
-                // trade record
-                trades.add(new TradeMatch(
-                        ask.getUserId(),      // Maker
-                        buyOrder.getUserId(), // Taker
-                        buyOrder.getInstrumentId(),
-                        ask.getPrice(),
+    /**
+     * @return best (highest bid / lowest ask) non-empty level of given side or null
+     */
+    protected abstract PriceLevel bestLevel(Side side);
+
+    /**
+     * @return level of given side and price, created when absent
+     */
+    protected abstract PriceLevel levelFor(Side side, long price);
+
+    /**
+     * Called when level became empty.
+     */
+    protected abstract void removeLevel(Side side, PriceLevel level);
+
+    /**
+     * @return up to depth non-empty levels of given side in price priority
+     */
+    protected abstract List<PriceLevel> topLevels(Side side, int depth);
+
+    /**
+     * Matches incoming order (price in ticks, amount in lots), the remaining amount rests in the book.
+     * Fills are collected in the worker's reusable TradeBuffer and handed to listener, nothing is allocated
+     * unless the order pool is drained or a new price level has to be created.
+     */
+    public void process(
+            String clientOrderId,
+            long takerUserId,
+            Side takerSide,
+            long limitPrice,
+            long amountLots,
+            TradeListener listener
+    ) {
+        TradeBuffer trades = context.trades();
+        trades.clear();
+        Side makerSide = takerSide == Side.BUY ? Side.SELL : Side.BUY;
+        long instrumentId = instrument.getId();
+        long remainingLots = amountLots;
+
+        while (remainingLots > 0) {
+            PriceLevel level = bestLevel(makerSide);
+            if (level == null) break;
+            long levelPrice = level.getPrice();
+            // price not acceptable
+            if (takerSide == Side.BUY ? limitPrice < levelPrice : limitPrice > levelPrice) break;
+
+            while (!level.isEmpty() && remainingLots > 0) {
+                RestingOrder maker = level.peek();
+                // take what is available
+                long tradeQtyToConsume = Math.min(remainingLots, maker.remainingLots);
+                remainingLots -= tradeQtyToConsume;
+                maker.remainingLots -= tradeQtyToConsume;
+                level.filled(tradeQtyToConsume);
+
+                trades.next().set(
+                        maker.userId,
+                        takerUserId,
+                        instrumentId,
+                        levelPrice,
                         tradeQtyToConsume,
-                        Side.BUY              // Taker side
-                ));
-
-                if (tradeQtyToConsume.equals(ask.getAmount())) {
-                    offerList.poll();
-                } else {
-                    ask.changeAmount(ask.getAmount().subtract(tradeQtyToConsume));
+                        takerSide,
+                        limitPrice,
+                        maker.clientOrderId,
+                        maker.remainingLots,
+                        remainingLots
+                );
+
+                if (maker.remainingLots == 0) {
+                    // remove from book
+                    level.remove(maker);
+                    restingById.remove(maker.clientOrderId);
+                    context.orderPool().release(maker);
                 }
             }
-            if (offerList.isEmpty()) asksIterator.remove();
+            if (level.isEmpty()) removeLevel(makerSide, level);
         }
-        if (remainingAmountToBuy.compareTo(BigDecimal.ZERO) > 0) {
-            // place remaining in bids
-            buyOrder.changeAmount(remainingAmountToBuy);
-            bids.computeIfAbsent(buyOrder.getPrice(), p -> new LinkedList<>()).add(buyOrder);
+        if (remainingLots > 0) {
+            // place remaining in book
+            RestingOrder node = context.orderPool().acquire();
+            node.set(clientOrderId, takerUserId, takerSide, limitPrice, remainingLots);
+            levelFor(takerSide, limitPrice).append(node);
+            restingById.put(node.clientOrderId, node);
+        }
+
+        if (!trades.isEmpty()) {
+            listener.onTrades(instrument, trades);
         }
     }
 
-    private void matchSell(Order sellOrder, List<TradeMatch> trades) {
-        Iterator<Map.Entry<BigDecimal, LinkedList<Order>>> bidsIterator = bids.entrySet().iterator();
-        BigDecimal remainingAmountToSell = sellOrder.getAmount();
-        while (bidsIterator.hasNext() && remainingAmountToSell.compareTo(BigDecimal.ZERO) > 0) {
-            Map.Entry<BigDecimal, LinkedList<Order>> bidsLevel = bidsIterator.next();
-            BigDecimal bidPrice = bidsLevel.getKey();
-            if (sellOrder.getPrice().compareTo(bidPrice) > 0) break;
-            LinkedList<Order> orderList = bidsLevel.getValue();
-            while (!orderList.isEmpty() && remainingAmountToSell.compareTo(BigDecimal.ZERO) > 0) {
-                // take buy order base qty what is available
-                Order bid = orderList.peek();
-                BigDecimal tradeQtyToConsume = remainingAmountToSell.min(bid.getAmount());
-                remainingAmountToSell = remainingAmountToSell.subtract(tradeQtyToConsume);
-
-                // produce trade ...
-                trades.add(new TradeMatch(
-                    bid.getUserId(),
-                    sellOrder.getUserId(),
-                    sellOrder.getInstrumentId(),
-                    bid.getPrice(),
-                    tradeQtyToConsume,
-                    Side.SELL
-                ));
-
-                if (tradeQtyToConsume.equals(bid.getAmount())) {
-                    orderList.poll(); // remove from book
-                } else {
-                    bid.changeAmount(bid.getAmount().subtract(tradeQtyToConsume)); // reduce quantity
-                }
+    /**
+     * @return resting order with given client order id or null, valid until the book is modified
+     */
+    RestingOrder findResting(String clientOrderId) {
+        return restingById.get(clientOrderId);
+    }
 
-            }
-            if (orderList.isEmpty()) bidsIterator.remove();
+    /**
+     * Removes resting order from the book and calls listener with it before it goes back to the pool.
+     * @return false when order is not resting
+     */
+    boolean cancel(String clientOrderId, CancelListener listener) {
+        RestingOrder node = restingById.remove(clientOrderId);
+        if (node == null) {
+            return false;
         }
-        if (remainingAmountToSell.compareTo(BigDecimal.ZERO) > 0) {
-            asks.computeIfAbsent(sellOrder.getPrice(), p -> new LinkedList<>()).add(sellOrder);
+        PriceLevel level = node.level;
+        level.remove(node);
+        if (level.isEmpty()) removeLevel(node.side, level);
+        listener.onCancelled(instrument, node);
+        context.orderPool().release(node);
+        return true;
+    }
+
+    /**
+     * Puts order straight into the book without matching, used to restore a snapshot.
+     */
+    void restore(String clientOrderId, long userId, Side side, long priceTicks, long remainingLots) {
+        RestingOrder node = context.orderPool().acquire();
+        node.set(clientOrderId, userId, side, priceTicks, remainingLots);
+        levelFor(side, priceTicks).append(node);
+        restingById.put(node.clientOrderId, node);
+    }
+
+    /**
+     * Visits resting orders of given side, best price first and in time priority within a level.
+     */
+    void forEachResting(Side side, Consumer<RestingOrder> visitor) {
+        for (PriceLevel level : topLevels(side, restingById.size())) {
+            for (RestingOrder node = level.peek(); node != null; node = node.next) {
+                visitor.accept(node);
+            }
         }
     }
 
+    int restingCount() {
+        return restingById.size();
+    }
 
     //TODO: remove only for testing
     public OrderBookView getSnapshot(String symbol, int depth) {
         return new OrderBookView(
                 symbol,
-                collectLevels(asks, depth),
-                collectLevels(bids, depth)
+                collectLevels(Side.SELL, depth),
+                collectLevels(Side.BUY, depth)
         );
     }
 
-    private List<OrderBookView.LevelDto> collectLevels(
-            NavigableMap<BigDecimal, LinkedList<Order>> levels,
-            int depth
-    ) {
-        return levels.entrySet().stream()
-                .limit(depth)
-                .map(entry -> {
-                    BigDecimal price = entry.getKey();
-                    BigDecimal totalVolume = entry.getValue().stream()
-                            .map(Order::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    return new OrderBookView.LevelDto(price, totalVolume);
-                })
+    private List<OrderBookView.LevelDto> collectLevels(Side side, int depth) {
+        return topLevels(side, depth).stream()
+                .map(level -> new OrderBookView.LevelDto(
+                        instrument.fromPriceTicks(level.getPrice()),
+                        instrument.fromAmountLots(level.totalLots())
+                ))
                 .toList();
     }
 }
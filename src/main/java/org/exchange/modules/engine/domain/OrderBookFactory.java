@@ -0,0 +1,45 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses order book implementation per instrument.
+ * Symbols listed in app.engine.order-book.ladder-symbols get a price ladder book, the rest a tree map book.
+ */
+@Component
+public class OrderBookFactory {
+    private static final Logger log = LoggerFactory.getLogger(OrderBookFactory.class);
+
+    private final Set<String> ladderSymbols;
+    private final int ladderSize;
+
+    public OrderBookFactory(
+            @Value("${app.engine.order-book.ladder-symbols:}") List<String> ladderSymbols,
+            @Value("${app.engine.order-book.ladder-size:1024}") int ladderSize
+    ) {
+        this.ladderSymbols = ladderSymbols.stream()
+                .filter(symbol -> !symbol.isBlank())
+                .map(symbol -> symbol.trim().toUpperCase())
+                .collect(Collectors.toUnmodifiableSet());
+        this.ladderSize = ladderSize;
+    }
+
+    OrderBook create(Instrument instrument, MatchingContext context) {
+        if (instrument == null) {
+            throw new IllegalArgumentException("Instrument cannot be null");
+        }
+        if (ladderSymbols.contains(instrument.getSymbol())) {
+            log.info("Using price ladder order book for {} ({} ticks)", instrument.getSymbol(), ladderSize);
+            return new PriceLadderOrderBook(instrument, context, ladderSize);
+        }
+        return new TreeMapOrderBook(instrument, context);
+    }
+}
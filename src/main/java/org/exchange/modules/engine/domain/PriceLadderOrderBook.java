@@ -0,0 +1,275 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Book with price levels stored in arrays indexed by tick offset from a reference price.
+ * Quotes near the touch are an O(1) array lookup, prices outside the ladder go to sorted maps.
+ *
+ * The reference price follows the touch: when the best price of a side leaves the ladder (or the side empties
+ * and the other touch is outside), the ladder is re-based around the touch (the mid when bid and ask fit in it
+ * together) and levels are migrated between the ladder and the sparse maps. Re-centering leaves half a ladder of slack each way, so a drifting market re-bases
+ * once per capacity / 2 ticks of movement, at O(capacity) plus the levels moved.
+ */
+final class PriceLadderOrderBook extends OrderBook {
+    private static final long NO_BID = Long.MIN_VALUE;
+    private static final long NO_ASK = Long.MAX_VALUE;
+    private static final long NO_BASE = -1L;
+
+    private final int capacity;
+    private final PriceLevel[] bidLadder;
+    private final PriceLevel[] askLadder;
+    // far away prices, outside of ladder
+    private final NavigableMap<Long, PriceLevel> sparseBids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> sparseAsks = new TreeMap<>();
+
+    private long base = NO_BASE; // price of ladder index 0
+    private int bidsInLadder;
+    private int asksInLadder;
+    private long bestBid = NO_BID;
+    private long bestAsk = NO_ASK;
+
+    PriceLadderOrderBook(Instrument instrument, MatchingContext context, int capacity) {
+        super(instrument, context);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ladder capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.bidLadder = new PriceLevel[capacity];
+        this.askLadder = new PriceLevel[capacity];
+    }
+
+    @Override
+    protected PriceLevel bestLevel(Side side) {
+        long best = side == Side.BUY ? bestBid : bestAsk;
+        if (best == NO_BID || best == NO_ASK) {
+            return null;
+        }
+        return inLadder(best) ? ladder(side)[(int) (best - base)] : sparse(side).get(best);
+    }
+
+    @Override
+    protected PriceLevel levelFor(Side side, long price) {
+        // new touch first, so that the level is created where the re-based ladder wants it
+        if (side == Side.BUY ? price > bestBid : price < bestAsk) {
+            if (side == Side.BUY) {
+                bestBid = price;
+            } else {
+                bestAsk = price;
+            }
+            followTouch(side);
+        }
+
+        PriceLevel level;
+        if (inLadder(price)) {
+            PriceLevel[] ladder = ladder(side);
+            int index = (int) (price - base);
+            level = ladder[index];
+            if (level == null) {
+                level = new PriceLevel(price);
+                ladder[index] = level;
+            }
+            if (level.isEmpty()) {
+                level.setPrice(price);
+                changeLadderCount(side, 1);
+            }
+        } else {
+            level = sparse(side).computeIfAbsent(price, PriceLevel::new);
+        }
+        return level;
+    }
+
+    @Override
+    protected void removeLevel(Side side, PriceLevel level) {
+        long price = level.getPrice();
+        if (inLadder(price)) {
+            // slot stays allocated, empty level is free
+            changeLadderCount(side, -1);
+        } else {
+            sparse(side).remove(price);
+        }
+
+        // a side left empty hands the ladder to the other touch
+        if (side == Side.BUY && price == bestBid) {
+            bestBid = nextBid(price);
+            followTouch(bestBid == NO_BID ? Side.SELL : Side.BUY);
+        } else if (side == Side.SELL && price == bestAsk) {
+            bestAsk = nextAsk(price);
+            followTouch(bestAsk == NO_ASK ? Side.BUY : Side.SELL);
+        }
+    }
+
+    @Override
+    protected List<PriceLevel> topLevels(Side side, int depth) {
+        List<PriceLevel> levels = new ArrayList<>(depth);
+        NavigableMap<Long, PriceLevel> sparse = sparse(side);
+        if (base == NO_BASE) {
+            sparse.values().stream().limit(depth).forEach(levels::add);
+            return levels;
+        }
+
+        long ladderEnd = base + capacity;
+        // sparse levels better than the ladder, then ladder, then worse than the ladder
+        for (PriceLevel level : sparse.values()) {
+            boolean better = side == Side.BUY ? level.getPrice() >= ladderEnd : level.getPrice() < base;
+            if (better && levels.size() < depth) levels.add(level);
+        }
+        PriceLevel[] ladder = ladder(side);
+        for (int i = 0; i < capacity && levels.size() < depth; i++) {
+            PriceLevel level = ladder[side == Side.BUY ? capacity - 1 - i : i];
+            if (level != null && !level.isEmpty()) levels.add(level);
+        }
+        for (PriceLevel level : sparse.values()) {
+            boolean worse = side == Side.BUY ? level.getPrice() < base : level.getPrice() >= ladderEnd;
+            if (worse && levels.size() < depth) levels.add(level);
+        }
+        return levels;
+    }
+
+    private long nextBid(long removedPrice) {
+        long next = NO_BID;
+        if (bidsInLadder > 0) {
+            // removed price was the best, scan down from it
+            int from = (int) Math.min(removedPrice - base - 1, capacity - 1);
+            for (int i = from; i >= 0; i--) {
+                PriceLevel level = bidLadder[i];
+                if (level != null && !level.isEmpty()) {
+                    next = base + i;
+                    break;
+                }
+            }
+        }
+        if (!sparseBids.isEmpty()) {
+            next = Math.max(next, sparseBids.firstKey());
+        }
+        return next;
+    }
+
+    private long nextAsk(long removedPrice) {
+        long next = NO_ASK;
+        if (asksInLadder > 0) {
+            // removed price was the best, scan up from it
+            int from = (int) Math.max(removedPrice - base + 1, 0);
+            for (int i = from; i < capacity; i++) {
+                PriceLevel level = askLadder[i];
+                if (level != null && !level.isEmpty()) {
+                    next = base + i;
+                    break;
+                }
+            }
+        }
+        if (!sparseAsks.isEmpty()) {
+            next = Math.min(next, sparseAsks.firstKey());
+        }
+        return next;
+    }
+
+    /**
+     * Re-bases the ladder when the best price of the side that changed fell out of it. When the spread is wider
+     * than the ladder and the other side's touch is still in it, the ladder stays where it is.
+     */
+    private void followTouch(Side changed) {
+        long best = changed == Side.BUY ? bestBid : bestAsk;
+        if (best == NO_BID || best == NO_ASK || inLadder(best)) {
+            return;
+        }
+        long other = changed == Side.BUY ? bestAsk : bestBid;
+        long center;
+        if (other != NO_BID && other != NO_ASK && Math.abs(other - best) < capacity) {
+            center = best + (other - best) / 2;
+        } else if (other != NO_BID && other != NO_ASK && inLadder(other)) {
+            return;
+        } else {
+            center = best;
+        }
+        rebase(Math.max(0L, center - capacity / 2));
+    }
+
+    /**
+     * Moves the ladder to newBase: levels falling out of it go to the sparse maps, sparse levels falling into it
+     * are moved in. Empty slots outside the new range are dropped.
+     */
+    private void rebase(long newBase) {
+        if (base == NO_BASE) {
+            base = newBase;
+        } else {
+            long shift = newBase - base;
+            evict(Side.BUY, newBase);
+            evict(Side.SELL, newBase);
+            shift(bidLadder, shift);
+            shift(askLadder, shift);
+            base = newBase;
+        }
+        moveIntoLadder(Side.BUY);
+        moveIntoLadder(Side.SELL);
+    }
+
+    private void evict(Side side, long newBase) {
+        PriceLevel[] ladder = ladder(side);
+        for (PriceLevel level : ladder) {
+            if (level != null && !level.isEmpty()) {
+                long price = level.getPrice();
+                if (price < newBase || price - newBase >= capacity) {
+                    sparse(side).put(price, level);
+                    changeLadderCount(side, -1);
+                }
+            }
+        }
+    }
+
+    private void shift(PriceLevel[] ladder, long shift) {
+        if (Math.abs(shift) >= capacity) {
+            Arrays.fill(ladder, null);
+        } else if (shift > 0) {
+            int by = (int) shift;
+            System.arraycopy(ladder, by, ladder, 0, capacity - by);
+            Arrays.fill(ladder, capacity - by, capacity, null);
+        } else if (shift < 0) {
+            int by = (int) -shift;
+            System.arraycopy(ladder, 0, ladder, by, capacity - by);
+            Arrays.fill(ladder, 0, by, null);
+        }
+    }
+
+    private void moveIntoLadder(Side side) {
+        long last = base + capacity - 1;
+        NavigableMap<Long, PriceLevel> range = side == Side.BUY
+                ? sparseBids.subMap(last, true, base, true)
+                : sparseAsks.subMap(base, true, last, true);
+        PriceLevel[] ladder = ladder(side);
+        for (PriceLevel level : range.values()) {
+            ladder[(int) (level.getPrice() - base)] = level;
+            changeLadderCount(side, 1);
+        }
+        range.clear();
+    }
+
+    // package-private for tests
+    boolean inLadder(long price) {
+        return base != NO_BASE && price >= base && price - base < capacity;
+    }
+
+    private void changeLadderCount(Side side, int delta) {
+        if (side == Side.BUY) {
+            bidsInLadder += delta;
+        } else {
+            asksInLadder += delta;
+        }
+    }
+
+    private PriceLevel[] ladder(Side side) {
+        return side == Side.BUY ? bidLadder : askLadder;
+    }
+
+    private NavigableMap<Long, PriceLevel> sparse(Side side) {
+        return side == Side.BUY ? sparseBids : sparseAsks;
+    }
+}
@@ -0,0 +1,81 @@
+package org.exchange.modules.engine.domain;
+
+/**
+ * Resting orders at one price, in time priority.
+ * Intrusive doubly-linked queue, orders are appended at tail and unlinked from anywhere in O(1).
+ */
+final class PriceLevel {
+    private long price;
+    private RestingOrder head;
+    private RestingOrder tail;
+    private int size;
+    private long totalLots;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    long getPrice() {
+        return price;
+    }
+
+    // ladder slots are reused for different prices when the ladder slides
+    void setPrice(long price) {
+        this.price = price;
+    }
+
+    RestingOrder peek() {
+        return head;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long totalLots() {
+        return totalLots;
+    }
+
+    void append(RestingOrder node) {
+        node.level = this;
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        size++;
+        totalLots += node.remainingLots;
+    }
+
+    void remove(RestingOrder node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        size--;
+        totalLots -= node.remainingLots;
+        node.level = null;
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * Keeps level volume in sync when a resting order is partially filled.
+     */
+    void filled(long lots) {
+        totalLots -= lots;
+    }
+}
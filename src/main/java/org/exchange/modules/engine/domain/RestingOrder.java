@@ -0,0 +1,37 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Side;
+
+/**
+ * Order resting in the book, node of the intrusive order queue of a PriceLevel.
+ * Knows its level and neighbours, so it can be unlinked in O(1).
+ *
+ * Taken from RestingOrderPool and filled from the incoming event, so incoming events are never retained.
+ */
+final class RestingOrder {
+    String clientOrderId;
+    long userId;
+    Side side;
+    long priceTicks;
+    long remainingLots;
+
+    PriceLevel level;
+    RestingOrder prev;
+    RestingOrder next;
+
+    void set(String clientOrderId, long userId, Side side, long priceTicks, long remainingLots) {
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.side = side;
+        this.priceTicks = priceTicks;
+        this.remainingLots = remainingLots;
+    }
+
+    void clear() {
+        clientOrderId = null;
+        side = null;
+        level = null;
+        prev = null;
+        next = null;
+    }
+}
@@ -0,0 +1,100 @@
+package org.exchange.modules.engine.domain;
+
+/**
+ * Client order id -> resting order, open addressing with linear probing.
+ * Unlike HashMap it does not allocate an entry per put. Not thread safe.
+ */
+final class RestingOrderIndex {
+    private static final float MAX_LOAD = 0.5f;
+
+    private String[] keys;
+    private RestingOrder[] values;
+    private int mask;
+    private int size;
+
+    RestingOrderIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        this.keys = new String[capacity];
+        this.values = new RestingOrder[capacity];
+        this.mask = capacity - 1;
+    }
+
+    RestingOrder get(String key) {
+        for (int i = slot(key); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @throws IllegalStateException when key is already present, a resting order is never replaced
+     */
+    void put(String key, RestingOrder value) {
+        int i = slot(key);
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) {
+                throw new IllegalStateException("Order already resting: " + key);
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * MAX_LOAD) {
+            resize();
+        }
+    }
+
+    RestingOrder remove(String key) {
+        for (int i = slot(key); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) {
+                RestingOrder removed = values[i];
+                deleteAt(i);
+                size--;
+                return removed;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // backward shift deletion, keeps probe chains intact without tombstones
+    private void deleteAt(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == null) break;
+            int home = slot(keys[i]);
+            // move entry back if its home slot is not between hole (exclusive) and i (inclusive)
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        RestingOrder[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new RestingOrder[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
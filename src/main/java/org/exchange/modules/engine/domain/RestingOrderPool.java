@@ -0,0 +1,41 @@
+package org.exchange.modules.engine.domain;
+
+/**
+ * Preallocated free list of RestingOrder nodes. Owned by one matching worker, not thread safe.
+ * When drained it allocates, released nodes above capacity are left to GC.
+ */
+final class RestingOrderPool {
+    private final RestingOrder[] free;
+    private int size;
+
+    RestingOrderPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be positive");
+        }
+        this.free = new RestingOrder[capacity];
+        for (int i = 0; i < capacity; i++) {
+            free[i] = new RestingOrder();
+        }
+        this.size = capacity;
+    }
+
+    RestingOrder acquire() {
+        if (size == 0) {
+            return new RestingOrder();
+        }
+        RestingOrder node = free[--size];
+        free[size] = null;
+        return node;
+    }
+
+    void release(RestingOrder node) {
+        node.clear();
+        if (size < free.length) {
+            free[size++] = node;
+        }
+    }
+
+    int available() {
+        return size;
+    }
+}
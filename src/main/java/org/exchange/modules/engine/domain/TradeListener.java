@@ -0,0 +1,12 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.exchange.modules.engine.domain.model.TradeBuffer;
+
+/**
+ * Receives fills of one match. The buffer is reused, it is only valid during the call.
+ */
+@FunctionalInterface
+interface TradeListener {
+    void onTrades(Instrument instrument, TradeBuffer trades);
+}
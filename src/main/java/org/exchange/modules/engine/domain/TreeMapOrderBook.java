@@ -0,0 +1,78 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Default book, price levels kept in sorted maps. Works for any price distribution.
+ * The best level of each side is cached, matching and orders resting at the touch do not touch the maps.
+ * Other prices go through the maps with a boxed key: creating, looking up off the touch and removing a level
+ * box the price (Long caches only small values), removing the best level also walks the tree to the next one.
+ */
+final class TreeMapOrderBook extends OrderBook {
+    // price ticks -> level
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder()); //buy orders
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>(); //sell orders
+    // first level of bids / asks, null when the side is empty
+    private PriceLevel bestBid;
+    private PriceLevel bestAsk;
+
+    TreeMapOrderBook(Instrument instrument, MatchingContext context) {
+        super(instrument, context);
+    }
+
+    @Override
+    protected PriceLevel bestLevel(Side side) {
+        return side == Side.BUY ? bestBid : bestAsk;
+    }
+
+    @Override
+    protected PriceLevel levelFor(Side side, long price) {
+        PriceLevel best = bestLevel(side);
+        if (best != null && best.getPrice() == price) {
+            return best;
+        }
+        NavigableMap<Long, PriceLevel> levels = levels(side);
+        PriceLevel level = levels.get(price);
+        if (level == null) {
+            level = new PriceLevel(price);
+            levels.put(price, level);
+            if (best == null || (side == Side.BUY ? price > best.getPrice() : price < best.getPrice())) {
+                setBest(side, level);
+            }
+        }
+        return level;
+    }
+
+    @Override
+    protected void removeLevel(Side side, PriceLevel level) {
+        NavigableMap<Long, PriceLevel> levels = levels(side);
+        levels.remove(level.getPrice());
+        if (level == bestLevel(side)) {
+            // firstKey() hands out the stored key, firstEntry() would allocate an entry
+            setBest(side, levels.isEmpty() ? null : levels.get(levels.firstKey()));
+        }
+    }
+
+    @Override
+    protected List<PriceLevel> topLevels(Side side, int depth) {
+        return levels(side).values().stream().limit(depth).toList();
+    }
+
+    private void setBest(Side side, PriceLevel level) {
+        if (side == Side.BUY) {
+            bestBid = level;
+        } else {
+            bestAsk = level;
+        }
+    }
+
+    private NavigableMap<Long, PriceLevel> levels(Side side) {
+        return side == Side.BUY ? bids : asks;
+    }
+}
@@ -0,0 +1,89 @@
+package org.exchange.modules.engine.domain.entity;
+
+import jakarta.persistence.*;
+import org.exchange.modules.engine.domain.model.AssetBalance;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Last flushed balance of a user in one asset, upserted by BalanceDatabaseFlusher (see JdbcBalanceLoader).
+ */
+@Entity
+@Table(name = "balances")
+@IdClass(BalanceEntity.Key.class)
+public class BalanceEntity {
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Id
+    @Column(name = "asset_id", nullable = false)
+    private Long assetId;
+    @Column(name = "available", nullable = false, precision = 20, scale = 8)
+    private BigDecimal available;
+    @Column(name = "locked", nullable = false, precision = 20, scale = 8)
+    private BigDecimal locked;
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected BalanceEntity() {
+        // JPA requires default constructor
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getAssetId() {
+        return assetId;
+    }
+
+    public BigDecimal getAvailable() {
+        return available;
+    }
+
+    public BigDecimal getLocked() {
+        return locked;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public AssetBalance toDomain() {
+        return new AssetBalance(
+                userId,
+                assetId,
+                available,
+                locked,
+                updatedAt
+        );
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private Long assetId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long assetId) {
+            this.userId = userId;
+            this.assetId = assetId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(userId, key.userId) && Objects.equals(assetId, key.assetId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, assetId);
+        }
+    }
+}
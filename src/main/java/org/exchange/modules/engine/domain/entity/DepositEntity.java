@@ -6,11 +6,20 @@ import org.exchange.modules.engine.domain.model.Deposit;
 import java.math.BigDecimal;
 import java.time.Instant;
 
+/**
+ * Ids come from a pooled sequence shared with the bulk loader of the syncer (see JdbcBulkLoader).
+ */
 @Entity
-@Table(name = "deposits")
+@Table(name = "deposits", indexes = {
+        @Index(name = "idx_deposits_journal_sequence", columnList = "journal_sequence", unique = true)
+})
 public class DepositEntity {
+    public static final String ID_SEQUENCE = "deposits_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     @Column(name = "user_id", nullable = false)
     private Long userId;
@@ -20,6 +29,9 @@ public class DepositEntity {
     private BigDecimal amount;
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
+    // input journal sequence of the deposit, null when not written by the syncer
+    @Column(name = "journal_sequence")
+    private Long journalSequence;
 
     public DepositEntity() {
     }
@@ -54,4 +66,8 @@ public class DepositEntity {
     public Instant getCreatedAt() {
         return createdAt;
     }
+
+    public Long getJournalSequence() {
+        return journalSequence;
+    }
 }
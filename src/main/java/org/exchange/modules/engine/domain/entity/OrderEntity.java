@@ -10,17 +10,22 @@ import java.time.Instant;
 /**
  * JPA entity for persisting Order to database.
  * Separated from domain model to keep domain clean.
+ * Ids come from a pooled sequence shared with the bulk loader of the syncer (see JdbcBulkLoader).
  */
 @Entity
 @Table(name = "orders", indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_instrument_id", columnList = "instrument_id"),
-    @Index(name = "idx_created_at", columnList = "created_at")
+    @Index(name = "idx_created_at", columnList = "created_at"),
+    @Index(name = "idx_orders_journal_sequence", columnList = "journal_sequence", unique = true)
 })
 public class OrderEntity {
+    public static final String ID_SEQUENCE = "orders_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "user_id", nullable = false)
@@ -42,6 +47,10 @@ public class OrderEntity {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    // input journal sequence of the order, null when not written by the syncer
+    @Column(name = "journal_sequence")
+    private Long journalSequence;
+
     protected OrderEntity() {
         // JPA requires default constructor
     }
@@ -88,4 +97,8 @@ public class OrderEntity {
     public Instant getCreatedAt() {
         return createdAt;
     }
+
+    public Long getJournalSequence() {
+        return journalSequence;
+    }
 }
@@ -0,0 +1,130 @@
+package org.exchange.modules.engine.domain.entity;
+
+import jakarta.persistence.*;
+import org.exchange.modules.engine.domain.model.OrderStatus;
+import org.exchange.modules.engine.domain.model.RejectReason;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Current state of an order, one row per user and client order id, upserted by OutputDatabaseSyncer.
+ * last_sequence is the output journal sequence of the state written, older states never overwrite newer ones.
+ */
+@Entity
+@Table(name = "order_status", indexes = {
+        @Index(name = "idx_order_status_instrument_status", columnList = "instrument_id, status")
+})
+@IdClass(OrderStatusEntity.Key.class)
+public class OrderStatusEntity {
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Id
+    @Column(name = "client_order_id", nullable = false, length = 36)
+    private String clientOrderId;
+    @Column(name = "instrument_id", nullable = false)
+    private Long instrumentId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "side", nullable = false, length = 4)
+    private Side side;
+    @Column(name = "price", nullable = false, precision = 20, scale = 8)
+    private BigDecimal price;
+    // amount of the order, null when its acceptance was never synced
+    @Column(name = "amount", precision = 20, scale = 8)
+    private BigDecimal amount;
+    @Column(name = "remaining", nullable = false, precision = 20, scale = 8)
+    private BigDecimal remaining;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private OrderStatus status;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reject_reason", nullable = false, length = 24)
+    private RejectReason rejectReason;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+
+    protected OrderStatusEntity() {
+        // JPA requires default constructor
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
+
+    public Long getInstrumentId() {
+        return instrumentId;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getRemaining() {
+        return remaining;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public RejectReason getRejectReason() {
+        return rejectReason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private String clientOrderId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, String clientOrderId) {
+            this.userId = userId;
+            this.clientOrderId = clientOrderId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(userId, key.userId) && Objects.equals(clientOrderId, key.clientOrderId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, clientOrderId);
+        }
+    }
+}
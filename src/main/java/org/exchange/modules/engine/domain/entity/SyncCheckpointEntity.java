@@ -0,0 +1,37 @@
+package org.exchange.modules.engine.domain.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Journal position up to which one partition of a syncer has written its records,
+ * updated in the same transaction as the records (see SyncCheckpoints).
+ */
+@Entity
+@Table(name = "sync_checkpoints")
+public class SyncCheckpointEntity {
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+    @Column(name = "journal_position", nullable = false)
+    private Long position;
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected SyncCheckpointEntity() {
+        // JPA requires default constructor
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,104 @@
+package org.exchange.modules.engine.domain.entity;
+
+import jakarta.persistence.*;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Trade read from the output journal by OutputDatabaseSyncer, written in bulk (see JdbcOutputLoader).
+ * The taker is the incoming order, the maker the resting one.
+ */
+@Entity
+@Table(name = "trades", indexes = {
+        @Index(name = "idx_trades_instrument_created_at", columnList = "instrument_id, created_at"),
+        @Index(name = "idx_trades_taker_user_id", columnList = "taker_user_id"),
+        @Index(name = "idx_trades_maker_user_id", columnList = "maker_user_id"),
+        @Index(name = "idx_trades_output_sequence", columnList = "output_sequence", unique = true)
+})
+public class TradeEntity {
+    public static final String ID_SEQUENCE = "trades_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+    @Column(name = "instrument_id", nullable = false)
+    private Long instrumentId;
+    @Column(name = "price", nullable = false, precision = 20, scale = 8)
+    private BigDecimal price;
+    @Column(name = "quantity", nullable = false, precision = 20, scale = 8)
+    private BigDecimal quantity;
+    @Column(name = "taker_user_id", nullable = false)
+    private Long takerUserId;
+    @Column(name = "taker_client_order_id", nullable = false, length = 36)
+    private String takerClientOrderId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "taker_side", nullable = false, length = 4)
+    private Side takerSide;
+    @Column(name = "maker_user_id", nullable = false)
+    private Long makerUserId;
+    @Column(name = "maker_client_order_id", nullable = false, length = 36)
+    private String makerClientOrderId;
+    // input journal sequence of the taker order
+    @Column(name = "source_sequence", nullable = false)
+    private Long sourceSequence;
+    @Column(name = "output_sequence", nullable = false)
+    private Long outputSequence;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected TradeEntity() {
+        // JPA requires default constructor
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getInstrumentId() {
+        return instrumentId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public Long getTakerUserId() {
+        return takerUserId;
+    }
+
+    public String getTakerClientOrderId() {
+        return takerClientOrderId;
+    }
+
+    public Side getTakerSide() {
+        return takerSide;
+    }
+
+    public Long getMakerUserId() {
+        return makerUserId;
+    }
+
+    public String getMakerClientOrderId() {
+        return makerClientOrderId;
+    }
+
+    public Long getSourceSequence() {
+        return sourceSequence;
+    }
+
+    public Long getOutputSequence() {
+        return outputSequence;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,15 @@
+package org.exchange.modules.engine.domain.journal;
+
+/**
+ * When journal writes are forced to disk. Without fsync a power loss can lose records the engine already acted on.
+ */
+public enum DurabilityMode {
+    // page cache only, the OS decides
+    NONE,
+    // fsync once at least fsync-every records were written since the last one
+    EVERY_N,
+    // background thread fsyncs every fsync-interval-micros
+    INTERVAL,
+    // fsync after every batch write, a worker does not take the next batch before its records are durable
+    BATCH
+}
@@ -0,0 +1,45 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Named consumer following the input journal, see JournalTailer.
+ * Positions are store offsets for a single journal store and global sequences for a partitioned journal,
+ * either way the position is where the next record is read and lag() is in the same unit.
+ */
+public interface EventTailer extends AutoCloseable {
+
+    String getName();
+
+    boolean hasCommittedCursor();
+
+    int poll(Consumer<EventRecordView> consumer, int maxRecords) throws IOException;
+
+    boolean await(long timeout, TimeUnit unit);
+
+    void wake();
+
+    void commit() throws IOException;
+
+    /**
+     * Persists a position already read but not necessarily the read position as cursor.
+     */
+    void commit(long position) throws IOException;
+
+    void rewind();
+
+    void seek(long position);
+
+    long position();
+
+    long committedCursor();
+
+    long lag();
+
+    @Override
+    void close();
+}
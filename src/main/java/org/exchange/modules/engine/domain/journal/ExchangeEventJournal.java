@@ -1,114 +1,345 @@
 package org.exchange.modules.engine.domain.journal;
 
+import jakarta.annotation.PostConstruct;
 import org.exchange.modules.engine.domain.BinaryEventSerializer;
+import org.exchange.modules.engine.domain.EventRecordView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+/**
+ * Append only event log, group committed, stored in memory mapped segments (see JournalStore).
+ *
+ * append() is a memory store into the current segment, flush() commits everything appended so far,
+ * only then readers (syncer) see it. Matching workers flush once per drained batch.
+ *
+ * When written data is forced to disk is decided by DurabilityMode, fsync latency and group size are in getStats().
+ * Consumers follow the journal through named tailers (see JournalTailer), every flush wakes them up.
+ *
+ * With journal-partitioning on, records go to one store per instrument plus an account store for deposits
+ * (see JournalPartitions). They keep one global sequence: full replay and tailers merge partitions by it,
+ * a single instrument can be replayed from its partition alone. Positions are then sequences, not offsets.
+ */
 @Component
 public class ExchangeEventJournal implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ExchangeEventJournal.class);
 
-    private final Path journalPath;
-    private final ByteBuffer writeBuffer = ByteBuffer.allocate(4096);
-    private FileChannel channel;
+    // exactly one of store and partitions is set
+    private final JournalStore store;
+    private final JournalPartitions partitions;
+    private final JournalReplayReader replayReader;
+    private final int replayDecoderThreads;
+    private final int replayQueueBatches;
+    private final Path legacyPath;
+    private final DurabilityMode durability;
+    private final int fsyncEvery;
+    private final long fsyncIntervalMicros;
+    private final Object syncLock = new Object();
+    private ScheduledExecutorService intervalSyncer;
 
-    public ExchangeEventJournal(@Value("${app.engine.journal-path:data/journal.log}") String pathStr) {
-        this.journalPath = Paths.get(pathStr);
+    // guarded by syncLock
+    // last sequence forced to disk, starts at what earlier runs committed
+    private long syncedUpTo;
+    // records forced since start, recordsSynced / fsyncs is the average group size
+    private long recordsSynced;
+    private long fsyncs;
+    private long fsyncNanosTotal;
+    private long fsyncNanosMax;
+    private long maxRecordsPerFsync;
+
+    public ExchangeEventJournal(
+            @Value("${app.engine.journal-dir:data/journal}") String directory,
+            @Value("${app.engine.journal-segment-size:67108864}") int segmentSize,
+            @Value("${app.engine.journal-path:data/journal.log}") String legacyPath,
+            @Value("${app.engine.journal-durability:NONE}") DurabilityMode durability,
+            @Value("${app.engine.journal-fsync-every:1000}") int fsyncEvery,
+            @Value("${app.engine.journal-fsync-interval-micros:1000}") long fsyncIntervalMicros,
+            @Value("${app.engine.journal-index-interval:4096}") int indexInterval,
+            @Value("${app.engine.replay.decoder-threads:2}") int replayDecoderThreads,
+            @Value("${app.engine.replay.queue-batches:8}") int replayQueueBatches,
+            @Value("${app.engine.journal-partitioning:false}") boolean partitioned
+    ) {
+        if (durability == DurabilityMode.EVERY_N && fsyncEvery <= 0) {
+            throw new IllegalArgumentException("Fsync every must be positive");
+        }
+        if (durability == DurabilityMode.INTERVAL && fsyncIntervalMicros <= 0) {
+            throw new IllegalArgumentException("Fsync interval must be positive");
+        }
+        boolean retainUnforced = durability != DurabilityMode.NONE;
+        if (partitioned) {
+            this.store = null;
+            this.partitions = new JournalPartitions(Paths.get(directory), segmentSize, retainUnforced, indexInterval);
+            this.replayReader = null;
+        } else {
+            this.store = new JournalStore(Paths.get(directory), "journal", segmentSize, retainUnforced, indexInterval);
+            this.partitions = null;
+            this.replayReader = new JournalReplayReader(store, replayDecoderThreads, replayQueueBatches);
+        }
+        this.replayDecoderThreads = replayDecoderThreads;
+        this.replayQueueBatches = replayQueueBatches;
+        this.legacyPath = Paths.get(legacyPath);
+        this.durability = durability;
+        this.fsyncEvery = fsyncEvery;
+        this.fsyncIntervalMicros = fsyncIntervalMicros;
     }
 
-    // dodać interface do obiektów które mają być zapisywane w journalu
-    public void append(JournalModelEvent event) throws IOException {
-        writeBuffer.clear();
-        BinaryEventSerializer.serialize(event, writeBuffer);
-        writeBuffer.flip();
-        while (writeBuffer.hasRemaining()) {
-            channel.write(writeBuffer);
+    /**
+     * Opens segments, a single file journal of older versions is imported once, at the same offsets.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (partitions != null) {
+            partitions.open();
+            syncedUpTo = partitions.committedSequence();
+            return;
+        }
+        store.open();
+        if (Files.exists(legacyPath) && store.committedOffset() == 0L) {
+            log.info("Importing journal {} into {}", legacyPath, store.directory());
+            store.importFile(legacyPath);
+            Files.move(legacyPath, legacyPath.resolveSibling(legacyPath.getFileName() + ".imported"));
         }
+        syncedUpTo = store.committedRecords();
     }
 
-    // Metoda replay przyjmuje Consumera - co zrobić z odczytanym orderem
-    public void replay(Consumer<JournalModelEvent> journalProcessor) throws IOException {
-        if (!Files.exists(journalPath)) return;
+    /**
+     * Stages record, it is not visible to readers (nor fsynced) until the next flush().
+     * @return sequence of the record
+     */
+    public long append(JournalModelEvent event) throws IOException {
+        return partitions != null ? partitions.append(event) : store.append(event);
+    }
 
-        try (FileChannel readChannel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
-            ByteBuffer headerBuf = ByteBuffer.allocate(4);
-            while (true) {
-                headerBuf.clear();
-                if (readChannel.read(headerBuf) < 4) break;
-                headerBuf.flip();
+    /**
+     * Commits all appended records.
+     * Fsyncs afterwards in BATCH mode and in EVERY_N mode once enough records were written.
+     */
+    public void flush() throws IOException {
+        long written = partitions != null ? partitions.commit() : store.commit();
 
-                int len = headerBuf.getInt();
-                ByteBuffer payload = ByteBuffer.allocate(len);
-                while (payload.hasRemaining()) readChannel.read(payload);
-                payload.flip();
+        if (durability == DurabilityMode.BATCH) {
+            fsync();
+        } else if (durability == DurabilityMode.EVERY_N && written - syncedUpTo() >= fsyncEvery) {
+            fsync();
+        }
+    }
 
-                JournalModelEvent journalModel = BinaryEventSerializer.deserialize(payload);
-                journalProcessor.accept(journalModel);
+    /**
+     * Forces everything committed so far to disk, no-op when nothing new was committed.
+     */
+    public void fsync() throws IOException {
+        synchronized (syncLock) {
+            long written = lastSequence();
+            long covered = written - syncedUpTo;
+            if (covered == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            if (partitions != null) {
+                partitions.force();
+            } else {
+                store.force();
             }
+            long took = System.nanoTime() - start;
+
+            syncedUpTo = written;
+            recordsSynced += covered;
+            fsyncs++;
+            fsyncNanosTotal += took;
+            fsyncNanosMax = Math.max(fsyncNanosMax, took);
+            maxRecordsPerFsync = Math.max(maxRecordsPerFsync, covered);
+        }
+    }
+
+    public JournalStats getStats() {
+        synchronized (syncLock) {
+            return new JournalStats(
+                    durability,
+                    lastSequence(),
+                    fsyncs,
+                    recordsSynced,
+                    maxRecordsPerFsync,
+                    fsyncs == 0 ? 0L : fsyncNanosTotal / fsyncs / 1_000L,
+                    fsyncNanosMax / 1_000L
+            );
+        }
+    }
+
+    private long syncedUpTo() {
+        synchronized (syncLock) {
+            return syncedUpTo;
+        }
+    }
+
+    /**
+     * Applies every committed event from offset on, decoding is pipelined on replay decoder threads (see JournalReplayReader).
+     * The view passed to the processor is reused, it is only valid during the call.
+     * @return offset after the last event
+     */
+    public long replay(long fromOffset, Consumer<EventRecordView> journalProcessor) throws IOException {
+        return replayReader().replay(fromOffset, journalProcessor);
+    }
+
+    /**
+     * Applies every committed event from given sequence on, in sequence order. Partitioned journals are merged
+     * on the calling thread, a single store is replayed as replay(offsetOfSequence(fromSequence), ...).
+     * @return sequence of the last event applied, fromSequence - 1 when there was none
+     */
+    public long replayFromSequence(long fromSequence, Consumer<EventRecordView> journalProcessor) throws IOException {
+        long[] last = { fromSequence - 1 };
+        Consumer<EventRecordView> tracking = record -> {
+            last[0] = record.sequence();
+            journalProcessor.accept(record);
+        };
+        if (partitions == null) {
+            replayReader.replay(store.offsetOfSequence(fromSequence), tracking);
+            return last[0];
+        }
+        MergedReader reader = partitions.reader(fromSequence);
+        while (reader.read(tracking, Integer.MAX_VALUE) > 0) {
+            // read stops at the committed sequence, loop only for records committed meanwhile
+        }
+        return last[0];
+    }
+
+    /**
+     * Applies orders and cancels of one instrument from given sequence on, reading only its partition.
+     * Deposits and other instruments are skipped, so balances are not rebuilt this way.
+     * @return offset in the partition after the last event
+     */
+    public long replayInstrument(long instrumentId, long fromSequence, Consumer<EventRecordView> journalProcessor)
+            throws IOException {
+        if (partitions == null) {
+            throw new IllegalStateException("Instrument replay needs journal partitioning");
+        }
+        JournalStore partition = partitions.instrument(instrumentId);
+        if (partition == null) {
+            return 0L;
         }
+        return new JournalReplayReader(partition, replayDecoderThreads, replayQueueBatches)
+                .replay(partition.offsetOfSequence(fromSequence), journalProcessor);
+    }
+
+    public boolean isPartitioned() {
+        return partitions != null;
     }
 
     /**
-     * Reads orders from journal starting at given byte offset.
-     * Used by async DB syncer to read only new entries.
+     * Reads committed events from journal starting at given offset.
+     * For one-off reads, consumers following the journal use tailer().
      *
-     * @param fromOffset Byte position to start reading from
+     * @param fromOffset Logical offset to start reading from
      * @param journalObjectProcessor Consumer to process each order
      * @return New offset position after reading (for next iteration)
      */
     public long readFrom(long fromOffset, Consumer<JournalModelEvent> journalObjectProcessor) throws IOException {
-        if (!Files.exists(journalPath)) return fromOffset;
-
-        try (FileChannel readChannel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
-            readChannel.position(fromOffset);
+        return getStore().read(fromOffset, payload -> journalObjectProcessor.accept(BinaryEventSerializer.deserialize(payload)));
+    }
 
-            ByteBuffer headerBuf = ByteBuffer.allocate(4);
-            while (true) {
-                long positionBeforeRead = readChannel.position();
-                headerBuf.clear();
-                int bytesRead = readChannel.read(headerBuf);
+    /**
+     * Offset to read from to get events starting with given sequence (1 is the first event ever journaled).
+     */
+    public long offsetOfSequence(long sequence) throws IOException {
+        return getStore().offsetOfSequence(sequence);
+    }
 
-                // Koniec pliku lub niepełny header
-                if (bytesRead < 4) {
-                    return positionBeforeRead; // Zwróć pozycję przed niepełnym rekordem
-                }
+    /**
+     * Offset to read from to get events journaled at or after given time.
+     */
+    public long offsetAtTime(Instant time) throws IOException {
+        return getStore().offsetAtTime(time.getEpochSecond() * 1_000_000_000L + time.getNano());
+    }
 
-                headerBuf.flip();
-                int len = headerBuf.getInt();
+    /**
+     * @return sequence of the last committed event
+     */
+    public long lastSequence() {
+        return partitions != null ? partitions.committedSequence() : store.committedRecords();
+    }
 
-                // Sprawdź czy cały payload jest dostępny
-                if (readChannel.size() - readChannel.position() < len) {
-                    return positionBeforeRead; // Niepełny payload, poczekaj na kolejną iterację
-                }
+    /**
+     * @return offset just after the last committed record, sum over partitions when partitioned
+     */
+    public long size() {
+        return partitions != null ? partitions.size() : store.committedOffset();
+    }
 
-                ByteBuffer payload = ByteBuffer.allocate(len);
-                while (payload.hasRemaining()) readChannel.read(payload);
-                payload.flip();
+    /**
+     * Opens the tailer of given consumer, positioned at its committed cursor (at the start of the journal for a new one).
+     * Only one tailer per name can be open.
+     */
+    public EventTailer tailer(String name) throws IOException {
+        return partitions != null ? partitions.tailer(name) : store.tailer(name);
+    }
 
-                JournalModelEvent journalModel = BinaryEventSerializer.deserialize(payload);
-                journalObjectProcessor.accept(journalModel);
-            }
+    /**
+     * Store of an unpartitioned journal.
+     */
+    public JournalStore getStore() {
+        if (store == null) {
+            throw new IllegalStateException("Journal is partitioned, see stores()");
         }
+        return store;
     }
 
-    public long size() throws IOException {
-        if (!Files.exists(journalPath)) return 0;
-        return Files.size(journalPath);
+    /**
+     * @return the store, or every partition
+     */
+    public List<JournalStore> stores() {
+        return partitions != null ? partitions.stores() : List.of(store);
     }
 
-    public void init() throws IOException {
-        Files.createDirectories(journalPath.getParent());
-        this.channel = FileChannel.open(journalPath,
-                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    private JournalReplayReader replayReader() {
+        if (replayReader == null) {
+            throw new IllegalStateException("Journal is partitioned, replay by sequence");
+        }
+        return replayReader;
+    }
+
+    /**
+     * Called by the engine after replay, before the first append.
+     */
+    public void init() {
+        if (durability == DurabilityMode.INTERVAL) {
+            intervalSyncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-fsync");
+                t.setDaemon(true);
+                return t;
+            });
+            intervalSyncer.scheduleWithFixedDelay(() -> {
+                try {
+                    fsync();
+                } catch (IOException e) {
+                    log.error("CRITICAL: Journal fsync failed", e);
+                }
+            }, fsyncIntervalMicros, fsyncIntervalMicros, TimeUnit.MICROSECONDS);
+        }
+        log.info("Journal ready, partitioned {}, durability {}", partitions != null, durability);
     }
 
     @Override
     public void close() throws IOException {
-        if (channel != null) channel.close();
+        if (intervalSyncer != null) {
+            intervalSyncer.shutdownNow();
+        }
+        flush();
+        if (durability != DurabilityMode.NONE) {
+            fsync();
+        }
+        if (partitions != null) {
+            partitions.close();
+        } else {
+            store.close();
+        }
     }
 }
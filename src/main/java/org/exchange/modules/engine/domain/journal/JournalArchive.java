@@ -0,0 +1,215 @@
+package org.exchange.modules.engine.domain.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed copy of a sealed journal segment.
+ *
+ * The records are cut into blocks of whole records (up to blockSize bytes), every block is deflated on its own.
+ * A table at the end of the file holds position in the segment, length, CRC and file offset of every block,
+ * so a reader inflates only the block holding the offset it seeks to, one block at a time.
+ *
+ * Layout: [blocks][table: count * (int start, int length, int crc, long fileOffset, int compressedLength)]
+ * [int count][long tableOffset][int MAGIC]
+ */
+final class JournalArchive {
+    static final String SUFFIX = ".z";
+    private static final int MAGIC = 0x4A415243;
+    private static final int ENTRY_SIZE = 4 + 4 + 4 + 8 + 4;
+    private static final int FOOTER_SIZE = 4 + 8 + 4;
+
+    private final Path path;
+    private final int[] starts;
+    private final int[] lengths;
+    private final int[] crcs;
+    private final long[] fileOffsets;
+    private final int[] compressedLengths;
+
+    private JournalArchive(Path path, int count) {
+        this.path = path;
+        this.starts = new int[count];
+        this.lengths = new int[count];
+        this.crcs = new int[count];
+        this.fileOffsets = new long[count];
+        this.compressedLengths = new int[count];
+    }
+
+    /**
+     * Compresses records in [0, dataEnd) of segment to target. Written to a temp file, forced and moved,
+     * so target is either complete or missing.
+     */
+    static void write(ByteBuffer segment, int dataEnd, int blockSize, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Deflater deflater = new Deflater();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer table = ByteBuffer.allocate(ENTRY_SIZE * 64 + FOOTER_SIZE);
+            byte[] input = new byte[blockSize];
+            byte[] output = new byte[blockSize + blockSize / 1000 + 64];
+            long fileOffset = 0L;
+            int count = 0;
+            int start = 0;
+            do {
+                int end = blockEnd(segment, start, dataEnd, blockSize);
+                int length = end - start;
+                segment.get(start, input, 0, length);
+                CRC32 crc = new CRC32();
+                crc.update(input, 0, length);
+
+                deflater.reset();
+                deflater.setInput(input, 0, length);
+                deflater.finish();
+                int compressed = 0;
+                while (!deflater.finished()) {
+                    ByteBuffer chunk = ByteBuffer.wrap(output, 0, deflater.deflate(output));
+                    compressed += chunk.remaining();
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                }
+                if (table.remaining() < ENTRY_SIZE + FOOTER_SIZE) {
+                    table = ByteBuffer.allocate(table.capacity() * 2).put(table.flip());
+                }
+                table.putInt(start).putInt(length).putInt((int) crc.getValue()).putLong(fileOffset).putInt(compressed);
+                fileOffset += compressed;
+                count++;
+                start = end;
+            } while (start < dataEnd);
+
+            table.putInt(count).putLong(fileOffset).putInt(MAGIC).flip();
+            while (table.hasRemaining()) {
+                channel.write(table);
+            }
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // end of the last whole record that fits in a block starting at start
+    private static int blockEnd(ByteBuffer segment, int start, int dataEnd, int blockSize) {
+        int position = start;
+        while (position + 4 <= dataEnd) {
+            int next = position + 4 + segment.getInt(position);
+            if (next - start > blockSize) {
+                break;
+            }
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Reads the block table, blocks are inflated on demand.
+     */
+    static JournalArchive open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_SIZE) {
+                throw new IOException("Journal archive too short: " + path);
+            }
+            ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            int count = footer.getInt();
+            long tableOffset = footer.getLong();
+            if (footer.getInt() != MAGIC || count <= 0 || tableOffset + (long) count * ENTRY_SIZE + FOOTER_SIZE != size) {
+                throw new IOException("Invalid journal archive: " + path);
+            }
+            ByteBuffer table = read(channel, tableOffset, count * ENTRY_SIZE);
+            JournalArchive archive = new JournalArchive(path, count);
+            for (int i = 0; i < count; i++) {
+                archive.starts[i] = table.getInt();
+                archive.lengths[i] = table.getInt();
+                archive.crcs[i] = table.getInt();
+                archive.fileOffsets[i] = table.getLong();
+                archive.compressedLengths[i] = table.getInt();
+            }
+            return archive;
+        }
+    }
+
+    int blockCount() {
+        return starts.length;
+    }
+
+    int blockStart(int block) {
+        return starts[block];
+    }
+
+    int blockLength(int block) {
+        return lengths[block];
+    }
+
+    /**
+     * @return last block starting at or before given position in the segment
+     */
+    int blockFor(int position) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Inflates one block into a new heap buffer, position 0 of it is blockStart(block) in the segment.
+     */
+    ByteBuffer readBlock(int block) throws IOException {
+        ByteBuffer compressed;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            compressed = read(channel, fileOffsets[block], compressedLengths[block]);
+        }
+        byte[] data = new byte[lengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < data.length && !inflater.finished()) {
+                int n = inflater.inflate(data, inflated, data.length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != data.length) {
+                throw new IOException("Truncated block " + block + " of journal archive " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + block + " of journal archive " + path, e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != crcs[block]) {
+            throw new IOException("Checksum mismatch in block " + block + " of journal archive " + path);
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal archive");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,109 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves cold segments of the input and output journals to the archive directory, block compressed.
+ * The newest hot-segments segments of each journal stay mapped and uncompressed, appends never touch the archive.
+ * Archived ranges are still replayed and tailed, they are inflated block by block on read.
+ *
+ * Runs on its own thread, not on the shared Spring scheduler: deflating a segment takes long enough
+ * to hold up snapshots and balance flushes scheduled there.
+ */
+@Component
+public class JournalArchiver {
+    private static final Logger log = LoggerFactory.getLogger(JournalArchiver.class);
+
+    private final ExchangeEventJournal journal;
+    private final OutputJournal output;
+    private final boolean enabled;
+    private final Path directory;
+    private final int hotSegments;
+    private final int blockSize;
+    private final long intervalMs;
+    private ScheduledExecutorService executor;
+
+    public JournalArchiver(
+            ExchangeEventJournal journal,
+            OutputJournal output,
+            @Value("${app.engine.archive.enabled:false}") boolean enabled,
+            @Value("${app.engine.archive.dir:data/archive}") String directory,
+            @Value("${app.engine.archive.hot-segments:2}") int hotSegments,
+            @Value("${app.engine.archive.block-size:1048576}") int blockSize,
+            @Value("${app.engine.archive.interval-ms:600000}") long intervalMs
+    ) {
+        if (hotSegments < 1) {
+            throw new IllegalArgumentException("Hot segments must be positive");
+        }
+        this.journal = journal;
+        this.output = output;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.hotSegments = hotSegments;
+        this.blockSize = blockSize;
+        this.intervalMs = intervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::archive, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Archiver didn't terminate gracefully, forcing shutdown");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void archive() {
+        for (JournalStore store : journal.stores()) {
+            archive(store);
+        }
+        archive(output.getStore());
+    }
+
+    private void archive(JournalStore store) {
+        try {
+            // partitions share segment names, every store gets its own directory
+            Path target = directory.resolve(store.directory().getFileName());
+            int archived = store.archive(target, hotSegments, blockSize);
+            if (archived > 0) {
+                log.info("Archived {} segments of {}", archived, store.directory());
+            }
+        } catch (IOException | RuntimeException e) {
+            // an escaping exception would cancel the schedule
+            log.error("Journal archiving failed for {}", store.directory(), e);
+        }
+    }
+}
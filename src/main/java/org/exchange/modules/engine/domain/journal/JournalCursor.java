@@ -0,0 +1,76 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+
+import java.io.IOException;
+
+/**
+ * Pull reader over committed records of one store, used to merge partitions record by record.
+ * peek() wraps the next record without consuming it, advance() moves past it.
+ */
+final class JournalCursor {
+    private final JournalStore store;
+    private final EventRecordView view = new EventRecordView();
+    private JournalStore.Chunk chunk;
+    // offset of the next record
+    private long position;
+    private int recordLength;
+    private boolean peeked;
+    private long sequence;
+
+    JournalCursor(JournalStore store, long position) {
+        this.store = store;
+        this.position = position;
+    }
+
+    /**
+     * @return false when there is no committed record at the position yet
+     */
+    boolean peek() throws IOException {
+        if (peeked) {
+            return true;
+        }
+        long limit = store.committedOffset();
+        while (position < limit) {
+            if (chunk == null || position < chunk.base() || position >= chunk.end()) {
+                chunk = store.chunkAt(position);
+                if (chunk == null) {
+                    return false;
+                }
+                position = Math.max(position, chunk.base());
+            }
+            int at = (int) (position - chunk.base());
+            int end = (int) Math.min(chunk.length(), limit - chunk.base());
+            int length = at + 4 <= end ? chunk.buffer().getInt(at) : 0;
+            if (length != 0) {
+                view.wrap(chunk.buffer(), at + 4);
+                sequence = view.sequence();
+                recordLength = 4 + length;
+                peeked = true;
+                return true;
+            }
+            if (limit < chunk.end()) {
+                return false;
+            }
+            // rest of this chunk is unused, continue in the next one
+            position = chunk.end();
+        }
+        return false;
+    }
+
+    /**
+     * View of the peeked record, valid until advance().
+     */
+    EventRecordView view() {
+        return view;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    void advance() {
+        position += recordLength;
+        peeked = false;
+    }
+}
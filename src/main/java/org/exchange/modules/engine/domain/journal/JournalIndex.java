@@ -0,0 +1,152 @@
+package org.exchange.modules.engine.domain.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse index of a journal store: (sequence, timestamp, offset) of the first record of every segment
+ * and of every interval-th record after the last entry. Sequences and timestamps only grow, so both are binary searched.
+ * Sequences may have gaps (partitions of one journal share a sequence), entries are spaced by record count.
+ *
+ * The file is an append only list of 24 byte entries and is not forced, entries lost in a crash
+ * are rebuilt from the journal on open (see JournalStore).
+ */
+final class JournalIndex implements AutoCloseable {
+    private static final int ENTRY_SIZE = 24;
+
+    private final Path path;
+    private final int interval;
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+    private FileChannel channel;
+
+    // guarded by this
+    private long[] sequences = new long[1024];
+    private long[] timestamps = new long[1024];
+    private long[] offsets = new long[1024];
+    private int size;
+    // records since the last entry, writer thread only
+    private int sinceLast;
+
+    JournalIndex(Path path, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Index interval must be positive");
+        }
+        this.path = path;
+        this.interval = interval;
+    }
+
+    /**
+     * Loads entries pointing before endOffset, the rest (and a torn last entry) is cut off.
+     */
+    synchronized void open(long firstOffset, long endOffset) throws IOException {
+        size = 0;
+        sinceLast = 0;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = 0L;
+        if (Files.size(path) >= ENTRY_SIZE) {
+            ByteBuffer content = ByteBuffer.allocate((int) (Files.size(path) / ENTRY_SIZE * ENTRY_SIZE));
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) break;
+            }
+            content.flip();
+            while (content.remaining() >= ENTRY_SIZE) {
+                long sequence = content.getLong();
+                long timestamp = content.getLong();
+                long offset = content.getLong();
+                if (offset >= endOffset || (size > 0 && sequence <= sequences[size - 1])) {
+                    break;
+                }
+                valid += ENTRY_SIZE;
+                if (offset >= firstOffset) {
+                    add(sequence, timestamp, offset);
+                }
+            }
+        }
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    /**
+     * Called for every appended record in order.
+     */
+    boolean isDue(boolean segmentStart) {
+        if (segmentStart || ++sinceLast >= interval) {
+            sinceLast = 0;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void append(long sequence, long timestamp, long offset) throws IOException {
+        if (size > 0 && sequence <= sequences[size - 1]) {
+            return;
+        }
+        add(sequence, timestamp, offset);
+        entry.clear();
+        entry.putLong(sequence).putLong(timestamp).putLong(offset).flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+    }
+
+    /**
+     * @return index of the last entry with sequence <= given one, -1 when there is none
+     */
+    synchronized int floorBySequence(long sequence) {
+        int found = Arrays.binarySearch(sequences, 0, size, sequence);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /**
+     * @return index of the last entry with timestamp < given one, -1 when there is none
+     */
+    synchronized int lowerByTimestamp(long timestamp) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    synchronized long sequence(int entry) {
+        return sequences[entry];
+    }
+
+    synchronized long offset(int entry) {
+        return offsets[entry];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void add(long sequence, long timestamp, long offset) {
+        if (size == sequences.length) {
+            sequences = Arrays.copyOf(sequences, size * 2);
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        sequences[size] = sequence;
+        timestamps[size] = timestamp;
+        offsets[size] = offset;
+        size++;
+    }
+}
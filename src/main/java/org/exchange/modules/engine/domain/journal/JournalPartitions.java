@@ -0,0 +1,282 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.OrderCancel;
+import org.exchange.modules.engine.domain.ring.EngineEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Input journal split into one store per instrument (orders and cancels) and an account store (deposits),
+ * each in its own directory under the journal directory, with its own segments, index and replay stream.
+ *
+ * Records of all partitions share one global sequence, so the partitions merge back into the exact order
+ * in which the engine journaled them (see MergedReader). The committed sequence is only moved once every record
+ * up to it is committed in its partition, merged readers never see a gap.
+ *
+ * Partitions are forced one after another, a crash can keep a record of one partition and lose an earlier one
+ * of another. open() therefore looks for the first missing sequence and cuts every partition back to just before it.
+ * The search starts after the last sequence forced in all partitions (kept in a small marker file, written
+ * after every force) or after the lowest partition end, whichever is higher: nothing below can be missing.
+ */
+final class JournalPartitions implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(JournalPartitions.class);
+    private static final String ACCOUNT = "account";
+    private static final String INSTRUMENT_PREFIX = "instrument-";
+    private static final String FORCED = "forced.sequence";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean retainUnforced;
+    private final int indexInterval;
+    private final Map<Long, JournalStore> instruments = new ConcurrentSkipListMap<>();
+    private final Map<String, PartitionedTailer> tailers = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private final ByteBuffer forcedBuffer = ByteBuffer.allocate(Long.BYTES);
+    private JournalStore account;
+    private FileChannel forcedMarker;
+
+    // guarded by appendLock
+    private long sequence;
+    // written under appendLock, only grows
+    private volatile long committedSequence;
+
+    JournalPartitions(Path directory, int segmentSize, boolean retainUnforced, int indexInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.retainUnforced = retainUnforced;
+        this.indexInterval = indexInterval;
+    }
+
+    /**
+     * Opens every partition found in the directory, the global sequence continues after the highest one.
+     */
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        if (Files.exists(directory.resolve("journal.manifest"))) {
+            throw new IllegalStateException("Journal directory " + directory + " holds an unpartitioned journal, "
+                    + "partitioning needs a fresh journal directory");
+        }
+        account = openStore(directory.resolve(ACCOUNT));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String fileName = path.getFileName().toString();
+                if (Files.isDirectory(path) && fileName.startsWith(INSTRUMENT_PREFIX)) {
+                    long instrumentId = Long.parseLong(fileName.substring(INSTRUMENT_PREFIX.length()));
+                    instruments.put(instrumentId, openStore(path));
+                }
+            }
+        }
+        forcedMarker = FileChannel.open(directory.resolve(FORCED),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long last = 0L;
+        long lowest = Long.MAX_VALUE;
+        for (JournalStore store : stores()) {
+            last = Math.max(last, store.committedRecords());
+            lowest = Math.min(lowest, store.committedRecords());
+        }
+        long end = lastWithoutGap(Math.max(lowest, Math.min(readForced(), last)) + 1, last);
+        if (end < last) {
+            long dropped = 0L;
+            for (JournalStore store : stores()) {
+                dropped += store.truncateAfter(end);
+            }
+            log.warn("Partitioned journal {} misses sequence {}, dropped {} records after it", directory, end + 1, dropped);
+            last = end;
+        }
+        sequence = last;
+        committedSequence = last;
+        log.info("Partitioned journal {} opened, {} instrument partitions, last sequence {}", directory, instruments.size(), last);
+    }
+
+    // last sequence from which on every sequence up to it is in some partition
+    private long lastWithoutGap(long from, long last) throws IOException {
+        if (from > last) {
+            return last;
+        }
+        committedSequence = last;
+        MergedReader reader = reader(from);
+        long[] expected = { from };
+        boolean[] gap = { false };
+        while (!gap[0] && reader.read(record -> {
+            if (record.sequence() == expected[0]) {
+                expected[0]++;
+            } else {
+                gap[0] = true;
+            }
+        }, 4096) > 0) {
+            // records past a gap in the same read are ignored
+        }
+        return expected[0] - 1;
+    }
+
+    /**
+     * Appends to the partition of the event under the next global sequence.
+     */
+    long append(JournalModelEvent event) throws IOException {
+        synchronized (appendLock) {
+            long next = sequence + 1;
+            partitionOf(event).append(event, next);
+            sequence = next;
+            return next;
+        }
+    }
+
+    /**
+     * Commits every partition and moves the committed sequence past all records appended before the call.
+     * @return committed sequence
+     */
+    long commit() {
+        long upTo;
+        synchronized (appendLock) {
+            // no append in progress, everything up to upTo is in its partition
+            upTo = sequence;
+        }
+        for (JournalStore store : stores()) {
+            store.commit();
+        }
+        long committed;
+        synchronized (appendLock) {
+            // a concurrent commit that read a higher upTo may have published already, never move back
+            committed = Math.max(committedSequence, upTo);
+            committedSequence = committed;
+        }
+        for (PartitionedTailer tailer : tailers.values()) {
+            tailer.wake();
+        }
+        return committed;
+    }
+
+    long committedSequence() {
+        return committedSequence;
+    }
+
+    /**
+     * Forces partitions with committed data that is not on disk yet, then records the sequence all of them hold.
+     */
+    void force() throws IOException {
+        long upTo = committedSequence;
+        for (JournalStore store : stores()) {
+            store.force();
+        }
+        writeForced(upTo);
+    }
+
+    // the marker is not forced, a stale value only makes open() search from further back
+    private synchronized void writeForced(long upTo) throws IOException {
+        forcedBuffer.clear();
+        forcedBuffer.putLong(upTo).flip();
+        while (forcedBuffer.hasRemaining()) {
+            forcedMarker.write(forcedBuffer, forcedBuffer.position());
+        }
+    }
+
+    private long readForced() throws IOException {
+        if (forcedMarker.size() < Long.BYTES) {
+            return 0L;
+        }
+        ByteBuffer content = ByteBuffer.allocate(Long.BYTES);
+        while (content.hasRemaining()) {
+            if (forcedMarker.read(content, content.position()) < 0) break;
+        }
+        return content.flip().getLong();
+    }
+
+    /**
+     * @return account partition first, then instruments by id
+     */
+    List<JournalStore> stores() {
+        List<JournalStore> stores = new ArrayList<>(instruments.size() + 1);
+        stores.add(account);
+        stores.addAll(instruments.values());
+        return stores;
+    }
+
+    /**
+     * @return partition of given instrument, null when nothing was journaled for it
+     */
+    JournalStore instrument(long instrumentId) {
+        return instruments.get(instrumentId);
+    }
+
+    /**
+     * @return sum of committed offsets of all partitions, grows with every commit
+     */
+    long size() {
+        long size = 0L;
+        for (JournalStore store : stores()) {
+            size += store.committedOffset();
+        }
+        return size;
+    }
+
+    MergedReader reader(long fromSequence) {
+        return new MergedReader(this, fromSequence);
+    }
+
+    PartitionedTailer tailer(String name) throws IOException {
+        if (name == null || !name.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid tailer name: " + name);
+        }
+        PartitionedTailer tailer = new PartitionedTailer(name, this, directory, () -> tailers.remove(name));
+        if (tailers.putIfAbsent(name, tailer) != null) {
+            throw new IllegalStateException("Tailer " + name + " of " + directory + " is already open");
+        }
+        return tailer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (JournalStore store : stores()) {
+            store.close();
+        }
+        if (forcedMarker != null) {
+            forcedMarker.close();
+        }
+    }
+
+    private JournalStore partitionOf(JournalModelEvent event) throws IOException {
+        long instrumentId;
+        if (event instanceof EngineEvent slot) {
+            if (slot.getType() == EventType.BALANCE_DEPOSIT) {
+                return account;
+            }
+            instrumentId = slot.getInstrumentId();
+        } else if (event instanceof Order order) {
+            instrumentId = order.getInstrumentId();
+        } else if (event instanceof OrderCancel cancel) {
+            instrumentId = cancel.getInstrumentId();
+        } else if (event instanceof Deposit) {
+            return account;
+        } else {
+            throw new IllegalArgumentException("Unsupported event: " + event.getClass().getSimpleName());
+        }
+        JournalStore store = instruments.get(instrumentId);
+        if (store == null) {
+            store = openStore(directory.resolve(INSTRUMENT_PREFIX + instrumentId));
+            instruments.put(instrumentId, store);
+        }
+        return store;
+    }
+
+    private JournalStore openStore(Path path) throws IOException {
+        JournalStore store = new JournalStore(path, "journal", segmentSize, retainUnforced, indexInterval);
+        store.open();
+        return store;
+    }
+}
@@ -0,0 +1,201 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Replays a journal range with decoding pipelined off the applying thread.
+ *
+ * Every segment of the range is a chunk, archived segments give one chunk per compressed block.
+ * Decoder threads map whole segments (or inflate blocks), walk the record framing (faulting pages in)
+ * and hand batches of record positions over a bounded queue per chunk.
+ * The calling thread applies them strictly in journal order through a single EventRecordView, so replay allocates no events.
+ * Chunks are decoded in parallel, at most twice the decoder threads chunks are submitted ahead of the one being applied,
+ * which bounds the inflated blocks held in memory.
+ */
+public final class JournalReplayReader {
+    private static final int BATCH_SIZE = 1024;
+    private static final Batch END = new Batch(0);
+
+    private final JournalStore store;
+    private final int decoderThreads;
+    private final int queueBatches;
+
+    public JournalReplayReader(JournalStore store, int decoderThreads, int queueBatches) {
+        if (decoderThreads <= 0 || queueBatches <= 0) {
+            throw new IllegalArgumentException("Decoder threads and queue batches must be positive");
+        }
+        this.store = store;
+        this.decoderThreads = decoderThreads;
+        this.queueBatches = queueBatches;
+    }
+
+    /**
+     * Applies every committed record from offset on, in order, on the calling thread.
+     * @return offset after the last applied record
+     */
+    public long replay(long fromOffset, Consumer<EventRecordView> applier) throws IOException {
+        long limit = store.committedOffset();
+        long offset = Math.max(fromOffset, store.firstOffset());
+        List<Chunk> chunks = new ArrayList<>();
+        for (JournalStore.SegmentFile segment : store.segments()) {
+            if (segment.end() <= offset || segment.base() >= limit) {
+                continue;
+            }
+            if (!segment.archived()) {
+                chunks.add(new Chunk(segment, -1, segment.base(), segment.length(), segment.end(), offset, limit, queueBatches));
+                continue;
+            }
+            JournalArchive archive = store.archiveOf(segment);
+            for (int block = 0; block < archive.blockCount(); block++) {
+                long base = segment.base() + archive.blockStart(block);
+                long end = JournalStore.blockEnd(segment, archive, block);
+                if (end > offset && base < limit) {
+                    chunks.add(new Chunk(segment, block, base, archive.blockLength(block), end, offset, limit, queueBatches));
+                }
+            }
+        }
+        if (chunks.isEmpty()) {
+            return Math.min(offset, limit);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService decoders = Executors.newFixedThreadPool(Math.min(decoderThreads, chunks.size()), r -> {
+            Thread t = new Thread(r, "journal-replay-decoder-" + threadIndex.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // submitted in journal order, so the chunk being applied always has a thread
+            int window = decoderThreads * 2;
+            int submitted = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                while (submitted < chunks.size() && submitted <= i + window) {
+                    Chunk next = chunks.get(submitted++);
+                    decoders.execute(() -> decode(next));
+                }
+                Chunk chunk = chunks.get(i);
+                apply(chunk, applier);
+                offset = chunk.base + chunk.endPosition;
+                if (offset < limit) {
+                    offset = chunk.end;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Journal replay interrupted", e);
+        } finally {
+            decoders.shutdownNow();
+        }
+        return Math.min(offset, limit);
+    }
+
+    private void decode(Chunk chunk) {
+        try {
+            ByteBuffer buffer = chunk.block < 0
+                    ? store.mapForRead(chunk.segment)
+                    : store.archiveOf(chunk.segment).readBlock(chunk.block);
+            chunk.buffer = buffer;
+            chunk.endPosition = JournalStore.scan(buffer, chunk.from, chunk.to, chunk::add);
+            chunk.flushPending();
+        } catch (Throwable e) {
+            chunk.error = e;
+        } finally {
+            chunk.put(END);
+        }
+    }
+
+    private static void apply(Chunk chunk, Consumer<EventRecordView> applier) throws IOException, InterruptedException {
+        EventRecordView view = new EventRecordView();
+        while (true) {
+            Batch batch = chunk.queue.take();
+            if (batch == END) {
+                break;
+            }
+            for (int i = 0; i < batch.size; i++) {
+                applier.accept(view.wrap(chunk.buffer, batch.positions[i]));
+            }
+        }
+        if (chunk.error != null) {
+            throw new IOException("Failed to decode journal segment " + chunk.segment.fileName()
+                    + (chunk.block >= 0 ? " block " + chunk.block : ""), chunk.error);
+        }
+    }
+
+    private static final class Chunk {
+        private final JournalStore.SegmentFile segment;
+        // block of an archived segment, -1 for a mapped segment
+        private final int block;
+        // offset of buffer position 0, and where the next chunk starts
+        private final long base;
+        private final long end;
+        private final int from;
+        private final int to;
+        private final BlockingQueue<Batch> queue;
+        // published to the applying thread by the queue
+        private ByteBuffer buffer;
+        private volatile int endPosition;
+        private volatile Throwable error;
+        // decoder thread only
+        private Batch pending = new Batch(BATCH_SIZE);
+
+        private Chunk(JournalStore.SegmentFile segment, int block, long base, int length, long end, long offset, long limit, int capacity) {
+            this.segment = segment;
+            this.block = block;
+            this.base = base;
+            this.end = end;
+            this.to = (int) (Math.min(limit, base + length) - base);
+            this.from = (int) Math.min(Math.max(offset, base) - base, to);
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void add(ByteBuffer record) {
+            // header byte is checked here, so a damaged record fails on the decoder thread
+            byte header = record.get(record.position());
+            if ((header & 0x0F) == 0) {
+                throw new IllegalStateException("Invalid journal record at " + (base + record.position() - 4));
+            }
+            pending.positions[pending.size++] = record.position();
+            if (pending.size == BATCH_SIZE) {
+                flushPending();
+            }
+        }
+
+        private void flushPending() {
+            if (pending.size > 0) {
+                put(pending);
+                pending = new Batch(BATCH_SIZE);
+            }
+        }
+
+        private void put(Batch batch) {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                // replay was abandoned
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Journal replay decoder interrupted", e);
+            }
+        }
+    }
+
+    // payload positions of records in the chunk's buffer
+    private static final class Batch {
+        private final int[] positions;
+        private int size;
+
+        private Batch(int capacity) {
+            this.positions = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.exchange.modules.engine.domain.journal;
+
+/**
+ * Fsync counters of the journal since start.
+ *
+ * @param fsyncs          number of fsync calls
+ * @param recordsSynced   records made durable by them, recordsSynced / fsyncs is the average group size
+ * @param maxRecordsPerFsync largest group
+ */
+public record JournalStats(
+        DurabilityMode durability,
+        long recordsWritten,
+        long fsyncs,
+        long recordsSynced,
+        long maxRecordsPerFsync,
+        long avgFsyncMicros,
+        long maxFsyncMicros
+) {
+}
@@ -0,0 +1,726 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.BinaryEventSerializer;
+import org.exchange.modules.engine.domain.EventRecordView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Directory of fixed size, pre-allocated segment files written through MappedByteBuffer, so an append is a memory store.
+ * The manifest lists segments in order, files missing from it are leftovers and are removed on open.
+ *
+ * Offsets are logical: segment base offset + position in the segment, the next segment starts where the previous one ends.
+ * A record is [int length][payload], length 0 marks the end of data in a segment (files are zero filled).
+ * Every record is stamped with its sequence (1 for the first record of the store, or a sequence given by the caller
+ * when several stores share one sequence) and epoch nanoseconds, both are indexed sparsely (see JournalIndex),
+ * so a reader can seek to a sequence or a point in time.
+ *
+ * One writer appends and commits, readers on any thread see committed records only.
+ * The next segment is created and its pages touched on a background thread, rolling over is a swap.
+ *
+ * Sealed segments can be moved to an archive directory as block compressed files (see JournalArchive).
+ * They keep their offsets and stay readable, readers walk the store in chunks: a whole mapped segment
+ * or one inflated block of an archived one.
+ */
+public final class JournalStore implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(JournalStore.class);
+    private static final String MANIFEST = "manifest";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX = "index";
+    private static final int PAGE_SIZE = 4096;
+
+    private final Path directory;
+    private final String name;
+    private final int segmentSize;
+    // sealed segments are kept mapped until the next force, otherwise they are left to the OS
+    private final boolean retainUnforced;
+    private final List<SegmentFile> segments = new CopyOnWriteArrayList<>();
+    private final ExecutorService allocator;
+    private final JournalIndex index;
+    private final Map<String, JournalTailer> tailers = new ConcurrentHashMap<>();
+    // block tables of archived segments by file name
+    private final Map<String, JournalArchive> archives = new ConcurrentHashMap<>();
+    // wall clock at nanoTime() == 0, timestamps are taken from nanoTime() so they do not jump within a run
+    private final long clockOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+    // writer state, guarded by this
+    private SegmentFile currentFile;
+    private MappedByteBuffer current;
+    private int forcedPosition;
+    private final List<MappedByteBuffer> unforced = new ArrayList<>();
+    private CompletableFuture<MappedByteBuffer> next;
+    private long records;
+    private long lastTimestamp;
+
+    private volatile long committedOffset;
+    private volatile long committedRecords;
+
+    /**
+     * @param name file name prefix of segments, stores sharing a directory need distinct names
+     * @param indexInterval every indexInterval-th record is indexed, besides the first record of every segment
+     */
+    public JournalStore(Path directory, String name, int segmentSize, boolean retainUnforced, int indexInterval) {
+        if (segmentSize < BinaryEventSerializer.MAX_RECORD_SIZE * 2) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.retainUnforced = retainUnforced;
+        this.index = new JournalIndex(directory.resolve(name + "." + INDEX), indexInterval);
+        this.allocator = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name + "-segment-allocator");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Loads the manifest and finds the end of written data in the last segment, creates the first segment when empty.
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        segments.clear();
+        segments.addAll(readManifest());
+        deleteUnlisted();
+
+        if (segments.isEmpty()) {
+            SegmentFile first = new SegmentFile(0L, segmentSize, fileName(0L));
+            current = allocate(first);
+            currentFile = first;
+            segments.add(first);
+            writeManifest();
+        } else {
+            currentFile = segments.get(segments.size() - 1);
+            current = map(currentFile, FileChannel.MapMode.READ_WRITE);
+            int end = recoverEnd(current);
+            current.position(end);
+        }
+        recoverIndex();
+        forcedPosition = current.position();
+        committedOffset = currentFile.base() + current.position();
+        committedRecords = records;
+        prepareNext();
+        log.info("Journal store {} opened, {} segments, end offset {}", name, segments.size(), committedOffset);
+    }
+
+    /**
+     * Serializes record at the end of the current segment, rolls over when it may not fit. Not visible to readers until commit().
+     * @return sequence of the record
+     */
+    public synchronized long append(JournalModelEvent event) throws IOException {
+        return append(event, records + 1);
+    }
+
+    /**
+     * Same as append(event) with the sequence assigned by the caller, it must be higher than the last one.
+     */
+    public synchronized long append(JournalModelEvent event, long sequence) throws IOException {
+        if (sequence <= records) {
+            throw new IllegalArgumentException("Sequence " + sequence + " not after " + records);
+        }
+        if (current.remaining() < BinaryEventSerializer.MAX_RECORD_SIZE) {
+            roll();
+        }
+        int position = current.position();
+        long timestamp = Math.max(clockOffsetNanos + System.nanoTime(), lastTimestamp);
+        BinaryEventSerializer.serialize(event, current, sequence, timestamp);
+        records = sequence;
+        lastTimestamp = timestamp;
+        if (index.isDue(position == 0)) {
+            index.append(sequence, timestamp, currentFile.base() + position);
+        }
+        return sequence;
+    }
+
+    /**
+     * Makes everything appended so far visible to readers and wakes up tailers.
+     * @return sequence of the last committed record
+     */
+    public synchronized long commit() {
+        committedOffset = currentFile.base() + current.position();
+        committedRecords = records;
+        for (JournalTailer tailer : tailers.values()) {
+            tailer.wake();
+        }
+        return records;
+    }
+
+    /**
+     * Opens the tailer of given consumer, positioned at its committed cursor (at the start of the store for a new one).
+     * Only one tailer per name can be open.
+     */
+    public JournalTailer tailer(String consumer) throws IOException {
+        if (consumer == null || !consumer.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid tailer name: " + consumer);
+        }
+        JournalTailer tailer = new JournalTailer(consumer, this, () -> tailers.remove(consumer));
+        if (tailers.putIfAbsent(consumer, tailer) != null) {
+            throw new IllegalStateException("Tailer " + consumer + " of " + name + " is already open");
+        }
+        return tailer;
+    }
+
+    /**
+     * Forces committed data to disk.
+     */
+    public void force() throws IOException {
+        List<MappedByteBuffer> sealed;
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        synchronized (this) {
+            sealed = unforced.isEmpty() ? List.of() : new ArrayList<>(unforced);
+            unforced.clear();
+            buffer = current;
+            from = forcedPosition;
+            to = (int) (committedOffset - currentFile.base());
+            forcedPosition = Math.max(from, to);
+        }
+        for (MappedByteBuffer segment : sealed) {
+            segment.force();
+        }
+        if (to > from) {
+            buffer.force(from, to - from);
+        }
+    }
+
+    public long committedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * @return sequence of the last committed record, the record count unless sequences are assigned by the caller
+     */
+    public long committedRecords() {
+        return committedRecords;
+    }
+
+    /**
+     * @return offset of the oldest record still in the store
+     */
+    public long firstOffset() {
+        return segments.get(0).base();
+    }
+
+    public List<SegmentFile> segments() {
+        return List.copyOf(segments);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * @return offset of the first committed record with given or higher sequence, of the oldest record when it is older,
+     * committed end offset when it is not written yet
+     */
+    public long offsetOfSequence(long sequence) throws IOException {
+        int entry = index.floorBySequence(sequence);
+        if (entry < 0) {
+            return firstOffset();
+        }
+        // records written before stamping have no sequence, they are counted from the indexed one
+        long[] next = { index.sequence(entry) };
+        EventRecordView view = new EventRecordView();
+        return find(index.offset(entry), committedOffset, (buffer, position, offset, segmentStart) -> {
+            long stamped = view.wrap(buffer, position).sequence();
+            long current = stamped > 0 ? stamped : next[0];
+            next[0] = current + 1;
+            return current >= sequence;
+        });
+    }
+
+    /**
+     * @return offset of the first committed record stamped at or after given epoch nanoseconds,
+     * committed end offset when there is none
+     */
+    public long offsetAtTime(long epochNanos) throws IOException {
+        int entry = index.lowerByTimestamp(epochNanos);
+        long from = entry < 0 ? firstOffset() : index.offset(entry);
+        EventRecordView view = new EventRecordView();
+        return find(from, committedOffset,
+                (buffer, position, offset, segmentStart) -> view.wrap(buffer, position).timestampNanos() >= epochNanos);
+    }
+
+    /**
+     * Reads committed records starting at offset, payload buffers are only valid inside the consumer.
+     * @return offset after the last record read, pass it to the next call
+     */
+    public long read(long fromOffset, Consumer<ByteBuffer> consumer) throws IOException {
+        return read(fromOffset, committedOffset, consumer);
+    }
+
+    private long read(long fromOffset, long limit, Consumer<ByteBuffer> consumer) throws IOException {
+        long offset = Math.max(fromOffset, firstOffset());
+        while (offset < limit) {
+            Chunk chunk = chunkAt(offset);
+            if (chunk == null) {
+                break;
+            }
+            int end = (int) Math.min(chunk.length(), limit - chunk.base());
+            int position = scan(chunk.buffer(), (int) (offset - chunk.base()), end, consumer);
+            offset = chunk.base() + position;
+            if (offset < limit) {
+                // rest of this chunk is unused, continue in the next one
+                offset = chunk.end();
+            }
+        }
+        return Math.min(offset, limit);
+    }
+
+    ByteBuffer mapForRead(SegmentFile segment) throws IOException {
+        return map(segment, FileChannel.MapMode.READ_ONLY);
+    }
+
+    /**
+     * @return chunk holding given offset, null when the offset is past the last segment
+     */
+    Chunk chunkAt(long offset) throws IOException {
+        for (SegmentFile segment : segments) {
+            if (offset >= segment.end()) {
+                continue;
+            }
+            if (!segment.archived()) {
+                return new Chunk(mapForRead(segment), segment.base(), segment.base(), segment.length(), segment.end());
+            }
+            JournalArchive archive = archiveOf(segment);
+            int block = archive.blockFor((int) Math.max(0L, offset - segment.base()));
+            return new Chunk(
+                    archive.readBlock(block),
+                    segment.base(),
+                    segment.base() + archive.blockStart(block),
+                    archive.blockLength(block),
+                    blockEnd(segment, archive, block)
+            );
+        }
+        return null;
+    }
+
+    JournalArchive archiveOf(SegmentFile segment) throws IOException {
+        JournalArchive archive = archives.get(segment.archiveFile());
+        if (archive == null) {
+            archive = JournalArchive.open(directory.resolve(segment.archiveFile()).normalize());
+            archives.put(segment.archiveFile(), archive);
+        }
+        return archive;
+    }
+
+    /**
+     * @return offset where the next block starts, the last block of a segment reaches up to the segment end
+     */
+    static long blockEnd(SegmentFile segment, JournalArchive archive, int block) {
+        return block + 1 < archive.blockCount() ? segment.base() + archive.blockStart(block + 1) : segment.end();
+    }
+
+    /**
+     * Hands records between position and end to consumer. The same view buffer is reused for every record,
+     * its position and limit frame the payload.
+     * @return position after the last record
+     */
+    static int scan(ByteBuffer segment, int position, int end, Consumer<ByteBuffer> consumer) {
+        ByteBuffer record = segment.duplicate();
+        while (position + 4 <= end) {
+            int length = segment.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            record.limit(position + 4 + length).position(position + 4);
+            consumer.accept(record);
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    // offset of the first record in [fromOffset, limit) accepted by matcher, limit when none is
+    private long find(long fromOffset, long limit, RecordMatcher matcher) throws IOException {
+        long offset = Math.max(fromOffset, firstOffset());
+        while (offset < limit) {
+            Chunk chunk = chunkAt(offset);
+            if (chunk == null) {
+                break;
+            }
+            ByteBuffer buffer = chunk.buffer();
+            int end = (int) Math.min(chunk.length(), limit - chunk.base());
+            int position = (int) (offset - chunk.base());
+            while (position + 4 <= end) {
+                int length = buffer.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                long recordOffset = chunk.base() + position;
+                if (matcher.matches(buffer, position + 4, recordOffset, recordOffset == chunk.segmentBase())) {
+                    return recordOffset;
+                }
+                position += 4 + length;
+            }
+            offset = chunk.end();
+        }
+        return limit;
+    }
+
+    private interface RecordMatcher {
+        boolean matches(ByteBuffer segment, int payloadPosition, long recordOffset, boolean segmentStart) throws IOException;
+    }
+
+    /**
+     * Copies records of a single file journal (same framing) into the empty store, at the same offsets.
+     */
+    public synchronized void importFile(Path file) throws IOException {
+        if (committedOffset != 0L || segments.size() != 1) {
+            throw new IllegalStateException("Journal store " + name + " is not empty");
+        }
+        long size = Files.size(file);
+        if (size + BinaryEventSerializer.MAX_RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Journal file too large to import: " + file);
+        }
+        int length = (int) Math.max(segmentSize, size + BinaryEventSerializer.MAX_RECORD_SIZE);
+        if (length != currentFile.length()) {
+            // first segment must hold the whole file, so offsets stay the same
+            next.cancel(false);
+            SegmentFile first = new SegmentFile(0L, length, fileName(0L));
+            Files.deleteIfExists(directory.resolve(first.fileName()));
+            current = allocate(first);
+            currentFile = first;
+            segments.set(0, first);
+            writeManifest();
+            deleteUnlisted();
+            prepareNext();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer target = current.duplicate();
+            target.position(0).limit((int) size);
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) break;
+            }
+        }
+        current.position(recoverEnd(current));
+        recoverIndex();
+        current.force();
+        forcedPosition = current.position();
+        commit();
+    }
+
+    /**
+     * Drops committed records with a sequence above given one, segments after the one holding the cut are removed.
+     * Used on open to cut partitions back to a common end, only records in hot segments can be dropped.
+     * @return number of records dropped
+     */
+    public synchronized long truncateAfter(long sequence) throws IOException {
+        if (sequence >= records) {
+            return 0L;
+        }
+        long cut = offsetOfSequence(sequence + 1);
+        long[] dropped = { 0L };
+        read(cut, record -> dropped[0]++);
+        int keep = segments.size() - 1;
+        while (keep > 0 && segments.get(keep).base() > cut) {
+            keep--;
+        }
+        SegmentFile segment = segments.get(keep);
+        if (segment.archived()) {
+            throw new IllegalStateException("Journal store " + name + " cannot drop archived records after " + sequence);
+        }
+        if (keep < segments.size() - 1) {
+            try {
+                // allocation of the next segment must not race with the files removed below
+                next.join();
+            } catch (RuntimeException e) {
+                log.debug("Pre-allocated segment of {} dropped", name, e);
+            }
+            segments.subList(keep + 1, segments.size()).clear();
+            writeManifest();
+            deleteUnlisted();
+            currentFile = segment;
+            current = map(segment, FileChannel.MapMode.READ_WRITE);
+            prepareNext();
+        }
+        int position = (int) (cut - segment.base());
+        int end = dataEnd(current);
+        for (int i = position; i < end; i++) {
+            current.put(i, (byte) 0);
+        }
+        if (end > position) {
+            current.force(position, end - position);
+        }
+        current.position(position);
+        recoverIndex();
+        forcedPosition = position;
+        committedOffset = segment.base() + position;
+        committedRecords = records;
+        log.warn("Journal store {} dropped {} records after sequence {}", name, dropped[0], sequence);
+        return dropped[0];
+    }
+
+    /**
+     * Compresses sealed segments older than the newest hotSegments into archiveDirectory and drops the originals.
+     * Compression runs outside the store lock, appends are not blocked. Readers that still map an original
+     * keep reading it until they move on.
+     * @return number of segments archived
+     */
+    public int archive(Path archiveDirectory, int hotSegments, int blockSize) throws IOException {
+        if (hotSegments < 1) {
+            throw new IllegalArgumentException("At least the current segment must stay hot");
+        }
+        if (blockSize < BinaryEventSerializer.MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Archive block size too small: " + blockSize);
+        }
+        Files.createDirectories(archiveDirectory);
+        List<SegmentFile> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < segments.size() - hotSegments; i++) {
+                if (!segments.get(i).archived()) {
+                    candidates.add(segments.get(i));
+                }
+            }
+        }
+        for (SegmentFile segment : candidates) {
+            ByteBuffer buffer = mapForRead(segment);
+            Path target = archiveDirectory.resolve(segment.fileName() + JournalArchive.SUFFIX);
+            JournalArchive.write(buffer, dataEnd(buffer), blockSize, target);
+            String archiveFile = directory.toAbsolutePath().relativize(target.toAbsolutePath()).toString();
+            synchronized (this) {
+                segments.set(segments.indexOf(segment), new SegmentFile(segment.base(), segment.length(), segment.fileName(), archiveFile));
+                writeManifest();
+            }
+            // the archive is forced and listed, the original is no longer needed
+            Files.deleteIfExists(directory.resolve(segment.fileName()));
+            log.info("Journal store {} archived {} to {}", name, segment.fileName(), target);
+        }
+        return candidates.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        allocator.shutdownNow();
+        try {
+            // a pre-allocation in progress must not create its file after the store is closed
+            if (!allocator.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Segment allocator of {} did not stop", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        index.close();
+    }
+
+    private void roll() throws IOException {
+        MappedByteBuffer sealed = current;
+        if (retainUnforced) {
+            unforced.add(sealed);
+        }
+        SegmentFile nextFile = new SegmentFile(currentFile.end(), segmentSize, fileName(currentFile.end()));
+        MappedByteBuffer nextBuffer;
+        try {
+            nextBuffer = next.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for next segment", e);
+        } catch (ExecutionException e) {
+            log.warn("Pre-allocation of segment {} failed, allocating now", nextFile.fileName(), e.getCause());
+            nextBuffer = allocate(nextFile);
+        }
+
+        // committed data of the sealed segment stays readable, readers skip to the new segment at its end
+        segments.add(nextFile);
+        writeManifest();
+        currentFile = nextFile;
+        current = nextBuffer;
+        forcedPosition = 0;
+        prepareNext();
+        log.info("Journal store {} rolled over to {}", name, nextFile.fileName());
+    }
+
+    private void prepareNext() {
+        SegmentFile nextFile = new SegmentFile(currentFile.end(), segmentSize, fileName(currentFile.end()));
+        next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return allocate(nextFile);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, allocator);
+    }
+
+    // creates file of full size and touches every page, so appends never fault in new blocks
+    private MappedByteBuffer allocate(SegmentFile segment) throws IOException {
+        Path path = directory.resolve(segment.fileName());
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(segment.length());
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segment.length());
+            for (int i = 0; i < segment.length(); i += PAGE_SIZE) {
+                buffer.put(i, (byte) 0);
+            }
+            return buffer;
+        }
+    }
+
+    private MappedByteBuffer map(SegmentFile segment, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] { StandardOpenOption.READ }
+                : new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+        try (FileChannel channel = FileChannel.open(directory.resolve(segment.fileName()), options)) {
+            return channel.map(mode, 0, segment.length());
+        }
+    }
+
+    // position of the first free byte of a sealed segment
+    private static int dataEnd(ByteBuffer buffer) {
+        int position = 0;
+        while (position + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + 4 + length > buffer.capacity()) {
+                break;
+            }
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    /**
+     * Walks records of the segment and returns position of the first free byte.
+     * Anything after it is a torn write of a crash and is zeroed, so it is never read as a record.
+     */
+    private static int recoverEnd(MappedByteBuffer buffer) {
+        int position = dataEnd(buffer);
+        int capacity = buffer.capacity();
+        for (int i = position; i < capacity; i++) {
+            if (buffer.get(i) != 0) {
+                log.warn("Zeroing torn journal data after position {}", position);
+                for (int j = position; j < capacity; j++) {
+                    buffer.put(j, (byte) 0);
+                }
+                break;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Loads the index, indexes records written after its last entry and restores sequence and clock of the writer.
+     * Records written before records were stamped count from the start of the store.
+     */
+    private void recoverIndex() throws IOException {
+        long end = currentFile.base() + current.position();
+        index.close();
+        index.open(firstOffset(), end);
+        int last = index.size() - 1;
+        long[] sequence = { last < 0 ? 0L : index.sequence(last) - 1 };
+        long[] timestamp = { lastTimestamp };
+        long from = last < 0 ? firstOffset() : index.offset(last);
+        EventRecordView view = new EventRecordView();
+        find(from, end, (buffer, position, offset, segmentStart) -> {
+            view.wrap(buffer, position);
+            sequence[0] = view.sequence() > 0 ? view.sequence() : sequence[0] + 1;
+            timestamp[0] = Math.max(timestamp[0], view.timestampNanos());
+            if (index.isDue(segmentStart)) {
+                index.append(sequence[0], timestamp[0], offset);
+            }
+            return false;
+        });
+        records = sequence[0];
+        lastTimestamp = timestamp[0];
+    }
+
+    private String fileName(long base) {
+        return String.format("%s-%020d%s", name, base, SEGMENT_SUFFIX);
+    }
+
+    private Path manifestPath() {
+        return directory.resolve(name + "." + MANIFEST);
+    }
+
+    private List<SegmentFile> readManifest() throws IOException {
+        List<SegmentFile> listed = new ArrayList<>();
+        if (!Files.exists(manifestPath())) {
+            return listed;
+        }
+        for (String line : Files.readAllLines(manifestPath())) {
+            if (line.isBlank()) continue;
+            String[] parts = line.trim().split(" ");
+            listed.add(new SegmentFile(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), parts[2],
+                    parts.length > 3 ? parts[3] : null));
+        }
+        return listed;
+    }
+
+    // written to a temp file and moved, a crash leaves either the old or the new manifest
+    private void writeManifest() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (SegmentFile segment : segments) {
+            content.append(segment.base()).append(' ')
+                    .append(segment.length()).append(' ')
+                    .append(segment.fileName());
+            if (segment.archived()) {
+                content.append(' ').append(segment.archiveFile());
+            }
+            content.append('\n');
+        }
+        Path temp = directory.resolve(name + "." + MANIFEST + ".tmp");
+        Files.writeString(temp, content);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, manifestPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // originals of archived segments count as unlisted, a crash may leave them behind
+    private void deleteUnlisted() throws IOException {
+        List<String> listed = segments.stream().filter(segment -> !segment.archived()).map(SegmentFile::fileName).toList();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(name + "-") && fileName.endsWith(SEGMENT_SUFFIX) && !listed.contains(fileName)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Segment as listed in the manifest, covers offsets [base, base + length).
+     * archiveFile is the path of the compressed copy relative to the store directory, null while the segment is hot.
+     */
+    public record SegmentFile(long base, int length, String fileName, String archiveFile) {
+        public SegmentFile(long base, int length, String fileName) {
+            this(base, length, fileName, null);
+        }
+
+        public long end() {
+            return base + length;
+        }
+
+        public boolean archived() {
+            return archiveFile != null;
+        }
+    }
+
+    /**
+     * Readable part of the store: records start at buffer position 0, which is offset base,
+     * and take up to length bytes. The next chunk starts at end.
+     */
+    record Chunk(ByteBuffer buffer, long segmentBase, long base, int length, long end) {
+    }
+}
@@ -0,0 +1,197 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Named consumer following a journal store. Keeps the chunk it reads (mapped segment or inflated block of an archived one),
+ * remembers its own read position
+ * and persists a cursor (offset of the first record not yet processed) in the journal directory.
+ *
+ * A tailer is used by one thread. The journal wakes it up on every commit, so an idle consumer parks in await()
+ * instead of polling. After a failure, rewind() goes back to the last committed cursor and records are read again.
+ */
+public final class JournalTailer implements EventTailer {
+    private final String name;
+    private final JournalStore store;
+    private final Path cursorPath;
+    private final Runnable onClose;
+    private final EventRecordView view = new EventRecordView();
+
+    private JournalStore.Chunk chunk;
+    private long position;
+    private long cursor;
+    private volatile Thread waiter;
+
+    JournalTailer(String name, JournalStore store, Runnable onClose) throws IOException {
+        this.name = name;
+        this.store = store;
+        this.cursorPath = store.directory().resolve("tailer-" + name + ".cursor");
+        this.onClose = onClose;
+        this.cursor = Files.exists(cursorPath) ? Long.parseLong(Files.readString(cursorPath).trim()) : store.firstOffset();
+        this.position = cursor;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean hasCommittedCursor() {
+        return Files.exists(cursorPath);
+    }
+
+    /**
+     * Hands up to maxRecords committed records after the read position to consumer and moves the position past them.
+     * The view is reused, it is only valid during the call.
+     * @return number of records read, 0 when the tailer is caught up
+     */
+    @Override
+    public int poll(Consumer<EventRecordView> consumer, int maxRecords) throws IOException {
+        long limit = store.committedOffset();
+        int count = 0;
+        while (count < maxRecords && position < limit) {
+            if (chunk == null || position < chunk.base() || position >= chunk.end()) {
+                if (!locate()) {
+                    break;
+                }
+            }
+            ByteBuffer buffer = chunk.buffer();
+            int end = (int) Math.min(chunk.length(), limit - chunk.base());
+            int at = (int) (position - chunk.base());
+            while (count < maxRecords && at + 4 <= end) {
+                int length = buffer.getInt(at);
+                if (length == 0) {
+                    break;
+                }
+                consumer.accept(view.wrap(buffer, at + 4));
+                at += 4 + length;
+                count++;
+            }
+            position = chunk.base() + at;
+            if (count < maxRecords && limit >= chunk.end()) {
+                // rest of this chunk is unused, continue in the next one
+                position = chunk.end();
+            }
+        }
+        position = Math.min(position, limit);
+        return count;
+    }
+
+    /**
+     * Parks until records after the read position are committed.
+     * @return false on timeout or interrupt
+     */
+    @Override
+    public boolean await(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiter = Thread.currentThread();
+        try {
+            while (store.committedOffset() <= position) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0L || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, left);
+            }
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Called by the journal after a commit, and by whoever wants the consumer to re-check its state.
+     */
+    @Override
+    public void wake() {
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Persists the read position as cursor, call once everything read so far is processed.
+     */
+    @Override
+    public void commit() throws IOException {
+        commit(position);
+    }
+
+    /**
+     * Persists given offset as cursor, for consumers that finish records out of read order.
+     * It must be a record boundary not after the read position.
+     */
+    @Override
+    public void commit(long offset) throws IOException {
+        if (offset > position) {
+            throw new IllegalArgumentException("Cannot commit " + offset + " past read position " + position);
+        }
+        if (offset == cursor && Files.exists(cursorPath)) {
+            return;
+        }
+        Path temp = cursorPath.resolveSibling(cursorPath.getFileName() + ".tmp");
+        Files.writeString(temp, String.valueOf(offset));
+        Files.move(temp, cursorPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        cursor = offset;
+    }
+
+    /**
+     * Moves the read position back to the committed cursor.
+     */
+    @Override
+    public void rewind() {
+        position = cursor;
+    }
+
+    /**
+     * Moves the read position, offset must be a record boundary (see ExchangeEventJournal.offsetOfSequence).
+     */
+    @Override
+    public void seek(long offset) {
+        position = offset;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public long committedCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return committed journal bytes not read yet
+     */
+    @Override
+    public long lag() {
+        return Math.max(0L, store.committedOffset() - position);
+    }
+
+    @Override
+    public void close() {
+        chunk = null;
+        onClose.run();
+    }
+
+    private boolean locate() throws IOException {
+        chunk = store.chunkAt(position);
+        if (chunk == null) {
+            return false;
+        }
+        position = Math.max(position, chunk.base());
+        return true;
+    }
+}
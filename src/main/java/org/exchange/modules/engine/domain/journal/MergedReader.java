@@ -0,0 +1,69 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Reads the partitions of a journal as one stream ordered by global sequence.
+ * Every partition is ordered on its own, so a heap of one cursor per partition is enough.
+ * Only records up to the committed sequence of the journal are read, there are no gaps below it.
+ */
+final class MergedReader {
+    private final JournalPartitions partitions;
+    private final Map<JournalStore, JournalCursor> cursors = new HashMap<>();
+    private final PriorityQueue<JournalCursor> heap = new PriorityQueue<>(Comparator.comparingLong(JournalCursor::sequence));
+    // sequence of the next record
+    private long position;
+
+    MergedReader(JournalPartitions partitions, long position) {
+        this.partitions = partitions;
+        this.position = Math.max(1L, position);
+    }
+
+    long position() {
+        return position;
+    }
+
+    void seek(long position) {
+        this.position = Math.max(1L, position);
+        cursors.clear();
+    }
+
+    /**
+     * Hands up to maxRecords records to consumer in sequence order. The view is only valid during the call.
+     * @return number of records read
+     */
+    int read(Consumer<EventRecordView> consumer, int maxRecords) throws IOException {
+        long watermark = partitions.committedSequence();
+        heap.clear();
+        for (JournalStore store : partitions.stores()) {
+            JournalCursor cursor = cursors.get(store);
+            if (cursor == null) {
+                // partition created or read for the first time
+                cursor = new JournalCursor(store, store.offsetOfSequence(position));
+                cursors.put(store, cursor);
+            }
+            if (cursor.peek() && cursor.sequence() <= watermark) {
+                heap.add(cursor);
+            }
+        }
+        int count = 0;
+        while (count < maxRecords && !heap.isEmpty()) {
+            JournalCursor cursor = heap.poll();
+            consumer.accept(cursor.view());
+            position = cursor.sequence() + 1;
+            cursor.advance();
+            count++;
+            if (cursor.peek() && cursor.sequence() <= watermark) {
+                heap.add(cursor);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,189 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.exchange.modules.engine.domain.model.RejectReason;
+import org.exchange.modules.engine.domain.model.Side;
+
+/**
+ * Mutable slot of OutputEventBuffer, one result of matching: order state change or trade.
+ * Price and amount are kept as unscaled value plus scale of the instrument, so the record is readable without it.
+ *
+ * sourceSequence is the input journal sequence of the event that caused it, 0 for orders rejected before journaling.
+ * Trades are written from the taker's point of view, the maker is the counterparty.
+ */
+public final class OutputEvent implements JournalModelEvent {
+    private EventType type;
+    private long sourceSequence;
+    private String clientOrderId;
+    private long userId;
+    private Side side;
+    private long instrumentId;
+    private long amountUnscaled;
+    private int amountScale;
+    private long priceUnscaled;
+    private int priceScale;
+    private RejectReason reason;
+    private String counterpartyClientOrderId;
+    private long counterpartyUserId;
+
+    /**
+     * ORDER_ACCEPTED, ORDER_REJECTED carry the order amount, ORDER_PARTIALLY_FILLED, ORDER_FILLED and
+     * ORDER_CANCELLED the amount still open after the event.
+     */
+    public void setOrderState(
+            EventType type,
+            long sourceSequence,
+            String clientOrderId,
+            long userId,
+            Side side,
+            Instrument instrument,
+            long priceTicks,
+            long amountLots,
+            RejectReason reason
+    ) {
+        set(type, sourceSequence, clientOrderId, userId, side, instrument, priceTicks, amountLots);
+        this.reason = reason;
+        this.counterpartyClientOrderId = null;
+        this.counterpartyUserId = 0L;
+    }
+
+    /**
+     * Rejection of an order whose instrument has no order book, price and amount are kept as received
+     * since there is no instrument to scale them with.
+     */
+    public void setUnknownInstrument(
+            String clientOrderId,
+            long userId,
+            Side side,
+            long instrumentId,
+            long priceUnscaled,
+            int priceScale,
+            long amountUnscaled,
+            int amountScale
+    ) {
+        this.type = EventType.ORDER_REJECTED;
+        this.sourceSequence = 0L;
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.side = side;
+        this.instrumentId = instrumentId;
+        this.amountUnscaled = amountUnscaled;
+        this.amountScale = amountScale;
+        this.priceUnscaled = priceUnscaled;
+        this.priceScale = priceScale;
+        this.reason = RejectReason.UNKNOWN_INSTRUMENT;
+        this.counterpartyClientOrderId = null;
+        this.counterpartyUserId = 0L;
+    }
+
+    /**
+     * CANCEL_REJECTED answering a cancel that was not journaled, side, price and amount are not set.
+     */
+    public void setCancelRejected(String clientOrderId, long userId, long instrumentId, RejectReason reason) {
+        this.type = EventType.CANCEL_REJECTED;
+        this.sourceSequence = 0L;
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.side = null;
+        this.instrumentId = instrumentId;
+        this.amountUnscaled = 0L;
+        this.amountScale = 0;
+        this.priceUnscaled = 0L;
+        this.priceScale = 0;
+        this.reason = reason;
+        this.counterpartyClientOrderId = null;
+        this.counterpartyUserId = 0L;
+    }
+
+    public void setTrade(
+            long sourceSequence,
+            String takerClientOrderId,
+            long takerUserId,
+            Side takerSide,
+            Instrument instrument,
+            long priceTicks,
+            long quantityLots,
+            String makerClientOrderId,
+            long makerUserId
+    ) {
+        set(EventType.TRADE, sourceSequence, takerClientOrderId, takerUserId, takerSide, instrument, priceTicks, quantityLots);
+        this.reason = RejectReason.NONE;
+        this.counterpartyClientOrderId = makerClientOrderId;
+        this.counterpartyUserId = makerUserId;
+    }
+
+    private void set(
+            EventType type,
+            long sourceSequence,
+            String clientOrderId,
+            long userId,
+            Side side,
+            Instrument instrument,
+            long priceTicks,
+            long amountLots
+    ) {
+        this.type = type;
+        this.sourceSequence = sourceSequence;
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.side = side;
+        this.instrumentId = instrument.getId();
+        this.amountUnscaled = amountLots;
+        this.amountScale = instrument.getPrecision();
+        this.priceUnscaled = instrument.toPriceUnscaled(priceTicks);
+        this.priceScale = instrument.getPriceScale();
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public long getSourceSequence() {
+        return sourceSequence;
+    }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public long getInstrumentId() {
+        return instrumentId;
+    }
+
+    public long getAmountUnscaled() {
+        return amountUnscaled;
+    }
+
+    public int getAmountScale() {
+        return amountScale;
+    }
+
+    public long getPriceUnscaled() {
+        return priceUnscaled;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public RejectReason getReason() {
+        return reason;
+    }
+
+    public String getCounterpartyClientOrderId() {
+        return counterpartyClientOrderId;
+    }
+
+    public long getCounterpartyUserId() {
+        return counterpartyUserId;
+    }
+}
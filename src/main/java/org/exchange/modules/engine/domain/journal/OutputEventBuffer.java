@@ -0,0 +1,54 @@
+package org.exchange.modules.engine.domain.journal;
+
+/**
+ * Preallocated, reusable list of output events collected by one matching worker during a batch.
+ * Grows only when a batch produces more events than ever before.
+ */
+public final class OutputEventBuffer {
+    private OutputEvent[] events;
+    private int size;
+
+    public OutputEventBuffer(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        this.events = new OutputEvent[initialCapacity];
+        for (int i = 0; i < initialCapacity; i++) {
+            events[i] = new OutputEvent();
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return next free slot to be filled by the caller
+     */
+    public OutputEvent next() {
+        if (size == events.length) {
+            OutputEvent[] grown = new OutputEvent[events.length * 2];
+            System.arraycopy(events, 0, grown, 0, events.length);
+            for (int i = events.length; i < grown.length; i++) {
+                grown[i] = new OutputEvent();
+            }
+            events = grown;
+        }
+        return events[size++];
+    }
+
+    public OutputEvent get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return events[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
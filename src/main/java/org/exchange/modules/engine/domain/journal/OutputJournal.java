@@ -0,0 +1,109 @@
+package org.exchange.modules.engine.domain.journal;
+
+import jakarta.annotation.PostConstruct;
+import org.exchange.modules.engine.domain.EventRecordView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.BitSet;
+
+/**
+ * Results of matching: order accepted / rejected / partially filled / filled / cancelled and trades,
+ * stored like the input journal (see JournalStore) in its own directory. Downstream consumers follow it with a tailer
+ * instead of re-running matching.
+ *
+ * Every record carries the input journal sequence that caused it. Output is written after the input batch is committed
+ * and is not fsynced on its own: whatever a crash loses is produced again when the engine replays the input journal,
+ * records of inputs already present are not duplicated. Before a snapshot is saved output is forced,
+ * so replay never has to go further back than the snapshot.
+ */
+@Component
+public class OutputJournal implements AutoCloseable {
+    private final JournalStore store;
+
+    public OutputJournal(
+            @Value("${app.engine.output.dir:data/output-journal}") String directory,
+            @Value("${app.engine.output.segment-size:67108864}") int segmentSize,
+            @Value("${app.engine.journal-index-interval:4096}") int indexInterval
+    ) {
+        this.store = new JournalStore(Paths.get(directory), "output", segmentSize, true, indexInterval);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        store.open();
+    }
+
+    /**
+     * Appends events of one worker batch in order, commits them together and clears the buffer.
+     */
+    public void publish(OutputEventBuffer events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        // batches of different workers are not interleaved
+        synchronized (this) {
+            for (int i = 0; i < events.size(); i++) {
+                store.append(events.get(i));
+            }
+            store.commit();
+        }
+        events.clear();
+    }
+
+    public void force() throws IOException {
+        store.force();
+    }
+
+    /**
+     * Marks input sequences (from base on) that already have output, reading output records from given offset.
+     * Bit i stands for input sequence base + i.
+     */
+    public BitSet collectSources(long fromOffset, long base) throws IOException {
+        BitSet covered = new BitSet();
+        EventRecordView view = new EventRecordView();
+        store.read(fromOffset, payload -> {
+            long source = view.wrap(payload).sourceSequence();
+            if (source >= base && source - base <= Integer.MAX_VALUE - 1) {
+                covered.set((int) (source - base));
+            }
+        });
+        return covered;
+    }
+
+    public JournalTailer tailer(String name) throws IOException {
+        return store.tailer(name);
+    }
+
+    public long offsetOfSequence(long sequence) throws IOException {
+        return store.offsetOfSequence(sequence);
+    }
+
+    public long offsetAtTime(Instant time) throws IOException {
+        return store.offsetAtTime(time.getEpochSecond() * 1_000_000_000L + time.getNano());
+    }
+
+    public long lastSequence() {
+        return store.committedRecords();
+    }
+
+    /**
+     * @return offset just after the last committed record
+     */
+    public long size() {
+        return store.committedOffset();
+    }
+
+    public JournalStore getStore() {
+        return store;
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.force();
+        store.close();
+    }
+}
@@ -0,0 +1,130 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Tailer of a partitioned journal, reads all partitions merged by global sequence.
+ * The position and the persisted cursor are the sequence of the next record to process.
+ */
+final class PartitionedTailer implements EventTailer {
+    private final String name;
+    private final JournalPartitions partitions;
+    private final Path cursorPath;
+    private final Runnable onClose;
+    private final MergedReader reader;
+    private long cursor;
+    private volatile Thread waiter;
+
+    PartitionedTailer(String name, JournalPartitions partitions, Path directory, Runnable onClose) throws IOException {
+        this.name = name;
+        this.partitions = partitions;
+        this.cursorPath = directory.resolve("tailer-" + name + ".sequence");
+        this.onClose = onClose;
+        this.cursor = Files.exists(cursorPath) ? Long.parseLong(Files.readString(cursorPath).trim()) : 1L;
+        this.reader = partitions.reader(cursor);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean hasCommittedCursor() {
+        return Files.exists(cursorPath);
+    }
+
+    @Override
+    public int poll(Consumer<EventRecordView> consumer, int maxRecords) throws IOException {
+        return reader.read(consumer, maxRecords);
+    }
+
+    @Override
+    public boolean await(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiter = Thread.currentThread();
+        try {
+            while (partitions.committedSequence() < reader.position()) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0L || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, left);
+            }
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    @Override
+    public void wake() {
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void commit() throws IOException {
+        commit(reader.position());
+    }
+
+    @Override
+    public void commit(long sequence) throws IOException {
+        if (sequence > reader.position()) {
+            throw new IllegalArgumentException("Cannot commit " + sequence + " past read position " + reader.position());
+        }
+        if (sequence == cursor && Files.exists(cursorPath)) {
+            return;
+        }
+        Path temp = cursorPath.resolveSibling(cursorPath.getFileName() + ".tmp");
+        Files.writeString(temp, String.valueOf(sequence));
+        Files.move(temp, cursorPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        cursor = sequence;
+    }
+
+    @Override
+    public void rewind() {
+        reader.seek(cursor);
+    }
+
+    /**
+     * Moves the read position to given sequence.
+     */
+    @Override
+    public void seek(long sequence) {
+        reader.seek(sequence);
+    }
+
+    @Override
+    public long position() {
+        return reader.position();
+    }
+
+    @Override
+    public long committedCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return committed records not read yet
+     */
+    @Override
+    public long lag() {
+        return Math.max(0L, partitions.committedSequence() + 1 - reader.position());
+    }
+
+    @Override
+    public void close() {
+        onClose.run();
+    }
+}
@@ -0,0 +1,50 @@
+package org.exchange.modules.engine.domain.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Balance of a user in one asset as persisted in the balances table, updatedAt is when it was last flushed.
+ * Live balances are kept by BalanceManager.
+ */
+public class AssetBalance {
+    private final Long userId;
+    private final Long assetId;
+    private final BigDecimal available;
+    private final BigDecimal locked;
+    private final Instant updatedAt;
+
+    public AssetBalance(
+            Long userId,
+            Long assetId,
+            BigDecimal available,
+            BigDecimal locked,
+            Instant updatedAt
+    ) {
+        this.userId = userId;
+        this.assetId = assetId;
+        this.available = available;
+        this.locked = locked;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getAssetId() {
+        return assetId;
+    }
+
+    public BigDecimal getAvailable() {
+        return available;
+    }
+
+    public BigDecimal getLocked() {
+        return locked;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -1,10 +1,22 @@
 package org.exchange.modules.engine.domain.model;
 
+/**
+ * Journal record types. Codes must stay below 16, the upper half of the header byte is the record format version.
+ * Inputs go to the input journal, results of matching (ORDER_ACCEPTED and later) to the output journal.
+ */
 public enum EventType {
     ORDER_NEW((byte) 1),
     ORDER_CANCEL((byte) 2),
     BALANCE_DEPOSIT((byte) 3),
-    BALANCE_WITHDRAW((byte) 4);
+    BALANCE_WITHDRAW((byte) 4),
+    ORDER_ACCEPTED((byte) 5),
+    ORDER_REJECTED((byte) 6),
+    TRADE((byte) 7),
+    ORDER_PARTIALLY_FILLED((byte) 8),
+    ORDER_FILLED((byte) 9),
+    ORDER_CANCELLED((byte) 10),
+    // cancel that found no resting order of its user, not an order state
+    CANCEL_REJECTED((byte) 11);
 
     private final byte code;
 
@@ -0,0 +1,72 @@
+package org.exchange.modules.engine.domain.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point helpers used by the matching hot path.
+ * Balances are kept as long units of 10^-BALANCE_SCALE, prices as ticks and amounts as lots of an instrument.
+ * BigDecimal is only used at the edges (REST, journal, DB).
+ */
+public final class FixedPoint {
+    // same scale as amount columns in DB
+    public static final int BALANCE_SCALE = 8;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    public static long pow10(int exponent) {
+        if (exponent < 0 || exponent >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Power of ten out of long range: " + exponent);
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * @throws ArithmeticException when amount has more than BALANCE_SCALE decimal places or does not fit in long
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.movePointRight(BALANCE_SCALE).longValueExact();
+    }
+
+    /**
+     * Same as toUnits(BigDecimal) for a decimal given as unscaled value and scale.
+     */
+    public static long toUnits(long unscaled, int scale) {
+        return rescale(unscaled, scale, BALANCE_SCALE);
+    }
+
+    /**
+     * Unscaled value of unscaled * 10^-fromScale at toScale.
+     * @throws ArithmeticException when digits would be lost or the result does not fit in long
+     */
+    public static long rescale(long unscaled, int fromScale, int toScale) {
+        if (unscaled == 0L || fromScale == toScale) {
+            return unscaled;
+        }
+        int exponent = toScale - fromScale;
+        if (Math.abs(exponent) >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale out of range: " + fromScale + " -> " + toScale);
+        }
+        if (exponent > 0) {
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[exponent]);
+        }
+        long divisor = POWERS_OF_TEN[-exponent];
+        if (unscaled % divisor != 0) {
+            throw new ArithmeticException("Rounding necessary");
+        }
+        return unscaled / divisor;
+    }
+
+    public static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, BALANCE_SCALE);
+    }
+}
@@ -17,6 +17,14 @@ public class Instrument {
     private final BigDecimal minAmount; // Minimum order amount
     private final BigDecimal tickSize;  // Minimum price increment
     private final InstrumentStatus status;
+
+    // fixed-point conversion factors, see FixedPoint
+    private final long quoteUnitsMultiplier;
+    private final long quoteUnitsDivisor;
+    private final long baseUnitsMultiplier;
+    private final long baseUnitsDivisor;
+    private final long tickUnscaled;
+    private final int tickScale;
     
     public Instrument(
             Long id,
@@ -57,8 +65,103 @@ public class Instrument {
         this.minAmount = minAmount;
         this.tickSize = tickSize;
         this.status = status;
+
+        // price * amount = ticks * tickSize * lots * 10^-precision, expressed in 10^-BALANCE_SCALE units
+        BigDecimal tick = tickSize.stripTrailingZeros();
+        this.tickUnscaled = tick.unscaledValue().longValueExact();
+        this.tickScale = tick.scale();
+        int quoteExponent = FixedPoint.BALANCE_SCALE - tick.scale() - precision;
+        if (quoteExponent >= 0) {
+            this.quoteUnitsMultiplier = Math.multiplyExact(tickUnscaled, FixedPoint.pow10(quoteExponent));
+            this.quoteUnitsDivisor = 1L;
+        } else {
+            this.quoteUnitsMultiplier = tickUnscaled;
+            this.quoteUnitsDivisor = FixedPoint.pow10(-quoteExponent);
+        }
+        int baseExponent = FixedPoint.BALANCE_SCALE - precision;
+        this.baseUnitsMultiplier = baseExponent >= 0 ? FixedPoint.pow10(baseExponent) : 1L;
+        this.baseUnitsDivisor = baseExponent >= 0 ? 1L : FixedPoint.pow10(-baseExponent);
     }
     
+    /**
+     * @throws ArithmeticException when price is not a multiple of tick size
+     */
+    public long toPriceTicks(BigDecimal price) {
+        return price.divide(tickSize).longValueExact();
+    }
+
+    /**
+     * Same as toPriceTicks(BigDecimal) for a price given as unscaled value and scale, used by journal replay.
+     */
+    public long toPriceTicks(long unscaled, int scale) {
+        long atTickScale = FixedPoint.rescale(unscaled, scale, tickScale);
+        if (atTickScale % tickUnscaled != 0) {
+            throw new ArithmeticException("Price is not a multiple of tick size");
+        }
+        return atTickScale / tickUnscaled;
+    }
+
+    /**
+     * Price of given ticks as unscaled value at getPriceScale(), without going through BigDecimal.
+     */
+    public long toPriceUnscaled(long priceTicks) {
+        return Math.multiplyExact(priceTicks, tickUnscaled);
+    }
+
+    public int getPriceScale() {
+        return tickScale;
+    }
+
+    public BigDecimal fromPriceTicks(long priceTicks) {
+        return tickSize.multiply(BigDecimal.valueOf(priceTicks));
+    }
+
+    /**
+     * @throws ArithmeticException when amount has more decimal places than precision
+     */
+    public long toAmountLots(BigDecimal amount) {
+        return amount.movePointRight(precision).longValueExact();
+    }
+
+    /**
+     * Same as toAmountLots(BigDecimal) for an amount given as unscaled value and scale.
+     */
+    public long toAmountLots(long unscaled, int scale) {
+        return FixedPoint.rescale(unscaled, scale, precision);
+    }
+
+    public BigDecimal fromAmountLots(long lots) {
+        return BigDecimal.valueOf(lots, precision);
+    }
+
+    /**
+     * Quote asset balance units for given price and amount, rounded down when precision + tick scale
+     * exceeds BALANCE_SCALE. This is what changes hands in a trade.
+     * @throws ArithmeticException on long overflow
+     */
+    public long quoteUnits(long priceTicks, long lots) {
+        return Math.multiplyExact(Math.multiplyExact(priceTicks, lots), quoteUnitsMultiplier) / quoteUnitsDivisor;
+    }
+
+    /**
+     * Base asset balance units for given amount, rounded down when precision exceeds BALANCE_SCALE.
+     */
+    public long baseUnits(long lots) {
+        return Math.multiplyExact(lots, baseUnitsMultiplier) / baseUnitsDivisor;
+    }
+
+    /**
+     * Units locked for lots of an order at its limit price: quote units for a buy, base units for a sell,
+     * rounded up. Never less than what the lots trade for, the fill that leaves nothing open (or the cancel)
+     * releases the rounding residual, see BalanceManager.processTrade.
+     * @throws ArithmeticException on long overflow
+     */
+    public long lockUnits(Side side, long priceTicks, long lots) {
+        return side == Side.BUY
+                ? -Math.floorDiv(-Math.multiplyExact(Math.multiplyExact(priceTicks, lots), quoteUnitsMultiplier), quoteUnitsDivisor)
+                : -Math.floorDiv(-Math.multiplyExact(lots, baseUnitsMultiplier), baseUnitsDivisor);
+    }
+
     public boolean isActive() {
         return status == InstrumentStatus.ACTIVE;
     }
@@ -9,7 +9,7 @@ final public class Order implements JournalModelEvent {
     private final Long userId;
     private final Side side;
     private final Long instrumentId;  // Changed from String symbol
-    private BigDecimal amount;
+    private final BigDecimal amount;
     private final BigDecimal price;
 
     public Order(
@@ -55,13 +55,6 @@ final public class Order implements JournalModelEvent {
         return userId;
     }
 
-    public void changeAmount(BigDecimal amount) {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Amount cannot be null or less than or equal to zero");
-        }
-        this.amount = amount;
-    }
-
     public BigDecimal getAmount() {
         return amount;
     }
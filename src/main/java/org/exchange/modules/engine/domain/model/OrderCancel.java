@@ -0,0 +1,39 @@
+package org.exchange.modules.engine.domain.model;
+
+import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+
+/**
+ * Request to remove a resting order from the book and release its locked funds.
+ */
+final public class OrderCancel implements JournalModelEvent {
+    private final String clientOrderId;
+    private final Long userId;
+    private final Long instrumentId;
+
+    public OrderCancel(String clientOrderId, Long userId, Long instrumentId) {
+        if (clientOrderId == null || clientOrderId.isEmpty()) {
+            throw new IllegalArgumentException("Client order ID cannot be null or empty");
+        }
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (instrumentId == null) {
+            throw new IllegalArgumentException("Instrument ID cannot be null");
+        }
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.instrumentId = instrumentId;
+    }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getInstrumentId() {
+        return instrumentId;
+    }
+}
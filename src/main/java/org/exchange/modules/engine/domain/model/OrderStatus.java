@@ -0,0 +1,26 @@
+package org.exchange.modules.engine.domain.model;
+
+/**
+ * Lifecycle state of an order, as last reported by the output journal.
+ */
+public enum OrderStatus {
+    OPEN,             // Accepted, resting in the book
+    PARTIALLY_FILLED, // Part of the amount traded
+    FILLED,           // Whole amount traded
+    CANCELLED,        // Removed from the book before filling
+    REJECTED;         // Refused by the engine
+
+    /**
+     * @throws IllegalArgumentException for events that are not order state changes
+     */
+    public static OrderStatus of(EventType type) {
+        return switch (type) {
+            case ORDER_ACCEPTED -> OPEN;
+            case ORDER_PARTIALLY_FILLED -> PARTIALLY_FILLED;
+            case ORDER_FILLED -> FILLED;
+            case ORDER_CANCELLED -> CANCELLED;
+            case ORDER_REJECTED -> REJECTED;
+            default -> throw new IllegalArgumentException("Not an order state: " + type);
+        };
+    }
+}
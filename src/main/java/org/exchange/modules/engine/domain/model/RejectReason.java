@@ -0,0 +1,29 @@
+package org.exchange.modules.engine.domain.model;
+
+public enum RejectReason {
+    NONE((byte) 0),
+    UNKNOWN_INSTRUMENT((byte) 1),
+    DUPLICATE((byte) 2),
+    INSUFFICIENT_FUNDS((byte) 3),
+    // cancel of an order that is not resting (filled, cancelled, never accepted or of another user)
+    UNKNOWN_ORDER((byte) 4);
+
+    private final byte code;
+
+    RejectReason(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static RejectReason fromCode(byte code) {
+        for (RejectReason reason : values()) {
+            if (reason.code == code) {
+                return reason;
+            }
+        }
+        throw new IllegalArgumentException("Unknown RejectReason code: " + code);
+    }
+}
@@ -0,0 +1,54 @@
+package org.exchange.modules.engine.domain.model;
+
+/**
+ * Preallocated, reusable list of fills produced by one match.
+ * Owned by a single matching worker, grows only when an order sweeps more levels than ever before.
+ */
+public final class TradeBuffer {
+    private TradeMatch[] trades;
+    private int size;
+
+    public TradeBuffer(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        this.trades = new TradeMatch[initialCapacity];
+        for (int i = 0; i < initialCapacity; i++) {
+            trades[i] = new TradeMatch();
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return next free slot to be filled by the caller
+     */
+    public TradeMatch next() {
+        if (size == trades.length) {
+            TradeMatch[] grown = new TradeMatch[trades.length * 2];
+            System.arraycopy(trades, 0, grown, 0, trades.length);
+            for (int i = trades.length; i < grown.length; i++) {
+                grown[i] = new TradeMatch();
+            }
+            trades = grown;
+        }
+        return trades[size++];
+    }
+
+    public TradeMatch get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return trades[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
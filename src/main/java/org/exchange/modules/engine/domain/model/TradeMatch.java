@@ -1,13 +1,86 @@
 package org.exchange.modules.engine.domain.model;
 
-import java.math.BigDecimal;
-
-public record TradeMatch(
-        Long makerUserId,
-        Long takerUserId,
-        Long instrumentId,
-        BigDecimal price,
-        BigDecimal quantity,
-        Side takerSide
-) {
+/**
+ * Single fill, price in instrument ticks and quantity in lots.
+ * takerPriceTicks is the taker's limit, needed to release over-locked funds on price improvement.
+ * Maker's client order id and remaining amount after the fill are kept for the output journal, remaining amounts
+ * of both sides also settle the locked funds exactly (see Instrument.lockUnits).
+ *
+ * Mutable and reused by TradeBuffer, do not keep references after the callback returns.
+ */
+public final class TradeMatch {
+    private long makerUserId;
+    private long takerUserId;
+    private long instrumentId;
+    private long priceTicks;
+    private long quantityLots;
+    private Side takerSide;
+    private long takerPriceTicks;
+    private String makerClientOrderId;
+    private long makerRemainingLots;
+    private long takerRemainingLots;
+
+    public void set(
+            long makerUserId,
+            long takerUserId,
+            long instrumentId,
+            long priceTicks,
+            long quantityLots,
+            Side takerSide,
+            long takerPriceTicks,
+            String makerClientOrderId,
+            long makerRemainingLots,
+            long takerRemainingLots
+    ) {
+        this.makerUserId = makerUserId;
+        this.takerUserId = takerUserId;
+        this.instrumentId = instrumentId;
+        this.priceTicks = priceTicks;
+        this.quantityLots = quantityLots;
+        this.takerSide = takerSide;
+        this.takerPriceTicks = takerPriceTicks;
+        this.makerClientOrderId = makerClientOrderId;
+        this.makerRemainingLots = makerRemainingLots;
+        this.takerRemainingLots = takerRemainingLots;
+    }
+
+    public long getMakerUserId() {
+        return makerUserId;
+    }
+
+    public long getTakerUserId() {
+        return takerUserId;
+    }
+
+    public long getInstrumentId() {
+        return instrumentId;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public long getQuantityLots() {
+        return quantityLots;
+    }
+
+    public Side getTakerSide() {
+        return takerSide;
+    }
+
+    public long getTakerPriceTicks() {
+        return takerPriceTicks;
+    }
+
+    public String getMakerClientOrderId() {
+        return makerClientOrderId;
+    }
+
+    public long getMakerRemainingLots() {
+        return makerRemainingLots;
+    }
+
+    public long getTakerRemainingLots() {
+        return takerRemainingLots;
+    }
 }
@@ -1,58 +1,23 @@
 package org.exchange.modules.engine.domain.model;
 
-import java.math.BigDecimal;
-
+/**
+ * Point in time copy of a balance of a single asset in fixed-point units, see FixedPoint.
+ * Live balances are kept by BalanceManager.
+ */
 public class TradingBalance {
-    private BigDecimal available;
-    private BigDecimal locked;
-
-    public TradingBalance() {
-        this.available = BigDecimal.ZERO;
-        this.locked = BigDecimal.ZERO;
-    }
-
-    public void deposit(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) < 0) {
-            throw new IllegalArgumentException("Amount must be positive");
-        }
-        this.available = this.available.add(amount);
-    }
-
-    public void withdraw(BigDecimal amount) {
-        if (this.available.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Not enough available balance");
-        }
-        this.available = this.available.subtract(amount);
-    }
-
-    public void lock(BigDecimal amount) {
-        if (this.available.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Not enough available balance");
-        }
-        this.locked = this.locked.add(amount);
-        this.available = this.available.subtract(amount);
-    }
-
-    public void consumeLocked(BigDecimal amount) {
-        if (this.locked.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Not enough locked balance");
-        }
-        this.locked = this.locked.subtract(amount);
-    }
+    private final long available;
+    private final long locked;
 
-    public void unlock(BigDecimal amount) {
-        if (this.locked.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Not enough locked balance");
-        }
-        this.locked = this.locked.subtract(amount);
-        this.available = this.available.add(amount);
+    public TradingBalance(long available, long locked) {
+        this.available = available;
+        this.locked = locked;
     }
 
-    public BigDecimal getLocked() {
+    public long getLocked() {
         return locked;
     }
 
-    public BigDecimal getAvailable() {
+    public long getAvailable() {
         return available;
     }
 }
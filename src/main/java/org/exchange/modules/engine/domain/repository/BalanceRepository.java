@@ -0,0 +1,15 @@
+package org.exchange.modules.engine.domain.repository;
+
+import org.exchange.modules.engine.domain.model.AssetBalance;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads balances persisted by the balance flusher, never the live balances of the engine.
+ */
+public interface BalanceRepository {
+    List<AssetBalance> findByUserId(Long userId);
+
+    Optional<AssetBalance> findByUserIdAndAssetId(Long userId, Long assetId);
+}
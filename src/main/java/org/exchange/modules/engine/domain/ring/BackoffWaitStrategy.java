@@ -0,0 +1,49 @@
+package org.exchange.modules.engine.domain.ring;
+
+/**
+ * Progressive backoff: spins, then yields, then blocks until signalled.
+ * A burst of orders is picked up without a wake up, a long idle period costs no CPU.
+ */
+public final class BackoffWaitStrategy implements WaitStrategy {
+    private final int spinTries;
+    private final int yieldTries;
+    private final BlockingWaitStrategy blocking = new BlockingWaitStrategy();
+    private volatile long yields;
+
+    public BackoffWaitStrategy(int spinTries, int yieldTries) {
+        if (spinTries < 0 || yieldTries < 0) {
+            throw new IllegalArgumentException("Spin and yield tries must not be negative");
+        }
+        this.spinTries = spinTries;
+        this.yieldTries = yieldTries;
+    }
+
+    @Override
+    public void waitFor(long sequence, EventRingBuffer ring) throws InterruptedException {
+        for (int i = 0; i < spinTries; i++) {
+            if (ring.isAvailable(sequence)) return;
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < yieldTries; i++) {
+            if (ring.isAvailable(sequence)) return;
+            yields++;
+            Thread.yield();
+        }
+        blocking.waitFor(sequence, ring);
+    }
+
+    @Override
+    public void signal() {
+        blocking.signal();
+    }
+
+    @Override
+    public long parkCount() {
+        return blocking.parkCount();
+    }
+
+    @Override
+    public long yieldCount() {
+        return yields;
+    }
+}
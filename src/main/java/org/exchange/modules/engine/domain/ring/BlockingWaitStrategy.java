@@ -0,0 +1,51 @@
+package org.exchange.modules.engine.domain.ring;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks the consumer until a producer publishes. No CPU used when idle, but every wake up pays for unpark.
+ */
+public final class BlockingWaitStrategy implements WaitStrategy {
+    private volatile Thread consumerThread;
+    private volatile boolean consumerWaiting;
+    private volatile long parks;
+
+    @Override
+    public void waitFor(long sequence, EventRingBuffer ring) throws InterruptedException {
+        if (ring.isAvailable(sequence)) {
+            return;
+        }
+        consumerThread = Thread.currentThread();
+        while (true) {
+            consumerWaiting = true;
+            // re-check after announcing, a producer that published before the flag was set did not unpark us
+            if (ring.isAvailable(sequence)) {
+                consumerWaiting = false;
+                return;
+            }
+            parks++;
+            LockSupport.park(this);
+            consumerWaiting = false;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+        if (consumerWaiting) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    @Override
+    public long parkCount() {
+        return parks;
+    }
+
+    @Override
+    public long yieldCount() {
+        return 0L;
+    }
+}
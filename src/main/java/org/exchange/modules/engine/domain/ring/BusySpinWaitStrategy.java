@@ -0,0 +1,32 @@
+package org.exchange.modules.engine.domain.ring;
+
+/**
+ * Polls the slot in a tight loop. Lowest latency, occupies a whole core, use only with a dedicated one.
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void waitFor(long sequence, EventRingBuffer ring) throws InterruptedException {
+        while (!ring.isAvailable(sequence)) {
+            Thread.onSpinWait();
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+        // consumer never sleeps
+    }
+
+    @Override
+    public long parkCount() {
+        return 0L;
+    }
+
+    @Override
+    public long yieldCount() {
+        return 0L;
+    }
+}
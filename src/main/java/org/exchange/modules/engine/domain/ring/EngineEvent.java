@@ -0,0 +1,112 @@
+package org.exchange.modules.engine.domain.ring;
+
+import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable slot of EventRingBuffer. Producers write fields of one event into it, the matching worker reads them.
+ * Price and amount are kept as received (for the journal) and already scaled to instrument ticks and lots.
+ */
+public final class EngineEvent implements JournalModelEvent {
+    private EventType type;
+    private String clientOrderId;
+    private long userId;
+    private Side side;
+    private long instrumentId;
+    private long assetId;
+    private BigDecimal amount;
+    private BigDecimal price;
+    private long priceTicks;
+    private long amountLots;
+
+    public void setOrder(
+            String clientOrderId,
+            long userId,
+            Side side,
+            long instrumentId,
+            BigDecimal amount,
+            BigDecimal price,
+            long priceTicks,
+            long amountLots
+    ) {
+        this.type = EventType.ORDER_NEW;
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.side = side;
+        this.instrumentId = instrumentId;
+        this.assetId = 0L;
+        this.amount = amount;
+        this.price = price;
+        this.priceTicks = priceTicks;
+        this.amountLots = amountLots;
+    }
+
+    public void setCancel(String clientOrderId, long userId, long instrumentId) {
+        this.type = EventType.ORDER_CANCEL;
+        this.clientOrderId = clientOrderId;
+        this.userId = userId;
+        this.side = null;
+        this.instrumentId = instrumentId;
+        this.assetId = 0L;
+        this.amount = null;
+        this.price = null;
+        this.priceTicks = 0L;
+        this.amountLots = 0L;
+    }
+
+    public void setDeposit(long userId, long assetId, BigDecimal amount) {
+        this.type = EventType.BALANCE_DEPOSIT;
+        this.clientOrderId = null;
+        this.userId = userId;
+        this.side = null;
+        this.instrumentId = 0L;
+        this.assetId = assetId;
+        this.amount = amount;
+        this.price = null;
+        this.priceTicks = 0L;
+        this.amountLots = 0L;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public long getInstrumentId() {
+        return instrumentId;
+    }
+
+    public long getAssetId() {
+        return assetId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public long getAmountLots() {
+        return amountLots;
+    }
+}
@@ -0,0 +1,141 @@
+package org.exchange.modules.engine.domain.ring;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated multi-producer, single-consumer ring of EngineEvent slots (Disruptor style).
+ *
+ * Producer: seq = claim(), fill get(seq), publish(seq).
+ * Consumer: waitFor(next), read get(next) .. get(highestPublished(next, limit)), release(last read).
+ *
+ * Claiming is one atomic increment, there are no locks and no allocation per event.
+ * Every slot remembers the lap in which it was published, so the consumer can tell a fresh slot from an old one.
+ * halt() wakes a waiting consumer without interrupting it, the consumer checks isHalted() and stops between batches.
+ */
+public final class EventRingBuffer {
+    private static final long FULL_BACKOFF_NANOS = 1_000L;
+
+    private final EngineEvent[] slots;
+    private final int mask;
+    private final int lapShift;
+    private final AtomicIntegerArray publishedLaps;
+    private final AtomicLong claimed = new AtomicLong(-1L);
+    private final AtomicLong consumed = new AtomicLong(-1L);
+    private final WaitStrategy waitStrategy;
+    private volatile boolean halted;
+
+    public EventRingBuffer(int size, WaitStrategy waitStrategy) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two");
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+        this.waitStrategy = waitStrategy;
+        this.slots = new EngineEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new EngineEvent();
+        }
+        this.mask = size - 1;
+        this.lapShift = Integer.numberOfTrailingZeros(size);
+        this.publishedLaps = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            publishedLaps.set(i, -1);
+        }
+    }
+
+    /**
+     * Claims next sequence, waits while the ring is full.
+     */
+    public long claim() {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        while (wrapPoint > consumed.get()) {
+            if (halted) {
+                throw new IllegalStateException("Ring is halted");
+            }
+            LockSupport.parkNanos(FULL_BACKOFF_NANOS);
+        }
+        return sequence;
+    }
+
+    public EngineEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    public void publish(long sequence) {
+        publishedLaps.set((int) sequence & mask, (int) (sequence >>> lapShift));
+        waitStrategy.signal();
+    }
+
+    public boolean isPublished(long sequence) {
+        return publishedLaps.get((int) sequence & mask) == (int) (sequence >>> lapShift);
+    }
+
+    /**
+     * @return last sequence of the contiguous published run starting at from, at most upTo; from - 1 when from is not published
+     */
+    public long highestPublished(long from, long upTo) {
+        for (long sequence = from; sequence <= upTo; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return upTo;
+    }
+
+    /**
+     * @return true when sequence is published or the ring is halted, wait strategies wait for this
+     */
+    public boolean isAvailable(long sequence) {
+        return isPublished(sequence) || halted;
+    }
+
+    /**
+     * Waits until sequence is published or the ring is halted, how is up to the WaitStrategy.
+     * @throws InterruptedException when consumer thread is interrupted while waiting
+     */
+    public void waitFor(long sequence) throws InterruptedException {
+        waitStrategy.waitFor(sequence, this);
+    }
+
+    /**
+     * Stops the consumer: a waiting consumer returns from waitFor, producers waiting for a free slot fail.
+     */
+    public void halt() {
+        halted = true;
+        waitStrategy.signal();
+    }
+
+    public boolean isHalted() {
+        return halted;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Consumer is done with all slots up to and including sequence, producers may reuse them.
+     */
+    public void release(long sequence) {
+        consumed.lazySet(sequence);
+    }
+
+    public long consumedSequence() {
+        return consumed.get();
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Number of claimed events not yet released by the consumer.
+     */
+    public long backlog() {
+        return claimed.get() - consumed.get();
+    }
+}
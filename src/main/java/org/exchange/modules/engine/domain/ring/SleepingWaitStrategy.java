@@ -0,0 +1,53 @@
+package org.exchange.modules.engine.domain.ring;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins a little, then sleeps in short parkNanos steps. Producers never signal, so publishing stays free,
+ * the price is up to one sleep of latency after an idle period.
+ */
+public final class SleepingWaitStrategy implements WaitStrategy {
+    private final int spinTries;
+    private final long sleepNanos;
+    private volatile long parks;
+
+    public SleepingWaitStrategy(int spinTries, long sleepNanos) {
+        if (spinTries < 0 || sleepNanos <= 0) {
+            throw new IllegalArgumentException("Spin tries must not be negative and sleep must be positive");
+        }
+        this.spinTries = spinTries;
+        this.sleepNanos = sleepNanos;
+    }
+
+    @Override
+    public void waitFor(long sequence, EventRingBuffer ring) throws InterruptedException {
+        int tries = spinTries;
+        while (!ring.isAvailable(sequence)) {
+            if (tries > 0) {
+                tries--;
+                Thread.onSpinWait();
+            } else {
+                parks++;
+                LockSupport.parkNanos(this, sleepNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+        // consumer wakes up on its own
+    }
+
+    @Override
+    public long parkCount() {
+        return parks;
+    }
+
+    @Override
+    public long yieldCount() {
+        return 0L;
+    }
+}
@@ -0,0 +1,29 @@
+package org.exchange.modules.engine.domain.ring;
+
+/**
+ * How the ring consumer waits for the next event. One instance per ring, it is used by a single consumer thread.
+ * Cheaper wake up costs CPU: blocking parks until a producer signals, busy spin burns a whole core.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Returns once sequence is published or the ring is halted (EventRingBuffer.isAvailable).
+     * @throws InterruptedException when consumer thread is interrupted while waiting
+     */
+    void waitFor(long sequence, EventRingBuffer ring) throws InterruptedException;
+
+    /**
+     * Called by producer after every publish, wakes the consumer if the strategy parks it.
+     */
+    void signal();
+
+    /**
+     * @return how many times the consumer parked (blocked or slept)
+     */
+    long parkCount();
+
+    /**
+     * @return how many times the consumer yielded its core
+     */
+    long yieldCount();
+}
@@ -0,0 +1,46 @@
+package org.exchange.modules.engine.domain.ring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the wait strategy of matching workers from app.engine.wait-strategy and app.engine.wait.* settings.
+ */
+@Component
+public class WaitStrategyFactory {
+    private static final Logger log = LoggerFactory.getLogger(WaitStrategyFactory.class);
+
+    private final WaitStrategyType type;
+    private final int spinTries;
+    private final int yieldTries;
+    private final long sleepNanos;
+
+    public WaitStrategyFactory(
+            @Value("${app.engine.wait-strategy:BLOCKING}") WaitStrategyType type,
+            @Value("${app.engine.wait.spin-tries:100}") int spinTries,
+            @Value("${app.engine.wait.yield-tries:100}") int yieldTries,
+            @Value("${app.engine.wait.sleep-nanos:100000}") long sleepNanos
+    ) {
+        this.type = type;
+        this.spinTries = spinTries;
+        this.yieldTries = yieldTries;
+        this.sleepNanos = sleepNanos;
+        log.info("Matching workers wait strategy: {}", type);
+    }
+
+    public WaitStrategyType getType() {
+        return type;
+    }
+
+    public WaitStrategy create() {
+        return switch (type) {
+            case BLOCKING -> new BlockingWaitStrategy();
+            case SLEEPING -> new SleepingWaitStrategy(spinTries, sleepNanos);
+            case YIELDING -> new YieldingWaitStrategy(spinTries);
+            case BUSY_SPIN -> new BusySpinWaitStrategy();
+            case BACKOFF -> new BackoffWaitStrategy(spinTries, yieldTries);
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package org.exchange.modules.engine.domain.ring;
+
+public enum WaitStrategyType {
+    BLOCKING,
+    SLEEPING,
+    YIELDING,
+    BUSY_SPIN,
+    BACKOFF
+}
@@ -0,0 +1,48 @@
+package org.exchange.modules.engine.domain.ring;
+
+/**
+ * Spins a little, then keeps yielding the core. Low latency while leaving the core to other runnable threads.
+ */
+public final class YieldingWaitStrategy implements WaitStrategy {
+    private final int spinTries;
+    private volatile long yields;
+
+    public YieldingWaitStrategy(int spinTries) {
+        if (spinTries < 0) {
+            throw new IllegalArgumentException("Spin tries must not be negative");
+        }
+        this.spinTries = spinTries;
+    }
+
+    @Override
+    public void waitFor(long sequence, EventRingBuffer ring) throws InterruptedException {
+        int tries = spinTries;
+        while (!ring.isAvailable(sequence)) {
+            if (tries > 0) {
+                tries--;
+                Thread.onSpinWait();
+            } else {
+                yields++;
+                Thread.yield();
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+        // consumer never sleeps
+    }
+
+    @Override
+    public long parkCount() {
+        return 0L;
+    }
+
+    @Override
+    public long yieldCount() {
+        return yields;
+    }
+}
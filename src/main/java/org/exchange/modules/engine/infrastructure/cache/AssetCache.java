@@ -18,6 +18,7 @@ public class AssetCache {
     private final Logger log = LoggerFactory.getLogger(AssetCache.class);
     private final AssetRepository assetRepository;
     private final Map<String, Asset> assetCache = new ConcurrentHashMap<>();
+    private final Map<Long, Asset> assetsById = new ConcurrentHashMap<>();
 
     public AssetCache(AssetRepository assetRepository) {
         this.assetRepository = assetRepository;
@@ -28,9 +29,11 @@ public class AssetCache {
         List<Asset> assets = assetRepository.findAll();
 
         assetCache.clear();
+        assetsById.clear();
 
         for (Asset asset : assets) {
             assetCache.put(asset.getSymbol(), asset);
+            assetsById.put(asset.getId(), asset);
         }
 
         log.info("AssetCache loaded {} assets", assetCache.size());
@@ -40,6 +43,10 @@ public class AssetCache {
         return Optional.ofNullable(assetCache.get(symbol));
     }
 
+    public Optional<Asset> getAssetById(Long id) {
+        return Optional.ofNullable(assetsById.get(id));
+    }
+
     public Long getAssetId(String symbol) {
         return assetCache.get(symbol).getId();
     }
@@ -47,5 +54,6 @@ public class AssetCache {
     @PreDestroy
     public void destroy() {
         assetCache.clear();
+        assetsById.clear();
     }
 }
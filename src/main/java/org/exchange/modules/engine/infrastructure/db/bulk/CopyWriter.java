@@ -0,0 +1,79 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Encodes rows in COPY text format (tab separated, newline terminated) and sends them in chunks.
+ * Null is written as \N, strings get backslash, tab and line breaks escaped.
+ */
+final class CopyWriter implements AutoCloseable {
+    private final CopyIn copy;
+    private final StringBuilder rows;
+    private final int bufferSize;
+
+    CopyWriter(Connection connection, String table, int bufferSize) throws SQLException {
+        this.copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY " + table + " FROM STDIN");
+        this.rows = new StringBuilder(bufferSize + 256);
+        this.bufferSize = bufferSize;
+    }
+
+    void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                rows.append('\t');
+            }
+            Object value = values[i];
+            if (value == null) {
+                rows.append("\\N");
+            } else if (value instanceof String text) {
+                escape(text);
+            } else {
+                rows.append(value);
+            }
+        }
+        rows.append('\n');
+        if (rows.length() >= bufferSize) {
+            flush();
+        }
+    }
+
+    private void escape(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> rows.append("\\\\");
+                case '\t' -> rows.append("\\t");
+                case '\n' -> rows.append("\\n");
+                case '\r' -> rows.append("\\r");
+                default -> rows.append(c);
+            }
+        }
+    }
+
+    void end() throws SQLException {
+        flush();
+        copy.endCopy();
+    }
+
+    private void flush() throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        // ended copies are no longer active, a failed one is cancelled so the connection can roll back
+        if (copy.isActive()) {
+            copy.cancelCopy();
+        }
+    }
+}
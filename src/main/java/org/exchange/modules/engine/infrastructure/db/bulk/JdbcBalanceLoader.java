@@ -0,0 +1,86 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.exchange.modules.engine.domain.BalanceChanges;
+import org.exchange.modules.engine.domain.model.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Upserts drained balances into the balances table with multi-row statements, INSERT ... ON CONFLICT on PostgreSQL,
+ * MERGE ... KEY on H2. One flush is one transaction, so readers never see half of it.
+ */
+@Component
+public class JdbcBalanceLoader {
+    private static final Logger log = LoggerFactory.getLogger(JdbcBalanceLoader.class);
+    private static final String COLUMNS = "balances (user_id, asset_id, available, locked, updated_at)";
+    private static final String POSTGRES_UPSERT_SUFFIX = " ON CONFLICT (user_id, asset_id) DO UPDATE SET "
+            + "available = EXCLUDED.available, locked = EXCLUDED.locked, updated_at = EXCLUDED.updated_at";
+
+    private final DataSource dataSource;
+    private final int rowsPerStatement;
+    private Boolean postgres;
+
+    public JdbcBalanceLoader(
+            DataSource dataSource,
+            @Value("${app.sync.bulk.rows-per-statement:500}") int rowsPerStatement
+    ) {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("Rows per statement must be positive");
+        }
+        this.dataSource = dataSource;
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    public void write(BalanceChanges changes) throws SQLException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (postgres == null) {
+                postgres = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+                log.info("Balance loader uses {}", postgres ? "INSERT ... ON CONFLICT" : "MERGE ... KEY");
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                OffsetDateTime now = Instant.now().atOffset(ZoneOffset.UTC);
+                for (int from = 0; from < changes.size(); from += rowsPerStatement) {
+                    int count = Math.min(rowsPerStatement, changes.size() - from);
+                    try (PreparedStatement statement = connection.prepareStatement(upsertSql(count))) {
+                        int parameter = 1;
+                        for (int i = from; i < from + count; i++) {
+                            statement.setLong(parameter++, changes.userId(i));
+                            statement.setLong(parameter++, changes.assetId(i));
+                            statement.setBigDecimal(parameter++, FixedPoint.fromUnits(changes.available(i)));
+                            statement.setBigDecimal(parameter++, FixedPoint.fromUnits(changes.locked(i)));
+                            statement.setObject(parameter++, now);
+                        }
+                        statement.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private String upsertSql(int rows) {
+        return postgres
+                ? JdbcBulkLoader.insertSql(COLUMNS, 5, rows) + POSTGRES_UPSERT_SUFFIX
+                : "MERGE INTO " + COLUMNS + " KEY (user_id, asset_id)" + JdbcBulkLoader.values(5, rows);
+    }
+}
@@ -0,0 +1,292 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.exchange.modules.engine.domain.entity.DepositEntity;
+import org.exchange.modules.engine.domain.entity.OrderEntity;
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Writes syncer batches straight through JDBC, without entities or the persistence context.
+ *
+ * On PostgreSQL rows are streamed with COPY ... FROM STDIN in text format, other databases (H2) get multi-row
+ * INSERT statements. Ids are taken from the pooled sequences of OrderEntity / DepositEntity, one round trip
+ * per batch at most. Orders and deposits of one batch and the syncer checkpoint are written in one transaction.
+ *
+ * Inserts are idempotent by journal sequence (unique journal_sequence column): records at or below the highest
+ * sequence found in a table at start are checked against the table and skipped when present. Those are the records
+ * written after the last checkpoint before a restart, in steady state no check is made. A failed write raises
+ * the horizon past its rows, its commit may have gone through before the error (a connection lost while the
+ * commit was acknowledged), so the retry checks them too instead of hitting the unique index for ever.
+ * Records of the unstamped journal formats (v0, v2) carry no sequence, they are written with a NULL journal_sequence
+ * and never checked: when such records are replayed after a restart, the ones written after the last checkpoint
+ * are inserted again.
+ */
+@Component
+public class JdbcBulkLoader {
+    private static final Logger log = LoggerFactory.getLogger(JdbcBulkLoader.class);
+    private static final String ORDER_COLUMNS =
+            "orders (id, user_id, side, instrument_id, amount, price, created_at, journal_sequence)";
+    private static final String DEPOSIT_COLUMNS = "deposits (id, user_id, asset_id, amount, created_at, journal_sequence)";
+
+    private final DataSource dataSource;
+    private final int rowsPerStatement;
+    private final int copyBufferSize;
+    private PooledIdAllocator orderIds;
+    private PooledIdAllocator depositIds;
+    private boolean postgres;
+    // highest journal sequence of each table at start or of a failed write, lower sequences may already be written
+    private volatile long orderHorizon;
+    private volatile long depositHorizon;
+
+    public JdbcBulkLoader(
+            DataSource dataSource,
+            @Value("${app.sync.bulk.rows-per-statement:500}") int rowsPerStatement,
+            @Value("${app.sync.bulk.copy-buffer-size:65536}") int copyBufferSize
+    ) {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("Rows per statement must be positive");
+        }
+        this.dataSource = dataSource;
+        this.rowsPerStatement = rowsPerStatement;
+        this.copyBufferSize = copyBufferSize;
+    }
+
+    /**
+     * Writes the rows not written yet and moves the checkpoint to position, in one transaction.
+     * Nothing is written when it fails.
+     */
+    public void write(JournalRows rows, String checkpoint, long position) throws SQLException {
+        try {
+            writeRows(rows, checkpoint, position);
+        } catch (SQLException | RuntimeException e) {
+            raiseHorizons(rows);
+            throw e;
+        }
+    }
+
+    private void writeRows(JournalRows rows, String checkpoint, long position) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            init(connection);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Instant now = Instant.now();
+                List<Order> orders = rows.orders();
+                int[] keep = missing(connection, "orders", "journal_sequence", orders.size(), rows::orderSequence, orderHorizon);
+                if (keep.length > 0) {
+                    long[] ids = new long[keep.length];
+                    orderIds.allocate(connection, ids, keep.length);
+                    if (postgres) {
+                        copyOrders(connection, rows, keep, ids, now);
+                    } else {
+                        insertOrders(connection, rows, keep, ids, now);
+                    }
+                }
+                List<Deposit> deposits = rows.deposits();
+                keep = missing(connection, "deposits", "journal_sequence", deposits.size(), rows::depositSequence, depositHorizon);
+                if (keep.length > 0) {
+                    long[] ids = new long[keep.length];
+                    depositIds.allocate(connection, ids, keep.length);
+                    if (postgres) {
+                        copyDeposits(connection, rows, keep, ids, now);
+                    } else {
+                        insertDeposits(connection, rows, keep, ids, now);
+                    }
+                }
+                SyncCheckpoints.save(connection, checkpoint, position, now);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private synchronized void raiseHorizons(JournalRows rows) {
+        for (int i = 0; i < rows.orders().size(); i++) {
+            orderHorizon = Math.max(orderHorizon, rows.orderSequence(i));
+        }
+        for (int i = 0; i < rows.deposits().size(); i++) {
+            depositHorizon = Math.max(depositHorizon, rows.depositSequence(i));
+        }
+    }
+
+    private synchronized void init(Connection connection) throws SQLException {
+        if (orderIds != null) {
+            return;
+        }
+        String product = connection.getMetaData().getDatabaseProductName();
+        postgres = "PostgreSQL".equalsIgnoreCase(product);
+        orderHorizon = Math.max(orderHorizon, maxSequence(connection, "orders", "journal_sequence"));
+        depositHorizon = Math.max(depositHorizon, maxSequence(connection, "deposits", "journal_sequence"));
+        orderIds = new PooledIdAllocator(OrderEntity.ID_SEQUENCE, OrderEntity.ID_ALLOCATION_SIZE, postgres);
+        depositIds = new PooledIdAllocator(DepositEntity.ID_SEQUENCE, DepositEntity.ID_ALLOCATION_SIZE, postgres);
+        log.info("Bulk loader uses {} on {}, journal sequences written up to {} (orders), {} (deposits)",
+                postgres ? "COPY" : "multi-row INSERT", product, orderHorizon, depositHorizon);
+    }
+
+    static long maxSequence(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT max(" + column + ") FROM " + table);
+             ResultSet result = statement.executeQuery()) {
+            return result.next() ? result.getLong(1) : 0L;
+        }
+    }
+
+    /**
+     * @return indexes of rows to insert, rows whose sequence is already in the column are left out
+     */
+    static int[] missing(Connection connection, String table, String column, int count, IntToLongFunction sequences,
+                         long horizon) throws SQLException {
+        int[] keep = new int[count];
+        List<Long> candidates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keep[i] = i;
+            long sequence = sequences.applyAsLong(i);
+            if (sequence > 0L && sequence <= horizon) {
+                candidates.add(sequence);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return keep;
+        }
+        Set<Long> present = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + column + " FROM " + table + " WHERE " + column + " = ANY (?)")) {
+            statement.setArray(1, connection.createArrayOf("BIGINT", candidates.toArray()));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    present.add(result.getLong(1));
+                }
+            }
+        }
+        if (present.isEmpty()) {
+            return keep;
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!present.contains(sequences.applyAsLong(i))) {
+                keep[kept++] = i;
+            }
+        }
+        log.info("Skipped {} {} already written", count - kept, table);
+        return Arrays.copyOf(keep, kept);
+    }
+
+    private void copyOrders(Connection connection, JournalRows rows, int[] keep, long[] ids, Instant now) throws SQLException {
+        try (CopyWriter copy = new CopyWriter(connection, ORDER_COLUMNS, copyBufferSize)) {
+            for (int i = 0; i < keep.length; i++) {
+                Order order = rows.orders().get(keep[i]);
+                copy.row(ids[i], order.getUserId(), order.getSide().name(), order.getInstrumentId(),
+                        order.getAmount().toPlainString(), order.getPrice().toPlainString(),
+                        createdAt(rows.orderTimestamp(keep[i]), now).toString(),
+                        sequenceOrNull(rows.orderSequence(keep[i])));
+            }
+            copy.end();
+        }
+    }
+
+    private void copyDeposits(Connection connection, JournalRows rows, int[] keep, long[] ids, Instant now) throws SQLException {
+        try (CopyWriter copy = new CopyWriter(connection, DEPOSIT_COLUMNS, copyBufferSize)) {
+            for (int i = 0; i < keep.length; i++) {
+                Deposit deposit = rows.deposits().get(keep[i]);
+                copy.row(ids[i], deposit.getUserId(), deposit.getAssetId(), deposit.getAmount().toPlainString(),
+                        createdAt(rows.depositTimestamp(keep[i]), now).toString(),
+                        sequenceOrNull(rows.depositSequence(keep[i])));
+            }
+            copy.end();
+        }
+    }
+
+    private void insertOrders(Connection connection, JournalRows rows, int[] keep, long[] ids, Instant now) throws SQLException {
+        for (int from = 0; from < keep.length; from += rowsPerStatement) {
+            int count = Math.min(rowsPerStatement, keep.length - from);
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(ORDER_COLUMNS, 8, count))) {
+                int parameter = 1;
+                for (int i = from; i < from + count; i++) {
+                    Order order = rows.orders().get(keep[i]);
+                    statement.setLong(parameter++, ids[i]);
+                    statement.setLong(parameter++, order.getUserId());
+                    statement.setString(parameter++, order.getSide().name());
+                    statement.setLong(parameter++, order.getInstrumentId());
+                    statement.setBigDecimal(parameter++, order.getAmount());
+                    statement.setBigDecimal(parameter++, order.getPrice());
+                    statement.setObject(parameter++, createdAt(rows.orderTimestamp(keep[i]), now).atOffset(ZoneOffset.UTC));
+                    statement.setObject(parameter++, sequenceOrNull(rows.orderSequence(keep[i])), Types.BIGINT);
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void insertDeposits(Connection connection, JournalRows rows, int[] keep, long[] ids, Instant now) throws SQLException {
+        for (int from = 0; from < keep.length; from += rowsPerStatement) {
+            int count = Math.min(rowsPerStatement, keep.length - from);
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(DEPOSIT_COLUMNS, 6, count))) {
+                int parameter = 1;
+                for (int i = from; i < from + count; i++) {
+                    Deposit deposit = rows.deposits().get(keep[i]);
+                    statement.setLong(parameter++, ids[i]);
+                    statement.setLong(parameter++, deposit.getUserId());
+                    statement.setLong(parameter++, deposit.getAssetId());
+                    statement.setBigDecimal(parameter++, deposit.getAmount());
+                    statement.setObject(parameter++, createdAt(rows.depositTimestamp(keep[i]), now).atOffset(ZoneOffset.UTC));
+                    statement.setObject(parameter++, sequenceOrNull(rows.depositSequence(keep[i])), Types.BIGINT);
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Time the engine journaled the record, sync time for unstamped records.
+     */
+    static Instant createdAt(long timestampNanos, Instant now) {
+        return timestampNanos > 0L
+                ? Instant.ofEpochSecond(timestampNanos / 1_000_000_000L, timestampNanos % 1_000_000_000L)
+                : now;
+    }
+
+    // unstamped journal records have no sequence, and so no duplicate check
+    private static Long sequenceOrNull(long sequence) {
+        return sequence > 0L ? sequence : null;
+    }
+
+    static String insertSql(String table, int columns, int rows) {
+        return "INSERT INTO " + table + values(columns, rows);
+    }
+
+    /**
+     * @return " VALUES (?, ...), ..." for rows rows of columns parameters
+     */
+    static String values(int columns, int rows) {
+        StringBuilder row = new StringBuilder("(?");
+        row.append(", ?".repeat(columns - 1)).append(')');
+        StringBuilder sql = new StringBuilder(8 + rows * (row.length() + 2));
+        sql.append(" VALUES ").append(row);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", ").append(row);
+        }
+        return sql.toString();
+    }
+}
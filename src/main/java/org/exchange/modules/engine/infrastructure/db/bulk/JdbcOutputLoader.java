@@ -0,0 +1,217 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.exchange.modules.engine.domain.entity.TradeEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes batches of the output journal: trades are appended (COPY on PostgreSQL, multi-row INSERT elsewhere),
+ * order states are upserted with multi-row statements, one row per order per batch (see OutputRows).
+ * Both and the syncer checkpoint go in one transaction.
+ *
+ * Replays are harmless: trades are idempotent by output_sequence like JdbcBulkLoader rows by journal sequence,
+ * an order state only replaces a row with a lower last_sequence. The acceptance time and amount of an order are kept
+ * when a later batch only holds its fills.
+ */
+@Component
+public class JdbcOutputLoader {
+    private static final Logger log = LoggerFactory.getLogger(JdbcOutputLoader.class);
+    private static final String TRADE_COLUMNS = "trades (id, instrument_id, price, quantity, taker_user_id, "
+            + "taker_client_order_id, taker_side, maker_user_id, maker_client_order_id, source_sequence, output_sequence, "
+            + "created_at)";
+    private static final String STATUS_COLUMNS = "user_id, client_order_id, instrument_id, side, price, amount, remaining, "
+            + "status, reject_reason, created_at, updated_at, last_sequence";
+    private static final String POSTGRES_UPSERT_SUFFIX = " ON CONFLICT (user_id, client_order_id) DO UPDATE SET "
+            + "instrument_id = EXCLUDED.instrument_id, side = EXCLUDED.side, price = EXCLUDED.price, "
+            + "amount = COALESCE(EXCLUDED.amount, order_status.amount), "
+            + "created_at = CASE WHEN EXCLUDED.amount IS NULL THEN order_status.created_at ELSE EXCLUDED.created_at END, "
+            + "remaining = EXCLUDED.remaining, status = EXCLUDED.status, reject_reason = EXCLUDED.reject_reason, "
+            + "updated_at = EXCLUDED.updated_at, last_sequence = EXCLUDED.last_sequence "
+            + "WHERE order_status.last_sequence < EXCLUDED.last_sequence";
+    // H2 needs the types of the source rows spelled out
+    private static final String MERGE_ROW = "(CAST(? AS BIGINT), CAST(? AS VARCHAR(36)), CAST(? AS BIGINT), "
+            + "CAST(? AS VARCHAR(4)), CAST(? AS NUMERIC(20, 8)), CAST(? AS NUMERIC(20, 8)), CAST(? AS NUMERIC(20, 8)), "
+            + "CAST(? AS VARCHAR(16)), CAST(? AS VARCHAR(24)), CAST(? AS TIMESTAMP(6) WITH TIME ZONE), "
+            + "CAST(? AS TIMESTAMP(6) WITH TIME ZONE), CAST(? AS BIGINT))";
+    private static final String MERGE_SUFFIX = ") AS s (" + STATUS_COLUMNS + ") "
+            + "ON t.user_id = s.user_id AND t.client_order_id = s.client_order_id "
+            + "WHEN MATCHED AND t.last_sequence < s.last_sequence THEN UPDATE SET "
+            + "instrument_id = s.instrument_id, side = s.side, price = s.price, "
+            + "amount = COALESCE(s.amount, t.amount), "
+            + "created_at = CASE WHEN s.amount IS NULL THEN t.created_at ELSE s.created_at END, "
+            + "remaining = s.remaining, status = s.status, reject_reason = s.reject_reason, "
+            + "updated_at = s.updated_at, last_sequence = s.last_sequence "
+            + "WHEN NOT MATCHED THEN INSERT (" + STATUS_COLUMNS + ") VALUES (s.user_id, s.client_order_id, "
+            + "s.instrument_id, s.side, s.price, s.amount, s.remaining, s.status, s.reject_reason, s.created_at, "
+            + "s.updated_at, s.last_sequence)";
+
+    private final DataSource dataSource;
+    private final int rowsPerStatement;
+    private final int copyBufferSize;
+    private PooledIdAllocator tradeIds;
+    private boolean postgres;
+    // highest output sequence in trades at start or of a failed write, lower sequences may already be written
+    private volatile long tradeHorizon;
+
+    public JdbcOutputLoader(
+            DataSource dataSource,
+            @Value("${app.sync.bulk.rows-per-statement:500}") int rowsPerStatement,
+            @Value("${app.sync.bulk.copy-buffer-size:65536}") int copyBufferSize
+    ) {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("Rows per statement must be positive");
+        }
+        this.dataSource = dataSource;
+        this.rowsPerStatement = rowsPerStatement;
+        this.copyBufferSize = copyBufferSize;
+    }
+
+    /**
+     * Writes trades not written yet, upserts order states and moves the checkpoint to position, in one transaction.
+     */
+    public void write(OutputRows rows, String checkpoint, long position) throws SQLException {
+        try {
+            writeRows(rows, checkpoint, position);
+        } catch (SQLException | RuntimeException e) {
+            // the commit may have gone through before the error, the retry checks these trades against the table
+            raiseHorizon(rows);
+            throw e;
+        }
+    }
+
+    private void writeRows(OutputRows rows, String checkpoint, long position) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            init(connection);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                List<OutputRows.Trade> trades = rows.trades();
+                int[] keep = JdbcBulkLoader.missing(connection, "trades", "output_sequence", trades.size(),
+                        i -> trades.get(i).outputSequence(), tradeHorizon);
+                if (keep.length > 0) {
+                    long[] ids = new long[keep.length];
+                    tradeIds.allocate(connection, ids, keep.length);
+                    if (postgres) {
+                        copyTrades(connection, trades, keep, ids);
+                    } else {
+                        insertTrades(connection, trades, keep, ids);
+                    }
+                }
+                upsertStates(connection, new ArrayList<>(rows.orders()));
+                SyncCheckpoints.save(connection, checkpoint, position, Instant.now());
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private synchronized void raiseHorizon(OutputRows rows) {
+        for (OutputRows.Trade trade : rows.trades()) {
+            tradeHorizon = Math.max(tradeHorizon, trade.outputSequence());
+        }
+    }
+
+    private synchronized void init(Connection connection) throws SQLException {
+        if (tradeIds != null) {
+            return;
+        }
+        postgres = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        tradeHorizon = Math.max(tradeHorizon, JdbcBulkLoader.maxSequence(connection, "trades", "output_sequence"));
+        tradeIds = new PooledIdAllocator(TradeEntity.ID_SEQUENCE, TradeEntity.ID_ALLOCATION_SIZE, postgres);
+        log.info("Output loader uses {}, output sequences written up to {} (trades)",
+                postgres ? "COPY and INSERT ... ON CONFLICT" : "multi-row INSERT and MERGE", tradeHorizon);
+    }
+
+    private void copyTrades(Connection connection, List<OutputRows.Trade> trades, int[] keep, long[] ids) throws SQLException {
+        Instant now = Instant.now();
+        try (CopyWriter copy = new CopyWriter(connection, TRADE_COLUMNS, copyBufferSize)) {
+            for (int i = 0; i < keep.length; i++) {
+                OutputRows.Trade trade = trades.get(keep[i]);
+                copy.row(ids[i], trade.instrumentId(), trade.price().toPlainString(), trade.quantity().toPlainString(),
+                        trade.takerUserId(), trade.takerClientOrderId(), trade.takerSide().name(), trade.makerUserId(),
+                        trade.makerClientOrderId(), trade.sourceSequence(), trade.outputSequence(),
+                        JdbcBulkLoader.createdAt(trade.timestampNanos(), now).toString());
+            }
+            copy.end();
+        }
+    }
+
+    private void insertTrades(Connection connection, List<OutputRows.Trade> trades, int[] keep, long[] ids) throws SQLException {
+        Instant now = Instant.now();
+        for (int from = 0; from < keep.length; from += rowsPerStatement) {
+            int count = Math.min(rowsPerStatement, keep.length - from);
+            try (PreparedStatement statement = connection.prepareStatement(JdbcBulkLoader.insertSql(TRADE_COLUMNS, 12, count))) {
+                int parameter = 1;
+                for (int i = from; i < from + count; i++) {
+                    OutputRows.Trade trade = trades.get(keep[i]);
+                    statement.setLong(parameter++, ids[i]);
+                    statement.setLong(parameter++, trade.instrumentId());
+                    statement.setBigDecimal(parameter++, trade.price());
+                    statement.setBigDecimal(parameter++, trade.quantity());
+                    statement.setLong(parameter++, trade.takerUserId());
+                    statement.setString(parameter++, trade.takerClientOrderId());
+                    statement.setString(parameter++, trade.takerSide().name());
+                    statement.setLong(parameter++, trade.makerUserId());
+                    statement.setString(parameter++, trade.makerClientOrderId());
+                    statement.setLong(parameter++, trade.sourceSequence());
+                    statement.setLong(parameter++, trade.outputSequence());
+                    statement.setObject(parameter++, JdbcBulkLoader.createdAt(trade.timestampNanos(), now).atOffset(ZoneOffset.UTC));
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void upsertStates(Connection connection, List<OutputRows.OrderState> states) throws SQLException {
+        Instant now = Instant.now();
+        for (int from = 0; from < states.size(); from += rowsPerStatement) {
+            int count = Math.min(rowsPerStatement, states.size() - from);
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(count))) {
+                int parameter = 1;
+                for (int i = from; i < from + count; i++) {
+                    OutputRows.OrderState state = states.get(i);
+                    statement.setLong(parameter++, state.key().userId());
+                    statement.setString(parameter++, state.key().clientOrderId());
+                    statement.setLong(parameter++, state.instrumentId());
+                    statement.setString(parameter++, state.side().name());
+                    statement.setBigDecimal(parameter++, state.price());
+                    statement.setBigDecimal(parameter++, state.amount());
+                    statement.setBigDecimal(parameter++, state.remaining());
+                    statement.setString(parameter++, state.status().name());
+                    statement.setString(parameter++, state.rejectReason().name());
+                    statement.setObject(parameter++, JdbcBulkLoader.createdAt(state.createdAtNanos(), now).atOffset(ZoneOffset.UTC));
+                    statement.setObject(parameter++, JdbcBulkLoader.createdAt(state.updatedAtNanos(), now).atOffset(ZoneOffset.UTC));
+                    statement.setLong(parameter++, state.lastSequence());
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private String upsertSql(int rows) {
+        if (postgres) {
+            return JdbcBulkLoader.insertSql("order_status (" + STATUS_COLUMNS + ")", 12, rows) + POSTGRES_UPSERT_SUFFIX;
+        }
+        StringBuilder sql = new StringBuilder(256 + rows * (MERGE_ROW.length() + 2) + MERGE_SUFFIX.length());
+        sql.append("MERGE INTO order_status t USING (VALUES ").append(MERGE_ROW);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", ").append(MERGE_ROW);
+        }
+        return sql.append(MERGE_SUFFIX).toString();
+    }
+}
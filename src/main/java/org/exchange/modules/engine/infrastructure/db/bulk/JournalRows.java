@@ -0,0 +1,70 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Orders and deposits read from the input journal, each with its journal sequence and append time
+ * (both 0 for unstamped records). The sequence makes the insert idempotent, unstamped records are not,
+ * see JdbcBulkLoader.
+ */
+public final class JournalRows {
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Deposit> deposits = new ArrayList<>();
+    private long[] orderSequences = new long[16];
+    private long[] orderTimestamps = new long[16];
+    private long[] depositSequences = new long[16];
+    private long[] depositTimestamps = new long[16];
+
+    public void addOrder(long sequence, long timestampNanos, Order order) {
+        orderSequences = ensure(orderSequences, orders.size());
+        orderTimestamps = ensure(orderTimestamps, orders.size());
+        orderSequences[orders.size()] = sequence;
+        orderTimestamps[orders.size()] = timestampNanos;
+        orders.add(order);
+    }
+
+    public void addDeposit(long sequence, long timestampNanos, Deposit deposit) {
+        depositSequences = ensure(depositSequences, deposits.size());
+        depositTimestamps = ensure(depositTimestamps, deposits.size());
+        depositSequences[deposits.size()] = sequence;
+        depositTimestamps[deposits.size()] = timestampNanos;
+        deposits.add(deposit);
+    }
+
+    public List<Order> orders() {
+        return orders;
+    }
+
+    public List<Deposit> deposits() {
+        return deposits;
+    }
+
+    public long orderSequence(int index) {
+        return orderSequences[index];
+    }
+
+    public long depositSequence(int index) {
+        return depositSequences[index];
+    }
+
+    public long orderTimestamp(int index) {
+        return orderTimestamps[index];
+    }
+
+    public long depositTimestamp(int index) {
+        return depositTimestamps[index];
+    }
+
+    public boolean isEmpty() {
+        return orders.isEmpty() && deposits.isEmpty();
+    }
+
+    private static long[] ensure(long[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+}
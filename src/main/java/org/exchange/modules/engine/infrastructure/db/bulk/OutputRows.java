@@ -0,0 +1,184 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.exchange.modules.engine.domain.EventRecordView;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.OrderStatus;
+import org.exchange.modules.engine.domain.model.RejectReason;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trades and order states of one batch of the output journal.
+ *
+ * Every trade is kept, state changes are collapsed per order: an order accepted, partially filled and filled
+ * within the batch becomes one row holding the last state, the amount and time of its acceptance.
+ */
+public final class OutputRows {
+    private final List<Trade> trades = new ArrayList<>();
+    private final Map<OrderKey, OrderState> orders = new LinkedHashMap<>();
+    private int stateChanges;
+
+    /**
+     * Copies a record out of the view, records other than trades and order states are ignored.
+     */
+    public void add(EventRecordView record) {
+        EventType type = record.type();
+        if (type == EventType.TRADE) {
+            trades.add(new Trade(
+                    record.sequence(),
+                    record.sourceSequence(),
+                    record.timestampNanos(),
+                    record.instrumentId(),
+                    record.price(),
+                    record.amount(),
+                    record.userId(),
+                    record.clientOrderId(),
+                    record.side(),
+                    record.counterpartyUserId(),
+                    record.counterpartyClientOrderId()
+            ));
+            return;
+        }
+        if (type != EventType.ORDER_ACCEPTED && type != EventType.ORDER_REJECTED && type != EventType.ORDER_PARTIALLY_FILLED
+                && type != EventType.ORDER_FILLED && type != EventType.ORDER_CANCELLED) {
+            return;
+        }
+        RejectReason reason = record.rejectReason();
+        if (reason == RejectReason.DUPLICATE) {
+            // the client order id belongs to an earlier order, its row must stay
+            return;
+        }
+        stateChanges++;
+        OrderKey key = new OrderKey(record.userId(), record.clientOrderId());
+        OrderState state = orders.computeIfAbsent(key, k -> new OrderState(k, record.instrumentId(), record.side()));
+        BigDecimal amount = record.amount();
+        if (type == EventType.ORDER_ACCEPTED || type == EventType.ORDER_REJECTED) {
+            state.amount = amount;
+            state.createdAtNanos = record.timestampNanos();
+        }
+        // rejected orders carry their amount, nothing of it is open
+        state.remaining = type == EventType.ORDER_REJECTED ? BigDecimal.ZERO : amount;
+        state.price = record.price();
+        state.status = OrderStatus.of(type);
+        state.rejectReason = reason;
+        state.updatedAtNanos = record.timestampNanos();
+        state.lastSequence = record.sequence();
+    }
+
+    public List<Trade> trades() {
+        return trades;
+    }
+
+    public Collection<OrderState> orders() {
+        return orders.values();
+    }
+
+    /**
+     * @return order state records read, orders().size() of them are written
+     */
+    public int stateChanges() {
+        return stateChanges;
+    }
+
+    public boolean isEmpty() {
+        return trades.isEmpty() && orders.isEmpty();
+    }
+
+    /**
+     * @param outputSequence output journal sequence of the trade, unique key of the row
+     * @param sourceSequence input journal sequence of the taker order
+     */
+    public record Trade(
+            long outputSequence,
+            long sourceSequence,
+            long timestampNanos,
+            long instrumentId,
+            BigDecimal price,
+            BigDecimal quantity,
+            long takerUserId,
+            String takerClientOrderId,
+            Side takerSide,
+            long makerUserId,
+            String makerClientOrderId
+    ) {
+    }
+
+    public record OrderKey(long userId, String clientOrderId) {
+    }
+
+    /**
+     * Last state of an order within the batch. amount is null when the batch does not hold the acceptance.
+     */
+    public static final class OrderState {
+        private final OrderKey key;
+        private final long instrumentId;
+        private final Side side;
+        private BigDecimal price;
+        private BigDecimal amount;
+        private BigDecimal remaining;
+        private OrderStatus status;
+        private RejectReason rejectReason;
+        private long createdAtNanos;
+        private long updatedAtNanos;
+        private long lastSequence;
+
+        private OrderState(OrderKey key, long instrumentId, Side side) {
+            this.key = key;
+            this.instrumentId = instrumentId;
+            this.side = side;
+        }
+
+        public OrderKey key() {
+            return key;
+        }
+
+        public long instrumentId() {
+            return instrumentId;
+        }
+
+        public Side side() {
+            return side;
+        }
+
+        public BigDecimal price() {
+            return price;
+        }
+
+        public BigDecimal amount() {
+            return amount;
+        }
+
+        public BigDecimal remaining() {
+            return remaining;
+        }
+
+        public OrderStatus status() {
+            return status;
+        }
+
+        public RejectReason rejectReason() {
+            return rejectReason;
+        }
+
+        /**
+         * @return time of the acceptance, of the last state when the batch does not hold it
+         */
+        public long createdAtNanos() {
+            return amount != null ? createdAtNanos : updatedAtNanos;
+        }
+
+        public long updatedAtNanos() {
+            return updatedAtNanos;
+        }
+
+        public long lastSequence() {
+            return lastSequence;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hands out ids of a database sequence the way Hibernate's pooled optimizer does: a sequence value v
+ * reserves ids (v - allocationSize, v], so rows written by JPA and by the bulk loader never collide.
+ * Several blocks are fetched in one round trip, ids left over from a batch are kept for the next one.
+ */
+final class PooledIdAllocator {
+    private final String sequence;
+    private final int allocationSize;
+    private final boolean postgres;
+    private long next = 1L;
+    private long limit;
+
+    PooledIdAllocator(String sequence, int allocationSize, boolean postgres) {
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException("Allocation size must be positive");
+        }
+        this.sequence = sequence;
+        this.allocationSize = allocationSize;
+        this.postgres = postgres;
+    }
+
+    /**
+     * Reserves count ids, written into ids[0..count). Ids are ascending but not necessarily consecutive.
+     */
+    synchronized void allocate(Connection connection, long[] ids, int count) throws SQLException {
+        int filled = 0;
+        while (filled < count && next <= limit) {
+            ids[filled++] = next++;
+        }
+        if (filled == count) {
+            return;
+        }
+        String sql = postgres
+                ? "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)"
+                : "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            // the first value of a fresh sequence covers a single id, so one more round may be needed
+            while (filled < count) {
+                statement.setInt(1, (count - filled + allocationSize - 1) / allocationSize);
+                int before = filled;
+                try (ResultSet values = statement.executeQuery()) {
+                    while (values.next()) {
+                        long value = values.getLong(1);
+                        next = Math.max(1L, value - allocationSize + 1);
+                        limit = value;
+                        while (filled < count && next <= limit) {
+                            ids[filled++] = next++;
+                        }
+                    }
+                }
+                if (filled == before) {
+                    throw new SQLException("Sequence " + sequence + " returned no values");
+                }
+            }
+        }
+    }
+}
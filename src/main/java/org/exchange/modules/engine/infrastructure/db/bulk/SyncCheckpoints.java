@@ -0,0 +1,97 @@
+package org.exchange.modules.engine.infrastructure.db.bulk;
+
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.OptionalLong;
+
+/**
+ * Journal positions of syncer partitions in the sync_checkpoints table, one row per partition named syncer#partition.
+ * A partition moves its row in the transaction that writes its records (see JdbcBulkLoader), so the table
+ * never claims records that are not in the database. A syncer resumes from the lowest row.
+ */
+@Component
+public class SyncCheckpoints {
+    private final DataSource dataSource;
+
+    public SyncCheckpoints(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return lowest position over partitions of the syncer, empty when it has never checkpointed
+     */
+    public OptionalLong resume(String syncer) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT min(journal_position), count(*) FROM sync_checkpoints WHERE name LIKE ?")) {
+            statement.setString(1, syncer + "#%");
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getLong(2) == 0L ? OptionalLong.empty() : OptionalLong.of(result.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Sets partitions 0..partitions-1 of the syncer to position and removes the others, in one transaction.
+     * Run before the partitions start, so every partition has a row no later than what it has written.
+     */
+    public void reset(String syncer, int partitions, long position) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM sync_checkpoints WHERE name LIKE ?")) {
+                    statement.setString(1, syncer + "#%");
+                    statement.executeUpdate();
+                }
+                Instant now = Instant.now();
+                for (int i = 0; i < partitions; i++) {
+                    save(connection, name(syncer, i), position, now);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    public static String name(String syncer, int partition) {
+        return syncer + "#" + partition;
+    }
+
+    /**
+     * Moves one checkpoint within the caller's transaction, the row is owned by a single writer.
+     */
+    static void save(Connection connection, String name, long position, Instant now) throws SQLException {
+        OffsetDateTime updatedAt = now.atOffset(ZoneOffset.UTC);
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE sync_checkpoints SET journal_position = ?, updated_at = ? WHERE name = ?")) {
+            update.setLong(1, position);
+            update.setObject(2, updatedAt);
+            update.setString(3, name);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO sync_checkpoints (name, journal_position, updated_at) VALUES (?, ?, ?)")) {
+            insert.setString(1, name);
+            insert.setLong(2, position);
+            insert.setObject(3, updatedAt);
+            insert.executeUpdate();
+        }
+    }
+}
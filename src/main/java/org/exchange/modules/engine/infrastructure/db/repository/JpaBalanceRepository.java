@@ -0,0 +1,40 @@
+package org.exchange.modules.engine.infrastructure.db.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.exchange.modules.engine.domain.entity.BalanceEntity;
+import org.exchange.modules.engine.domain.model.AssetBalance;
+import org.exchange.modules.engine.domain.repository.BalanceRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Repository
+public class JpaBalanceRepository implements BalanceRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AssetBalance> findByUserId(Long userId) {
+        return em.createQuery(
+                        "SELECT b FROM BalanceEntity b WHERE b.userId = :userId ORDER BY b.assetId",
+                        BalanceEntity.class
+                )
+                .setParameter("userId", userId)
+                .getResultStream()
+                .map(BalanceEntity::toDomain)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AssetBalance> findByUserIdAndAssetId(Long userId, Long assetId) {
+        BalanceEntity entity = em.find(BalanceEntity.class, new BalanceEntity.Key(userId, assetId));
+        return Optional.ofNullable(entity).map(BalanceEntity::toDomain);
+    }
+}
@@ -0,0 +1,12 @@
+package org.exchange.modules.engine.infrastructure.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record BalanceView(
+        String asset,
+        BigDecimal available,
+        BigDecimal locked,
+        Instant updatedAt // last flush of the balance, it lags the engine by up to app.sync.balances.interval-ms
+) {
+}
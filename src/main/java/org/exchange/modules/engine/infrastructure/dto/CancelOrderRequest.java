@@ -0,0 +1,16 @@
+package org.exchange.modules.engine.infrastructure.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record CancelOrderRequest(
+        @NotBlank( message = "client order id cannot be empty")
+        @Size(max = 36, message = "client order id cannot be longer than 36 characters")
+        String clientOrderId,
+        @NotNull( message = "User cannot be empty")
+        Long userId,
+        @NotBlank( message = "Symbol cannot be empty")
+        String symbol
+) {
+}
@@ -1,5 +1,6 @@
 package org.exchange.modules.engine.infrastructure.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -9,6 +10,7 @@ public record DepositAssetRequest(
         @NotBlank(message = "Asset cannot be blank")
         String asset,
         @NotNull(message = "Amount cannot be null")
+        @Digits(integer = 10, fraction = 8, message = "Amount can have at most 8 decimal places")
         BigDecimal amount,
         @NotNull(message = "User ID cannot be null")
         Long userId
@@ -0,0 +1,17 @@
+package org.exchange.modules.engine.infrastructure.dto;
+
+import org.exchange.modules.engine.domain.journal.JournalStats;
+
+import java.util.List;
+
+public record EngineStatsView(
+        List<WorkerStats> workers,
+        JournalStats journal
+) {
+    /**
+     * @param backlog events published to the worker's ring and not yet processed
+     * @param parks   times the worker parked while waiting for events
+     * @param yields  times the worker yielded its core while waiting for events
+     */
+    public record WorkerStats(int worker, String waitStrategy, long backlog, long parks, long yields) {}
+}
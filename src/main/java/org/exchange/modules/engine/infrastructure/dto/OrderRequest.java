@@ -3,6 +3,7 @@ package org.exchange.modules.engine.infrastructure.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import org.exchange.modules.engine.domain.model.Side;
 import org.exchange.modules.engine.infrastructure.validator.ValidOrder;
 
@@ -11,6 +12,7 @@ import java.math.BigDecimal;
 @ValidOrder
 public record OrderRequest(
         @NotBlank( message = "client order id cannot be empty")
+        @Size(max = 36, message = "client order id cannot be longer than 36 characters")
         String clientOrderId,
         @NotNull( message = "User cannot be empty")
         Long userId,
@@ -0,0 +1,36 @@
+package org.exchange.modules.engine.infrastructure.rest;
+
+import org.exchange.modules.engine.domain.MatchingEngine;
+import org.exchange.modules.engine.infrastructure.dto.EngineStatsView;
+import org.exchange.modules.engine.infrastructure.sync.JournalDatabaseSyncer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/engine")
+public class EngineStatusController {
+
+    private final MatchingEngine matchingEngine;
+    private final JournalDatabaseSyncer syncer;
+
+    public EngineStatusController(MatchingEngine matchingEngine, JournalDatabaseSyncer syncer) {
+        this.matchingEngine = matchingEngine;
+        this.syncer = syncer;
+    }
+
+    @GetMapping("/stats")
+    public EngineStatsView getStats() {
+        return matchingEngine.getStats();
+    }
+
+    /**
+     * Lag, throughput, batch size and backpressure of the journal to DB sync.
+     */
+    @GetMapping("/sync")
+    public JournalDatabaseSyncer.SyncStatus getSyncStatus() throws IOException {
+        return syncer.getStatus();
+    }
+}
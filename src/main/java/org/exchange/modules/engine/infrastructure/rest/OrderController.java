@@ -3,10 +3,15 @@ package org.exchange.modules.engine.infrastructure.rest;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.validation.Valid;
 import org.exchange.modules.core.domain.message.JobBusInterface;
+import org.exchange.modules.engine.application.job.CancelOrderJob;
 import org.exchange.modules.engine.application.job.SendOrderJob;
 import org.exchange.modules.engine.infrastructure.cache.InstrumentCache;
+import org.exchange.modules.engine.infrastructure.dto.CancelOrderRequest;
 import org.exchange.modules.engine.infrastructure.dto.OrderRequest;
+import org.exchange.modules.engine.infrastructure.sync.JournalDatabaseSyncer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,21 +20,34 @@ import org.springframework.web.bind.annotation.*;
 final public class OrderController {
     private final JobBusInterface jobBus;
     private final String queueUrl;
+    private final String cancelQueueUrl;
     private final InstrumentCache instrumentCache;
+    private final JournalDatabaseSyncer syncer;
 
     public OrderController(
             JobBusInterface jobBus,
             @Value("${app.sqs.queue-name}") String queueUrl,
-            InstrumentCache instrumentCache
+            @Value("${app.sqs.queue-cancel-name}") String cancelQueueUrl,
+            InstrumentCache instrumentCache,
+            JournalDatabaseSyncer syncer
     ) {
         this.jobBus = jobBus;
         this.queueUrl = queueUrl;
+        this.cancelQueueUrl = cancelQueueUrl;
         this.instrumentCache = instrumentCache;
+        this.syncer = syncer;
     }
 
     @PostMapping
     public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest request) throws JsonProcessingException
     {
+        // new orders wait while the DB sync is too far behind, cancels still go through
+        if (syncer.isBackpressured()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Exchange is busy, retry later");
+        }
+
         Long instrumentId = instrumentCache.getIdBySymbol(request.symbol());
 
         if (instrumentId == null) {
@@ -53,4 +71,24 @@ final public class OrderController {
 
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/cancel")
+    public ResponseEntity<?> cancelOrder(@Valid @RequestBody CancelOrderRequest request)
+    {
+        Long instrumentId = instrumentCache.getIdBySymbol(request.symbol());
+
+        if (instrumentId == null) {
+            return ResponseEntity.badRequest().body("Instrument not found");
+        }
+
+        CancelOrderJob job = new CancelOrderJob(
+                request.clientOrderId(),
+                request.userId(),
+                instrumentId
+        );
+
+        jobBus.send(cancelQueueUrl, job, "orders-group");
+
+        return ResponseEntity.ok().build();
+    }
 }
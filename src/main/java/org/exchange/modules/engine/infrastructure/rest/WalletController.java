@@ -4,13 +4,20 @@ import jakarta.validation.Valid;
 import org.exchange.modules.core.domain.message.JobBusInterface;
 import org.exchange.modules.engine.application.job.DepositJob;
 import org.exchange.modules.engine.domain.BalanceManager;
+import org.exchange.modules.engine.domain.model.Asset;
+import org.exchange.modules.engine.domain.model.AssetBalance;
+import org.exchange.modules.engine.domain.repository.BalanceRepository;
 import org.exchange.modules.engine.infrastructure.cache.AssetCache;
 import org.exchange.modules.engine.infrastructure.cache.InstrumentCache;
+import org.exchange.modules.engine.infrastructure.dto.BalanceView;
 import org.exchange.modules.engine.infrastructure.dto.DepositAssetRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/api/wallet")
 final public class WalletController {
@@ -18,17 +25,20 @@ final public class WalletController {
     private final String queueUrl;
     private final AssetCache assetCache;
     private final BalanceManager balanceManager;
+    private final BalanceRepository balanceRepository;
 
     public WalletController(
             JobBusInterface jobBus,
             @Value("${app.sqs.queue-deposit-name}") String queueUrl,
             AssetCache assetCache,
-            BalanceManager balanceManager
+            BalanceManager balanceManager,
+            BalanceRepository balanceRepository
     ) {
         this.jobBus = jobBus;
         this.queueUrl = queueUrl;
         this.assetCache = assetCache;
         this.balanceManager = balanceManager;
+        this.balanceRepository = balanceRepository;
     }
 
     @PostMapping("/deposit")
@@ -50,6 +60,35 @@ final public class WalletController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Balances from the balances table, the engine is not touched. They lag the engine by up to one flush interval.
+     */
+    @GetMapping("/{userId}/balances")
+    public ResponseEntity<List<BalanceView>> getBalances(@PathVariable Long userId) {
+        List<BalanceView> balances = balanceRepository.findByUserId(userId).stream()
+                .map(this::toView)
+                .toList();
+        return ResponseEntity.ok(balances);
+    }
+
+    @GetMapping("/{userId}/balances/{asset}")
+    public ResponseEntity<?> getBalance(@PathVariable Long userId, @PathVariable String asset) {
+        Optional<Asset> found = assetCache.getAssetBySymbol(asset);
+        if (found.isEmpty()) {
+            return ResponseEntity.badRequest().body("Asset not found");
+        }
+        return balanceRepository.findByUserIdAndAssetId(userId, found.get().getId())
+                .map(balance -> ResponseEntity.ok(toView(balance)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private BalanceView toView(AssetBalance balance) {
+        String asset = assetCache.getAssetById(balance.getAssetId())
+                .map(Asset::getSymbol)
+                .orElse(String.valueOf(balance.getAssetId()));
+        return new BalanceView(asset, balance.getAvailable(), balance.getLocked(), balance.getUpdatedAt());
+    }
+
     //TODO: remove only for testing
     @GetMapping("/balance")
     public ResponseEntity<?> getBalance() {
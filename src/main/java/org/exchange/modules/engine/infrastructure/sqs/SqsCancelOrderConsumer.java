@@ -0,0 +1,24 @@
+package org.exchange.modules.engine.infrastructure.sqs;
+
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import org.exchange.modules.engine.application.job.CancelOrderJob;
+import org.exchange.modules.engine.application.jobHandler.CancelOrderJobHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SqsCancelOrderConsumer {
+    private static final Logger log = LoggerFactory.getLogger(SqsCancelOrderConsumer.class);
+    private final CancelOrderJobHandler jobHandler;
+
+    public SqsCancelOrderConsumer(CancelOrderJobHandler jobHandler) {
+        this.jobHandler = jobHandler;
+    }
+
+    @SqsListener(value = "${app.sqs.queue-cancel-name}")
+    public void listen(CancelOrderJob job) {
+        log.info("Processing cancel: {}", job);
+        jobHandler.handle(job);
+    }
+}
@@ -0,0 +1,105 @@
+package org.exchange.modules.engine.infrastructure.sync;
+
+/**
+ * Batch size and poll cadence of the syncer, driven by the record lag and the measured commit latency of batches.
+ *
+ * The size is adjusted on every committed batch. Behind by more than a batch it doubles, so a catch-up runs in
+ * few large transactions; near real time it halves, down to the minimum. Either way it is capped by what the last
+ * commit suggests fits in the target latency (records * target / latency), which keeps batches that are still
+ * queued from pushing it around. Near real time a small poll lingers up to maxLinger (never longer than a commit
+ * takes), so that a handful of records does not cost a transaction per writer.
+ *
+ * Used by the reader thread only, the figures read by getStatus() are volatile.
+ */
+final class AdaptiveBatching {
+    // weight of the newest commit in the average latency
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetLatencyNanos;
+    private final long maxLingerNanos;
+
+    private volatile int batchSize;
+    private volatile double avgLatencyNanos;
+    private volatile double recordsPerSecond;
+    private long windowStart;
+    private long windowRecords;
+    private long lag;
+
+    AdaptiveBatching(int minBatchSize, int maxBatchSize, long targetLatencyNanos, long maxLingerNanos) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Batch sizes must satisfy 0 < min <= max");
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.maxLingerNanos = maxLingerNanos;
+        this.batchSize = minBatchSize;
+        this.windowStart = System.nanoTime();
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * A batch of records was committed by all writers, latency is the write time of its slowest part.
+     */
+    void committed(int records, long latencyNanos, long now) {
+        avgLatencyNanos = avgLatencyNanos == 0.0
+                ? latencyNanos
+                : avgLatencyNanos + LATENCY_WEIGHT * (latencyNanos - avgLatencyNanos);
+        windowRecords += records;
+        sample(now);
+
+        long size = batchSize;
+        if (lag > size) {
+            size *= 2;
+        } else if (lag < size / 2) {
+            size /= 2;
+        }
+        if (latencyNanos > 0L) {
+            size = Math.min(size, (long) (records * (double) targetLatencyNanos / latencyNanos));
+        }
+        batchSize = (int) Math.max(minBatchSize, Math.min(maxBatchSize, size));
+    }
+
+    /**
+     * Closes the throughput window once it is a second long, called also when nothing is committed.
+     */
+    void sample(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            recordsPerSecond = windowRecords * 1_000_000_000.0 / elapsed;
+            windowRecords = 0L;
+            windowStart = now;
+        }
+    }
+
+    /**
+     * @param lag committed journal records not read yet, seen by the last poll
+     */
+    void polled(long lag) {
+        this.lag = lag;
+    }
+
+    /**
+     * @return nanoseconds to wait before the next poll, 0 unless a small poll found the syncer near real time
+     */
+    long lingerNanos(int read, long lag) {
+        if (read == 0 || read >= minBatchSize || lag >= minBatchSize) {
+            return 0L;
+        }
+        return Math.min(maxLingerNanos, (long) avgLatencyNanos);
+    }
+
+    long avgLatencyMicros() {
+        return (long) avgLatencyNanos / 1_000L;
+    }
+
+    long recordsPerSecond() {
+        return Math.round(recordsPerSecond);
+    }
+}
@@ -0,0 +1,82 @@
+package org.exchange.modules.engine.infrastructure.sync;
+
+import org.exchange.modules.engine.domain.BalanceChanges;
+import org.exchange.modules.engine.domain.BalanceManager;
+import org.exchange.modules.engine.infrastructure.db.bulk.JdbcBalanceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Persists balances changed since the last flush into the balances table, once per interval on the scheduler thread.
+ *
+ * BalanceManager tracks changed (user, asset) pairs, a flush drains them under the balance lock (a copy of the
+ * changed values only) and upserts them outside of it, so the engine waits for a copy and never for the DB.
+ * A balance changed many times within the interval is written once, the write volume follows activity and not
+ * the number of users. When the upsert fails the pairs are marked changed again and go out with the next flush,
+ * with their values by then.
+ *
+ * The table lags the engine by up to interval-ms. A restored snapshot marks all its balances changed,
+ * so the first flush after a start rewrites them.
+ */
+@Component
+public class BalanceDatabaseFlusher {
+    private static final Logger log = LoggerFactory.getLogger(BalanceDatabaseFlusher.class);
+
+    private final BalanceManager balanceManager;
+    private final JdbcBalanceLoader loader;
+    private final boolean enabled;
+    private final BalanceChanges changes = new BalanceChanges(1024);
+
+    public BalanceDatabaseFlusher(
+            BalanceManager balanceManager,
+            JdbcBalanceLoader loader,
+            @Value("${app.sync.balances.enabled:true}") boolean enabled
+    ) {
+        this.balanceManager = balanceManager;
+        this.loader = loader;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.sync.balances.interval-ms:1000}",
+            fixedDelayString = "${app.sync.balances.interval-ms:1000}"
+    )
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * @return number of balances written, 0 also when the write failed
+     */
+    public synchronized int flush() {
+        changes.clear();
+        int drained = balanceManager.drainChanges(changes);
+        if (drained == 0) {
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            loader.write(changes);
+            log.debug("Flushed {} balances in {} us", drained, (System.nanoTime() - start) / 1_000L);
+            return drained;
+        } catch (Exception e) {
+            log.error("Balance flush of {} balances failed, will retry", drained, e);
+            balanceManager.retainChanges(changes);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (enabled) {
+            flush();
+        }
+    }
+}
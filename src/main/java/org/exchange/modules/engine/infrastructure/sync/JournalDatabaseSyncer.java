@@ -1,10 +1,13 @@
 package org.exchange.modules.engine.infrastructure.sync;
 
 import org.exchange.modules.engine.domain.journal.ExchangeEventJournal;
+import org.exchange.modules.engine.domain.journal.EventTailer;
 import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.EventType;
 import org.exchange.modules.engine.domain.model.Order;
-import org.exchange.modules.engine.domain.repository.DepositRepository;
-import org.exchange.modules.engine.domain.repository.OrderRepository;
+import org.exchange.modules.engine.infrastructure.db.bulk.JdbcBulkLoader;
+import org.exchange.modules.engine.infrastructure.db.bulk.JournalRows;
+import org.exchange.modules.engine.infrastructure.db.bulk.SyncCheckpoints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,8 +19,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.OptionalLong;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -25,45 +30,82 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Asynchronous syncer that reads from OrderJournal and persists to database.
- * Runs in a separate thread to avoid blocking the MatchingEngine.
+ * Runs in separate threads to avoid blocking the MatchingEngine.
  * 
  * Key features:
  * - Non-blocking: MatchingEngine never waits for DB
  * - Batch processing: Accumulates orders before DB write
- * - Offset tracking: Remembers position in journal file
+ * - Bulk writes: Batches go through JdbcBulkLoader (COPY / multi-row INSERT)
+ * - Parallel writes: One reader decodes records and fans them out to writers partitioned by entity type and
+ *   instrument (asset for deposits), every writer commits on its own connection (see SyncWriter)
+ * - Offset tracking: Every writer keeps its journal position in sync_checkpoints, moved in the transaction of its
+ *   records, and inserts of stamped records are idempotent by journal sequence. A restart resumes from the lowest writer checkpoint
+ * - Push based: The tailer is woken up when the engine commits, poll-interval-ms only bounds the wait
+ * - Adaptive: Batch size and poll cadence follow the lag and the commit latency (see AdaptiveBatching)
+ * - Backpressure: Over backpressure-lag committed journal records not in the DB, isBackpressured() tells
+ *   ingress to hold off, it clears at half the threshold
  * - Fault tolerant: Retries on failure
  */
 @Component
 public class JournalDatabaseSyncer {
     
     private static final Logger log = LoggerFactory.getLogger(JournalDatabaseSyncer.class);
+    private static final String TAILER_NAME = "db-syncer";
+    private static final long WRITER_JOIN_TIMEOUT_MS = 5_000L;
     
     private final ExchangeEventJournal journal;
-    private final OrderRepository orderRepository;
-    private final DepositRepository depositRepository;
+    private final JdbcBulkLoader bulkLoader;
+    private final SyncCheckpoints checkpoints;
     private final ExecutorService executor;
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private final SyncWriter[] writers;
+    private final int writerQueueSize;
+    // read by the reader thread only, oldest batch first
+    private final Deque<SyncWriter.Batch> pending = new ArrayDeque<>();
+    private long dispatchedPosition;
+    // position all writers have committed
+    private volatile long committedPosition;
     
+    // offset file of older versions, read once when there are no checkpoints yet
     private final Path offsetPath;
-    private final int batchSize;
+    private final AdaptiveBatching batching;
     private final long pollIntervalMs;
+    private final long backpressureLag;
+    private volatile boolean backpressured;
+    // journal sequences of the last record read and the last record committed by all writers, -1 until known
+    private long readSequence = -1L;
+    private long committedSequence = -1L;
+    private volatile long lagRecords;
     
-    private long currentOffset = 0;
+    private EventTailer tailer;
     
     public JournalDatabaseSyncer(
             ExchangeEventJournal journal,
-            OrderRepository orderRepository,
-            DepositRepository depositRepository,
+            JdbcBulkLoader bulkLoader,
+            SyncCheckpoints checkpoints,
             @Value("${app.sync.offset-path:data/sync-offset.txt}") String offsetPathStr,
-            @Value("${app.sync.batch-size:1000}") int batchSize,
-            @Value("${app.sync.poll-interval-ms:100}") long pollIntervalMs
+            @Value("${app.sync.batch-size:5000}") int batchSize,
+            @Value("${app.sync.poll-interval-ms:100}") long pollIntervalMs,
+            @Value("${app.sync.adaptive.min-batch-size:100}") int minBatchSize,
+            @Value("${app.sync.adaptive.target-commit-ms:250}") long targetCommitMs,
+            @Value("${app.sync.adaptive.max-linger-ms:5}") long maxLingerMs,
+            @Value("${app.sync.backpressure-lag:0}") long backpressureLag,
+            @Value("${app.sync.writers:4}") int writerCount,
+            @Value("${app.sync.writer-queue-size:8}") int writerQueueSize
     ) {
+        if (writerCount < 1 || writerQueueSize < 1) {
+            throw new IllegalArgumentException("Writers and writer queue size must be positive");
+        }
         this.journal = journal;
-        this.orderRepository = orderRepository;
-        this.depositRepository = depositRepository;
+        this.bulkLoader = bulkLoader;
+        this.checkpoints = checkpoints;
         this.offsetPath = Paths.get(offsetPathStr);
-        this.batchSize = batchSize;
+        this.batching = new AdaptiveBatching(Math.min(minBatchSize, batchSize), batchSize,
+                TimeUnit.MILLISECONDS.toNanos(targetCommitMs), TimeUnit.MILLISECONDS.toNanos(maxLingerMs));
         this.pollIntervalMs = pollIntervalMs;
+        this.backpressureLag = backpressureLag;
+        this.writers = new SyncWriter[writerCount];
+        this.writerQueueSize = writerQueueSize;
         this.executor = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r, "journal-db-syncer");
             t.setDaemon(false); // Nie daemon - chcemy dokończyć sync przed shutdown
@@ -72,120 +114,276 @@ public class JournalDatabaseSyncer {
     }
     
     @PostConstruct
-    public void start() throws IOException {
-        loadOffset();
+    public void start() throws IOException, SQLException {
+        tailer = journal.tailer(TAILER_NAME);
+        OptionalLong checkpoint = checkpoints.resume(TAILER_NAME);
+        long position = checkpoint.isPresent() ? checkpoint.getAsLong() : legacyPosition();
+        // every writer gets a row, also when the number of writers changed
+        checkpoints.reset(TAILER_NAME, writers.length, position);
+        tailer.seek(position);
+        dispatchedPosition = position;
+        committedPosition = position;
         running.set(true);
+        for (int i = 0; i < writers.length; i++) {
+            String name = SyncCheckpoints.name(TAILER_NAME, i);
+            SyncWriter.Sink sink = (rows, end) -> bulkLoader.write(rows, name, end);
+            writers[i] = new SyncWriter("journal-db-writer-" + i, writerQueueSize, sink, running, pollIntervalMs * 10);
+            writers[i].start();
+        }
         executor.submit(this::syncLoop);
-        log.info("JournalDatabaseSyncer started, offset: {}, batchSize: {}", currentOffset, batchSize);
+        log.info("JournalDatabaseSyncer started, offset: {}, batchSize: {}, writers: {}, backpressureLag: {}",
+                position, batching.batchSize(), writers.length, backpressureLag);
     }
     
     @PreDestroy
     public void stop() {
         log.info("Stopping JournalDatabaseSyncer...");
         running.set(false);
+        tailer.wake();
         executor.shutdown();
         try {
             if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
                 log.warn("Syncer didn't terminate gracefully, forcing shutdown");
                 executor.shutdownNow();
+                // the loop interrupts and joins the writers on its way out
+                if (!executor.awaitTermination(WRITER_JOIN_TIMEOUT_MS * 2, TimeUnit.MILLISECONDS)) {
+                    log.warn("Syncer still running after forced shutdown");
+                }
             }
         } catch (InterruptedException e) {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        tailer.close();
         log.info("JournalDatabaseSyncer stopped");
     }
     
     private void syncLoop() {
-        while (running.get()) {
-            try {
-                //log.info("Syncing orders from offset: {}", currentOffset);
-                List<Order> orderBatch = new ArrayList<>(batchSize);
-                List<Deposit> depositBatch = new ArrayList<>(batchSize);
-                
-                // Czytaj z journal od ostatniego offsetu
-                long newOffset = journal.readFrom(currentOffset, journalModel -> {
-                    if (journalModel instanceof Order order) {
-                        log.info("Processing order: {}", order);
-                        orderBatch.add(order);
-                    } else if (journalModel instanceof Deposit deposit) {
-                        log.info("Reading deposit from journal: {}", deposit);
-                        depositBatch.add(deposit);
-                    }
-                });
-                
-                // Jeśli są nowe ordery, zapisz do DB
-                if (!orderBatch.isEmpty()) {
-                    int saved = orderRepository.saveBatch(orderBatch);
-                    log.debug("Synced {} orders to DB, offset: {} -> {}", saved, currentOffset, newOffset);
-                    
-                    // Zaktualizuj offset tylko po udanym zapisie
-                    currentOffset = newOffset;
-                    saveOffset();
-                }
-                if (!depositBatch.isEmpty()) {
-                    depositRepository.saveBatch(depositBatch);
-                    log.debug("Synced {} deposits to DB, offset: {} -> {}", depositBatch.size(), currentOffset, newOffset);
-
-                    // Zaktualizuj offset tylko po udanym zapisie
-                    currentOffset = newOffset;
-                    saveOffset();
-                }
-                
-                // Poczekaj przed kolejną iteracją
-                Thread.sleep(pollIntervalMs);
-                
-            } catch (InterruptedException e) {
-                log.info("Syncer interrupted");
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                log.error("Error in sync loop, will retry", e);
+        try {
+            while (running.get()) {
                 try {
-                    Thread.sleep(pollIntervalMs * 10); // Dłuższe czekanie po błędzie
-                } catch (InterruptedException ie) {
+                    int read = dispatch();
+                    checkpoint();
+                    long lag = updateLag(read);
+
+                    if (read == 0) {
+                        // woken up by the next journal commit
+                        tailer.await(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    } else {
+                        long linger = batching.lingerNanos(read, lag);
+                        if (linger > 0L) {
+                            TimeUnit.NANOSECONDS.sleep(linger);
+                        }
+                    }
+                } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.error("Error in sync loop, will retry", e);
+                    // records after the last dispatched batch are read again, writers keep what they got
+                    tailer.seek(dispatchedPosition);
+                    try {
+                        Thread.sleep(pollIntervalMs * 10); // Dłuższe czekanie po błędzie
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Syncer interrupted");
                     break;
                 }
             }
+        } finally {
+            stopWriters();
         }
     }
-    
-    private void loadOffset() throws IOException {
-        if (Files.exists(offsetPath)) {
-            String content = Files.readString(offsetPath).trim();
-            currentOffset = Long.parseLong(content);
-            log.info("Loaded offset: {}", currentOffset);
-        } else {
-            log.info("No offset file found, starting from 0");
-            currentOffset = 0;
+
+    /**
+     * Reads one batch and queues its records to the writers of their partitions.
+     * @return number of records read
+     */
+    private int dispatch() throws IOException, InterruptedException {
+        JournalRows[] rows = new JournalRows[writers.length];
+        for (int i = 0; i < writers.length; i++) {
+            rows[i] = new JournalRows();
+        }
+        long fromOffset = tailer.position();
+        long[] sequences = {0L, 0L};
+
+        // Czytaj z journal od ostatniego offsetu
+        int read = tailer.poll(record -> {
+            if (sequences[0] == 0L) {
+                sequences[0] = record.sequence();
+            }
+            sequences[1] = record.sequence();
+            if (record.type() == EventType.ORDER_NEW) {
+                Order order = (Order) record.toEvent();
+                log.debug("Processing order: {}", order);
+                rows[writerOf(order.getInstrumentId(), 0)].addOrder(record.sequence(), record.timestampNanos(), order);
+            } else if (record.type() == EventType.BALANCE_DEPOSIT) {
+                Deposit deposit = (Deposit) record.toEvent();
+                log.debug("Reading deposit from journal: {}", deposit);
+                rows[writerOf(deposit.getAssetId(), 1)].addDeposit(record.sequence(), record.timestampNanos(), deposit);
+            }
+            // cancels are not persisted yet
+        }, batching.batchSize());
+        if (read == 0) {
+            return 0;
+        }
+
+        // empty parts too, so that no writer checkpoint stays behind
+        if (sequences[1] > 0L) {
+            if (committedSequence < 0L) {
+                committedSequence = sequences[0] - 1;
+            }
+            readSequence = sequences[1];
         }
+        SyncWriter.Batch batch = new SyncWriter.Batch(tailer.position(), writers.length, read, sequences[1]);
+        pending.addLast(batch);
+        dispatchedPosition = batch.end();
+        for (int i = 0; i < writers.length; i++) {
+            writers[i].submit(new SyncWriter.Part(batch, rows[i]));
+        }
+        log.debug("Dispatched {} records, offset: {} -> {}", read, fromOffset, batch.end());
+        return read;
     }
-    
-    private void saveOffset() {
+
+    // partition of an entity type and its instrument (asset for deposits)
+    private int writerOf(long key, int entityType) {
+        return Math.floorMod(key * 31 + entityType, writers.length);
+    }
+
+    /**
+     * Moves the committed position past the batches written by all writers, the minimum over partitions.
+     * Writers persist their own checkpoints, this only feeds the status.
+     */
+    private void checkpoint() {
+        long now = System.nanoTime();
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            SyncWriter.Batch batch = pending.pollFirst();
+            committedPosition = batch.end();
+            if (batch.lastSequence() > 0L) {
+                committedSequence = batch.lastSequence();
+            }
+            batching.committed(batch.records(), batch.latencyNanos(), now);
+        }
+        batching.sample(now);
+    }
+
+    /**
+     * Updates the lag gauge, the backpressure signal and the batch size.
+     * @return committed journal records not read yet
+     */
+    private long updateLag(int read) {
+        long last = journal.lastSequence();
+        if (read == 0 && pending.isEmpty()) {
+            // caught up, also covers journals without stamped sequences
+            readSequence = last;
+            committedSequence = last;
+        }
+        long lag = committedSequence < 0L ? 0L : Math.max(0L, last - committedSequence);
+        lagRecords = lag;
+        if (backpressureLag > 0L) {
+            if (!backpressured && lag > backpressureLag) {
+                backpressured = true;
+                log.warn("Sync lag {} records over {}, backpressure on", lag, backpressureLag);
+            } else if (backpressured && lag <= backpressureLag / 2) {
+                backpressured = false;
+                log.info("Sync lag {} records, backpressure off", lag);
+            }
+        }
+        long unread = readSequence < 0L ? 0L : Math.max(0L, last - readSequence);
+        batching.polled(unread);
+        return unread;
+    }
+
+    /**
+     * @return true while the DB is more than backpressure-lag records behind the journal, always false when unset
+     */
+    public boolean isBackpressured() {
+        return backpressured;
+    }
+
+    private void stopWriters() {
+        // a forced stop interrupts this thread, STOP could not even be queued: the writers are interrupted instead
+        boolean interrupted = Thread.interrupted();
+        int stopped = 0;
+        while (!interrupted && stopped < writers.length) {
+            try {
+                writers[stopped].stop();
+                stopped++;
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while stopping writers, interrupting them");
+                interrupted = true;
+            }
+        }
+        for (int i = stopped; i < writers.length; i++) {
+            writers[i].interrupt();
+        }
         try {
-            Files.createDirectories(offsetPath.getParent());
-            Files.writeString(offsetPath, String.valueOf(currentOffset));
-        } catch (IOException e) {
-            log.error("Failed to save offset {}", currentOffset, e);
+            for (int i = stopped; i < writers.length; i++) {
+                if (!writers[i].join(WRITER_JOIN_TIMEOUT_MS)) {
+                    log.warn("Writer {} did not exit {} ms after interrupt", i, WRITER_JOIN_TIMEOUT_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for writers");
+        }
+        checkpoint();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
     
+    /**
+     * Position of versions that kept it in files: the tailer cursor, or the offset file before that.
+     * Taken over into sync_checkpoints on the first start, the files are no longer written.
+     */
+    private long legacyPosition() throws IOException {
+        if (tailer.hasCommittedCursor()) {
+            log.info("Taking over sync offset {} from the tailer cursor", tailer.committedCursor());
+            return tailer.committedCursor();
+        }
+        // the offset file points into an unpartitioned journal
+        if (Files.exists(offsetPath) && !journal.isPartitioned()) {
+            long offset = Long.parseLong(Files.readString(offsetPath).trim());
+            log.info("Taking over sync offset {} from {}", offset, offsetPath);
+            return offset;
+        }
+        return tailer.position();
+    }
+    
     /**
      * Returns current sync status for monitoring.
      */
     public SyncStatus getStatus() throws IOException {
+        // positions of a partitioned journal are sequences
         return new SyncStatus(
-                currentOffset,
-                journal.size(),
-                running.get()
+                committedPosition,
+                journal.isPartitioned() ? journal.lastSequence() + 1 : journal.size(),
+                running.get(),
+                lagRecords,
+                batching.batchSize(),
+                batching.recordsPerSecond(),
+                batching.avgLatencyMicros(),
+                backpressured
         );
     }
     
+    /**
+     * @param lagRecords       committed journal records not in the DB yet
+     * @param batchSize        current adaptive batch size
+     * @param recordsPerSecond records committed to the DB over the last second
+     * @param avgCommitMicros  average write time of a batch, the slowest writer's transaction
+     */
     public record SyncStatus(
             long currentOffset,
             long journalSize,
-            boolean running
+            boolean running,
+            long lagRecords,
+            int batchSize,
+            long recordsPerSecond,
+            long avgCommitMicros,
+            boolean backpressure
     ) {
         public long lag() {
             return journalSize - currentOffset;
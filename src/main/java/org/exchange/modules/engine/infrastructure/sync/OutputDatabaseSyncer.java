@@ -0,0 +1,152 @@
+package org.exchange.modules.engine.infrastructure.sync;
+
+import org.exchange.modules.engine.domain.journal.JournalTailer;
+import org.exchange.modules.engine.domain.journal.OutputJournal;
+import org.exchange.modules.engine.infrastructure.db.bulk.JdbcOutputLoader;
+import org.exchange.modules.engine.infrastructure.db.bulk.OutputRows;
+import org.exchange.modules.engine.infrastructure.db.bulk.SyncCheckpoints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Follows the output journal and keeps the trades and order_status tables, see JdbcOutputLoader.
+ *
+ * One thread reads a batch, collapses the state changes of every order into its last state (OutputRows)
+ * and writes trades, states and the checkpoint in one transaction. A taker sweeping the book turns into
+ * a trade row per fill but only one status row per order touched. Upserts of an order must stay in output order,
+ * so there are no parallel writers like in JournalDatabaseSyncer.
+ */
+@Component
+public class OutputDatabaseSyncer {
+    private static final Logger log = LoggerFactory.getLogger(OutputDatabaseSyncer.class);
+    private static final String TAILER_NAME = "output-db-syncer";
+
+    private final OutputJournal output;
+    private final JdbcOutputLoader loader;
+    private final SyncCheckpoints checkpoints;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final String checkpoint = SyncCheckpoints.name(TAILER_NAME, 0);
+
+    private JournalTailer tailer;
+    // read by the syncer thread only
+    private long committedPosition;
+
+    public OutputDatabaseSyncer(
+            OutputJournal output,
+            JdbcOutputLoader loader,
+            SyncCheckpoints checkpoints,
+            @Value("${app.sync.output.enabled:true}") boolean enabled,
+            @Value("${app.sync.output.batch-size:5000}") int batchSize,
+            @Value("${app.sync.poll-interval-ms:100}") long pollIntervalMs
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.output = output;
+        this.loader = loader;
+        this.checkpoints = checkpoints;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "output-db-syncer");
+            t.setDaemon(false);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    public void start() throws IOException, SQLException {
+        if (!enabled) {
+            log.info("OutputDatabaseSyncer disabled");
+            return;
+        }
+        tailer = output.tailer(TAILER_NAME);
+        OptionalLong resumed = checkpoints.resume(TAILER_NAME);
+        long position = resumed.isPresent() ? resumed.getAsLong() : tailer.position();
+        checkpoints.reset(TAILER_NAME, 1, position);
+        tailer.seek(position);
+        committedPosition = position;
+        running.set(true);
+        executor.submit(this::syncLoop);
+        log.info("OutputDatabaseSyncer started, offset: {}, batchSize: {}", position, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running.getAndSet(false)) {
+            return;
+        }
+        log.info("Stopping OutputDatabaseSyncer...");
+        tailer.wake();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Output syncer didn't terminate gracefully, forcing shutdown");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        tailer.close();
+        log.info("OutputDatabaseSyncer stopped");
+    }
+
+    private void syncLoop() {
+        while (running.get()) {
+            try {
+                if (syncBatch() == 0) {
+                    // woken up by the next output commit
+                    tailer.await(pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (Exception e) {
+                log.error("Error in output sync loop, will retry", e);
+                // nothing of the failed batch was committed
+                tailer.seek(committedPosition);
+                try {
+                    Thread.sleep(pollIntervalMs * 10);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                log.info("Output syncer interrupted");
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return number of records read
+     */
+    private int syncBatch() throws IOException, SQLException {
+        OutputRows rows = new OutputRows();
+        int read = tailer.poll(rows::add, batchSize);
+        if (read == 0) {
+            return 0;
+        }
+        long end = tailer.position();
+        loader.write(rows, checkpoint, end);
+        committedPosition = end;
+        log.debug("Synced {} trades and {} order states ({} state changes), offset: {}",
+                rows.trades().size(), rows.orders().size(), rows.stateChanges(), end);
+        return read;
+    }
+}
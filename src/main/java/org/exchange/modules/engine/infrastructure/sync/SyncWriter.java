@@ -0,0 +1,177 @@
+package org.exchange.modules.engine.infrastructure.sync;
+
+import org.exchange.modules.engine.infrastructure.db.bulk.JournalRows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One writer of the syncer, persists its partition of every batch on its own thread and DB connection,
+ * together with its checkpoint. Every batch has a part for every writer, an empty part only moves the checkpoint.
+ * Parts are written in queue order, a failed part is retried until it succeeds or the syncer stops.
+ * After stopping on a failure the remaining parts are dropped, they are read from the journal again after restart.
+ */
+final class SyncWriter implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(SyncWriter.class);
+    private static final Part STOP = new Part(null, null);
+
+    private final String name;
+    private final BlockingQueue<Part> queue;
+    private final Sink sink;
+    private final AtomicBoolean running;
+    private final long retryDelayMs;
+    private final Thread thread;
+
+    SyncWriter(String name, int queueSize, Sink sink, AtomicBoolean running, long retryDelayMs) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.sink = sink;
+        this.running = running;
+        this.retryDelayMs = retryDelayMs;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(false);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a part, blocks while the writer is queueSize parts behind.
+     */
+    void submit(Part part) throws InterruptedException {
+        queue.put(part);
+    }
+
+    /**
+     * Lets the writer finish queued parts and waits for it.
+     */
+    void stop() throws InterruptedException {
+        queue.put(STOP);
+        thread.join();
+    }
+
+    /**
+     * Makes the writer exit without finishing queued parts, they are read from the journal again after restart.
+     */
+    void interrupt() {
+        thread.interrupt();
+    }
+
+    /**
+     * Waits up to timeoutMs for the writer to exit.
+     * @return false when it is still running
+     */
+    boolean join(long timeoutMs) throws InterruptedException {
+        thread.join(timeoutMs);
+        return !thread.isAlive();
+    }
+
+    @Override
+    public void run() {
+        boolean failed = false;
+        while (true) {
+            Part part;
+            try {
+                part = queue.take();
+            } catch (InterruptedException e) {
+                log.info("Writer {} interrupted", name);
+                return;
+            }
+            if (part == STOP) {
+                return;
+            }
+            if (!failed) {
+                failed = !write(part);
+            }
+        }
+    }
+
+    private boolean write(Part part) {
+        while (true) {
+            try {
+                long start = System.nanoTime();
+                sink.write(part.rows(), part.batch().end());
+                part.batch().partDone(System.nanoTime() - start);
+                log.debug("Writer {} synced {} orders and {} deposits", name,
+                        part.rows().orders().size(), part.rows().deposits().size());
+                return true;
+            } catch (Exception e) {
+                if (!running.get()) {
+                    log.error("Writer {} failed while stopping, remaining parts are left for the next start", name, e);
+                    return false;
+                }
+                log.error("Writer {} failed, will retry", name, e);
+                try {
+                    Thread.sleep(retryDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Sink {
+        /**
+         * Writes rows and moves the checkpoint of the writer to position in one transaction.
+         */
+        void write(JournalRows rows, long position) throws Exception;
+    }
+
+    /**
+     * Records of one poll, done once every writer that got a part of it has written it.
+     * end is the tailer position after the last record of the batch, lastSequence the journal sequence of that record.
+     */
+    static final class Batch {
+        private final long end;
+        private final int records;
+        private final long lastSequence;
+        private final AtomicInteger remaining;
+        private final AtomicLong latencyNanos = new AtomicLong();
+
+        Batch(long end, int parts, int records, long lastSequence) {
+            this.end = end;
+            this.records = records;
+            this.lastSequence = lastSequence;
+            this.remaining = new AtomicInteger(parts);
+        }
+
+        long end() {
+            return end;
+        }
+
+        int records() {
+            return records;
+        }
+
+        long lastSequence() {
+            return lastSequence;
+        }
+
+        boolean isDone() {
+            return remaining.get() == 0;
+        }
+
+        /**
+         * @return write time of the slowest part, queueing in front of the writers is not counted
+         */
+        long latencyNanos() {
+            return latencyNanos.get();
+        }
+
+        private void partDone(long writeNanos) {
+            latencyNanos.accumulateAndGet(writeNanos, Math::max);
+            remaining.decrementAndGet();
+        }
+    }
+
+    record Part(Batch batch, JournalRows rows) {
+    }
+}
@@ -42,6 +42,16 @@ public class OrderRequestValidator implements ConstraintValidator<ValidOrder, Or
             return false;
         }
 
+        // validate amount precision
+        if (request.amount().stripTrailingZeros().scale() > instrument.getPrecision()) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate(
+                            "Amount can have at most " + instrument.getPrecision() + " decimal places")
+                    .addPropertyNode("amount")
+                    .addConstraintViolation();
+            return false;
+        }
+
         // validate tickSize
         BigDecimal remainder = request.price().remainder(instrument.getTickSize());
         if (remainder.compareTo(BigDecimal.ZERO) != 0) {
@@ -0,0 +1,189 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.exchange.modules.engine.domain.model.InstrumentStatus;
+import org.exchange.modules.engine.domain.model.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Settlement of fills when quote units are rounded: precision 8 and tick 0.01 give 10^-10 quote per tick and lot,
+ * a hundredth of a balance unit.
+ */
+public class BalanceManagerTest {
+    private static final long BASE = 1L;
+    private static final long QUOTE = 2L;
+    private static final long DEPOSIT = 1_000_000_000_000L;
+    private static final Instrument INSTRUMENT = new Instrument(1L, "BTCUSDT", "Bitcoin", BASE, QUOTE, 8,
+            new BigDecimal("0.00000001"), new BigDecimal("0.01"), InstrumentStatus.ACTIVE);
+
+    private BalanceManager balances;
+    private OrderBook book;
+    private final CancelListener unlock = (instrument, order) -> balances.unlockFunds(order.userId, lockedAsset(order.side),
+            instrument.lockUnits(order.side, order.priceTicks, order.remainingLots));
+    private final TradeListener settle = (instrument, trades) -> {
+        for (int i = 0; i < trades.size(); i++) {
+            balances.processTrade(trades.get(i), instrument);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        balances = new BalanceManager(16, 4);
+        book = new TreeMapOrderBook(INSTRUMENT, new MatchingContext(16, 16, 16));
+        for (long user = 1; user <= 3; user++) {
+            balances.deposit(user, BASE, DEPOSIT);
+            balances.deposit(user, QUOTE, DEPOSIT);
+        }
+    }
+
+    @Test
+    void lock_units_round_quote_up_and_trade_units_down() {
+        assertEquals(101L, INSTRUMENT.lockUnits(Side.BUY, 10_001, 1));
+        assertEquals(100L, INSTRUMENT.quoteUnits(10_001, 1));
+        assertEquals(100L, INSTRUMENT.lockUnits(Side.BUY, 10_000, 1));
+        assertEquals(333_334L, INSTRUMENT.lockUnits(Side.BUY, 10_001, 3_333));
+        assertEquals(7L, INSTRUMENT.lockUnits(Side.SELL, 10_001, 7));
+        assertEquals(7L, INSTRUMENT.baseUnits(7));
+    }
+
+    @Test
+    void full_fill_leaves_nothing_locked() {
+        order("s1", 2L, Side.SELL, 10_001, 333);
+        order("b1", 1L, Side.BUY, 10_001, 333);
+
+        assertNothingLocked();
+        assertConserved();
+        assertEquals(DEPOSIT - INSTRUMENT.quoteUnits(10_001, 333), available(1L, QUOTE));
+        assertEquals(DEPOSIT + 333, available(1L, BASE));
+    }
+
+    @Test
+    void partial_fills_then_cancel_leave_nothing_locked() {
+        order("b1", 1L, Side.BUY, 10_001, 999);
+        for (int i = 0; i < 3; i++) {
+            order("s" + i, 2L, Side.SELL, 10_001, 111);
+        }
+        assertTrue(balances.getBalance(1L, QUOTE).getLocked() > 0);
+
+        assertTrue(book.cancel("b1", unlock));
+        assertNothingLocked();
+        assertConserved();
+        assertEquals(DEPOSIT - 3 * INSTRUMENT.quoteUnits(10_001, 111), available(1L, QUOTE));
+    }
+
+    @Test
+    void price_improvement_goes_back_to_taker() {
+        order("s1", 2L, Side.SELL, 9_999, 251);
+        order("s2", 3L, Side.SELL, 10_000, 249);
+        order("b1", 1L, Side.BUY, 10_003, 701);
+        assertTrue(book.cancel("b1", unlock));
+
+        assertNothingLocked();
+        assertConserved();
+        long paid = INSTRUMENT.quoteUnits(9_999, 251) + INSTRUMENT.quoteUnits(10_000, 249);
+        assertEquals(DEPOSIT - paid, available(1L, QUOTE));
+        assertEquals(DEPOSIT + 500, available(1L, BASE));
+    }
+
+    @Test
+    void random_fills_and_cancels_leave_nothing_locked() {
+        Random random = new Random(7);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (!ids.isEmpty() && random.nextInt(3) == 0) {
+                book.cancel(ids.remove(random.nextInt(ids.size())), unlock);
+                continue;
+            }
+            String id = "o" + i;
+            order(id, 1 + random.nextInt(3), random.nextBoolean() ? Side.BUY : Side.SELL,
+                    9_900 + random.nextInt(200), 1 + random.nextInt(10_000));
+            if (book.findResting(id) != null) {
+                ids.add(id);
+            }
+        }
+        for (String id : ids) {
+            book.cancel(id, unlock);
+        }
+        assertNothingLocked();
+        assertConserved();
+    }
+
+    @Test
+    void workers_settling_same_users_concurrently_leave_nothing_locked() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                long seed = w;
+                runs.add(workers.submit(() -> {
+                    // every worker owns its book, the users are shared
+                    OrderBook own = new TreeMapOrderBook(INSTRUMENT, new MatchingContext(16, 16, 16));
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 50_000; i++) {
+                        long userId = 1 + random.nextInt(3);
+                        Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                        long priceTicks = 9_990 + random.nextInt(20);
+                        long lots = 1 + random.nextInt(1_000);
+                        assertTrue(balances.tryLockFunds(userId, lockedAsset(side), INSTRUMENT.lockUnits(side, priceTicks, lots)));
+                        own.process(seed + "-" + i, userId, side, priceTicks, lots, settle);
+                    }
+                    for (Side side : Side.values()) {
+                        List<String> resting = new ArrayList<>();
+                        own.forEachResting(side, order -> resting.add(order.clientOrderId));
+                        resting.forEach(id -> own.cancel(id, unlock));
+                    }
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        assertNothingLocked();
+        assertConserved();
+    }
+
+    private void order(String id, long userId, Side side, long priceTicks, long lots) {
+        assertTrue(balances.tryLockFunds(userId, lockedAsset(side), INSTRUMENT.lockUnits(side, priceTicks, lots)));
+        book.process(id, userId, side, priceTicks, lots, settle);
+    }
+
+    private void assertNothingLocked() {
+        for (long user = 1; user <= 3; user++) {
+            assertEquals(0L, balances.getBalance(user, BASE).getLocked(), "base locked of user " + user);
+            assertEquals(0L, balances.getBalance(user, QUOTE).getLocked(), "quote locked of user " + user);
+        }
+    }
+
+    private void assertConserved() {
+        for (long asset : new long[] { BASE, QUOTE }) {
+            long total = 0L;
+            for (long user = 1; user <= 3; user++) {
+                total += balances.getBalance(user, asset).getAvailable() + balances.getBalance(user, asset).getLocked();
+            }
+            assertEquals(3 * DEPOSIT, total, "total of asset " + asset);
+        }
+    }
+
+    private long available(long userId, long assetId) {
+        return balances.getBalance(userId, assetId).getAvailable();
+    }
+
+    private static long lockedAsset(Side side) {
+        return side == Side.BUY ? QUOTE : BASE;
+    }
+}
@@ -0,0 +1,141 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.OrderCancel;
+import org.exchange.modules.engine.domain.model.Side;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventRecordViewTest {
+    private static final Order ORDER = new Order("order-1", 7L, Side.SELL, 3L, new BigDecimal("0.12500000"), new BigDecimal("64250.5"));
+    private static final OrderCancel CANCEL = new OrderCancel("order-1", 7L, 3L);
+    private static final Deposit DEPOSIT = new Deposit(7L, 2L, new BigDecimal("1000.00000001"));
+
+    @Test
+    void reads_stamped_records() {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        BinaryEventSerializer.serialize(ORDER, buffer, 41L, 1_700_000_000_123_456_789L);
+        BinaryEventSerializer.serialize(CANCEL, buffer, 42L, 1_700_000_000_123_456_790L);
+        BinaryEventSerializer.serialize(DEPOSIT, buffer, 43L, 1_700_000_000_123_456_791L);
+        assertEquals(BinaryEventSerializer.ORDER_RECORD_SIZE, buffer.getInt(0) + 4);
+
+        List<EventRecordView> views = read(buffer);
+        assertOrder(views.get(0));
+        assertCancel(views.get(1));
+        assertDeposit(views.get(2));
+        assertEquals(41L, views.get(0).sequence());
+        assertEquals(1_700_000_000_123_456_789L, views.get(0).timestampNanos());
+        assertEquals(43L, views.get(2).sequence());
+    }
+
+    @Test
+    void reads_compact_records_without_stamp() {
+        assertUnstamped(JournalRecords::compact);
+    }
+
+    @Test
+    void reads_legacy_records() {
+        assertUnstamped(JournalRecords::legacy);
+    }
+
+    @Test
+    void deserializes_every_version_to_equal_events() {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        JournalRecords.legacy(ORDER, buffer);
+        JournalRecords.compact(ORDER, buffer);
+        BinaryEventSerializer.serialize(ORDER, buffer, 1L, 1L);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int length = buffer.getInt();
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            Order order = assertInstanceOf(Order.class, BinaryEventSerializer.deserialize(payload));
+            assertEquals(ORDER.getClientOrderId(), order.getClientOrderId());
+            assertEquals(0, ORDER.getAmount().compareTo(order.getAmount()));
+            assertEquals(0, ORDER.getPrice().compareTo(order.getPrice()));
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    @Test
+    void client_order_id_does_not_fit() {
+        String id = "x".repeat(BinaryEventSerializer.CLIENT_ORDER_ID_LENGTH + 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryEventSerializer.checkClientOrderId(id));
+    }
+
+    @Test
+    void unknown_version_is_rejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        BinaryEventSerializer.serialize(DEPOSIT, buffer, 1L, 1L);
+        buffer.put(4, (byte) (7 << 4 | EventType.BALANCE_DEPOSIT.getCode()));
+        assertThrows(IllegalArgumentException.class, () -> new EventRecordView().wrap(buffer, 4));
+    }
+
+    private static void assertUnstamped(BiConsumer<JournalModelEvent, ByteBuffer> writer) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        writer.accept(ORDER, buffer);
+        writer.accept(CANCEL, buffer);
+        writer.accept(DEPOSIT, buffer);
+
+        List<EventRecordView> views = read(buffer);
+        assertOrder(views.get(0));
+        assertCancel(views.get(1));
+        assertDeposit(views.get(2));
+        for (EventRecordView view : views) {
+            assertEquals(0L, view.sequence());
+            assertEquals(0L, view.timestampNanos());
+        }
+    }
+
+    // one view per record, each wrapped at its payload
+    private static List<EventRecordView> read(ByteBuffer written) {
+        List<EventRecordView> views = new ArrayList<>();
+        int position = 0;
+        while (position < written.position()) {
+            int length = written.getInt(position);
+            assertTrue(length > 0);
+            views.add(new EventRecordView().wrap(written, position + 4));
+            position += 4 + length;
+        }
+        return views;
+    }
+
+    private static void assertOrder(EventRecordView view) {
+        assertEquals(EventType.ORDER_NEW, view.type());
+        assertEquals(7L, view.userId());
+        assertEquals(3L, view.instrumentId());
+        assertEquals(Side.SELL, view.side());
+        assertEquals("order-1", view.clientOrderId());
+        assertTrue(view.clientOrderIdEquals("order-1"));
+        assertEquals(0, new BigDecimal("0.125").compareTo(view.amount()));
+        assertEquals(0, new BigDecimal("64250.5").compareTo(view.price()));
+    }
+
+    private static void assertCancel(EventRecordView view) {
+        assertEquals(EventType.ORDER_CANCEL, view.type());
+        assertEquals(7L, view.userId());
+        assertEquals(3L, view.instrumentId());
+        assertEquals("order-1", view.clientOrderId());
+    }
+
+    private static void assertDeposit(EventRecordView view) {
+        assertEquals(EventType.BALANCE_DEPOSIT, view.type());
+        assertEquals(7L, view.userId());
+        assertEquals(2L, view.assetId());
+        assertEquals(0, new BigDecimal("1000.00000001").compareTo(view.amount()));
+        Deposit deposit = assertInstanceOf(Deposit.class, view.toEvent());
+        assertEquals(2L, deposit.getAssetId());
+    }
+}
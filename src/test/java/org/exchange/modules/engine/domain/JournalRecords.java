@@ -0,0 +1,68 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.journal.JournalModelEvent;
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.OrderCancel;
+import org.exchange.modules.engine.domain.model.Side;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes framed journal records ([int length][payload]) in the formats of older versions, for reader tests.
+ */
+public final class JournalRecords {
+    private JournalRecords() {
+    }
+
+    /**
+     * Version 0: numbers and ids as length prefixed UTF-8 strings.
+     */
+    public static void legacy(JournalModelEvent event, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        if (event instanceof Order order) {
+            buffer.put(EventType.ORDER_NEW.getCode());
+            buffer.putLong(order.getUserId());
+            putString(buffer, order.getClientOrderId());
+            buffer.put((byte) (order.getSide() == Side.BUY ? 0 : 1));
+            buffer.putLong(order.getInstrumentId());
+            putString(buffer, order.getAmount().toPlainString());
+            putString(buffer, order.getPrice().toPlainString());
+        } else if (event instanceof Deposit deposit) {
+            buffer.put(EventType.BALANCE_DEPOSIT.getCode());
+            buffer.putLong(deposit.getUserId());
+            buffer.putLong(deposit.getAssetId());
+            putString(buffer, deposit.getAmount().toPlainString());
+        } else if (event instanceof OrderCancel cancel) {
+            buffer.put(EventType.ORDER_CANCEL.getCode());
+            buffer.putLong(cancel.getUserId());
+            putString(buffer, cancel.getClientOrderId());
+            buffer.putLong(cancel.getInstrumentId());
+        } else {
+            throw new IllegalArgumentException("Unsupported event: " + event);
+        }
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    /**
+     * Version 2: the current layout without sequence and timestamp.
+     */
+    public static void compact(JournalModelEvent event, ByteBuffer buffer) {
+        ByteBuffer stamped = ByteBuffer.allocate(BinaryEventSerializer.MAX_RECORD_SIZE);
+        BinaryEventSerializer.serialize(event, stamped, 0L, 0L);
+        int length = stamped.getInt(0) - BinaryEventSerializer.STAMP_LENGTH;
+        byte header = stamped.get(4);
+        buffer.putInt(length);
+        buffer.put((byte) (BinaryEventSerializer.VERSION_COMPACT << 4 | header & 0x0F));
+        buffer.put(stamped.array(), 4 + 1 + BinaryEventSerializer.STAMP_LENGTH, length - 1);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+}
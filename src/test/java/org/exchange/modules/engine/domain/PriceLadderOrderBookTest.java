@@ -0,0 +1,146 @@
+package org.exchange.modules.engine.domain;
+
+import org.exchange.modules.engine.domain.model.Instrument;
+import org.exchange.modules.engine.domain.model.InstrumentStatus;
+import org.exchange.modules.engine.domain.model.Side;
+import org.exchange.modules.engine.domain.model.TradeMatch;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceLadderOrderBookTest {
+    private static final Instrument INSTRUMENT = new Instrument(1L, "BTCUSDT", "Bitcoin", 1L, 2L, 8,
+            new BigDecimal("0.00000001"), new BigDecimal("0.01"), InstrumentStatus.ACTIVE);
+    private static final CancelListener IGNORE_CANCEL = (instrument, order) -> { };
+
+    @Test
+    void ladder_follows_touch_that_leaves_it() {
+        PriceLadderOrderBook book = ladder(10);
+        List<String> fills = new ArrayList<>();
+        book.process("b1", 1L, Side.BUY, 100, 5, recorder(fills));
+        assertTrue(book.inLadder(100));
+
+        book.process("b2", 1L, Side.BUY, 130, 5, recorder(fills));
+        assertTrue(book.inLadder(130));
+        assertFalse(book.inLadder(100));
+        assertEquals(List.of(130L, 100L), prices(book, Side.BUY));
+
+        // the level moved out of the ladder still trades, in price priority
+        book.process("s1", 2L, Side.SELL, 90, 8, recorder(fills));
+        assertEquals(List.of("b2@130x5", "b1@100x3"), fills);
+        assertEquals(List.of(100L), prices(book, Side.BUY));
+    }
+
+    @Test
+    void ladder_stays_at_other_touch_when_spread_is_wider() {
+        PriceLadderOrderBook book = ladder(10);
+        List<String> fills = new ArrayList<>();
+        book.process("b1", 1L, Side.BUY, 100, 5, recorder(fills));
+        book.process("s1", 2L, Side.SELL, 200, 5, recorder(fills));
+
+        assertTrue(book.inLadder(100));
+        assertFalse(book.inLadder(200));
+        assertEquals(List.of(200L), prices(book, Side.SELL));
+        assertTrue(fills.isEmpty());
+    }
+
+    @Test
+    void sparse_levels_move_into_ladder_when_touch_comes_close() {
+        PriceLadderOrderBook book = ladder(10);
+        List<String> fills = new ArrayList<>();
+        book.process("b1", 1L, Side.BUY, 100, 5, recorder(fills));
+        book.process("s1", 2L, Side.SELL, 200, 1, recorder(fills));
+        book.process("s2", 2L, Side.SELL, 202, 1, recorder(fills));
+        book.process("s3", 2L, Side.SELL, 230, 1, recorder(fills));
+        assertFalse(book.inLadder(200));
+
+        // spread narrower than the ladder: centered on the mid, asks near it are moved in
+        book.process("b2", 1L, Side.BUY, 196, 5, recorder(fills));
+        assertTrue(book.inLadder(196));
+        assertTrue(book.inLadder(200));
+        assertTrue(book.inLadder(202));
+        assertFalse(book.inLadder(230));
+        assertEquals(List.of(200L, 202L, 230L), prices(book, Side.SELL));
+
+        book.process("b3", 1L, Side.BUY, 230, 3, recorder(fills));
+        assertEquals(List.of("s1@200x1", "s2@202x1", "s3@230x1"), fills);
+        assertEquals(List.of(196L, 100L), prices(book, Side.BUY));
+    }
+
+    @Test
+    void empty_side_recenters_on_the_other_touch() {
+        PriceLadderOrderBook book = ladder(10);
+        List<String> fills = new ArrayList<>();
+        book.process("b1", 1L, Side.BUY, 100, 5, recorder(fills));
+        book.process("s1", 2L, Side.SELL, 500, 5, recorder(fills));
+        book.process("s2", 2L, Side.SELL, 503, 5, recorder(fills));
+        assertFalse(book.inLadder(500));
+
+        assertTrue(book.cancel("b1", IGNORE_CANCEL));
+        assertTrue(book.inLadder(500));
+        assertTrue(book.inLadder(503));
+        assertFalse(book.inLadder(100));
+
+        book.process("b2", 1L, Side.BUY, 510, 6, recorder(fills));
+        assertEquals(List.of("s1@500x5", "s2@503x1"), fills);
+        assertEquals(List.of(503L), prices(book, Side.SELL));
+    }
+
+    @Test
+    void same_fills_as_tree_map_book_for_same_order_stream() {
+        Random random = new Random(42);
+        for (int capacity : new int[] { 1, 4, 16, 64 }) {
+            PriceLadderOrderBook ladder = ladder(capacity);
+            TreeMapOrderBook tree = new TreeMapOrderBook(INSTRUMENT, new MatchingContext(16, 16, 16));
+            List<String> ladderFills = new ArrayList<>();
+            List<String> treeFills = new ArrayList<>();
+            List<String> resting = new ArrayList<>();
+            long mid = 10_000;
+            for (int i = 0; i < 5_000; i++) {
+                // random walk with jumps, so the touch regularly leaves the ladder
+                mid = Math.max(200, mid + random.nextInt(21) - 10 + (random.nextInt(100) == 0 ? random.nextInt(2001) - 1000 : 0));
+                if (!resting.isEmpty() && random.nextInt(4) == 0) {
+                    String id = resting.remove(random.nextInt(resting.size()));
+                    assertEquals(tree.cancel(id, IGNORE_CANCEL), ladder.cancel(id, IGNORE_CANCEL));
+                } else {
+                    String id = "o" + i;
+                    Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                    long price = mid + random.nextInt(61) - 30;
+                    long lots = 1 + random.nextInt(20);
+                    ladder.process(id, i, side, price, lots, recorder(ladderFills));
+                    tree.process(id, i, side, price, lots, recorder(treeFills));
+                    if (ladder.findResting(id) != null) {
+                        resting.add(id);
+                    }
+                }
+                assertEquals(treeFills, ladderFills, "fills after step " + i);
+                assertEquals(prices(tree, Side.BUY), prices(ladder, Side.BUY), "bids after step " + i);
+                assertEquals(prices(tree, Side.SELL), prices(ladder, Side.SELL), "asks after step " + i);
+            }
+        }
+    }
+
+    private static PriceLadderOrderBook ladder(int capacity) {
+        return new PriceLadderOrderBook(INSTRUMENT, new MatchingContext(16, 16, 16), capacity);
+    }
+
+    private static TradeListener recorder(List<String> fills) {
+        return (instrument, trades) -> {
+            for (int i = 0; i < trades.size(); i++) {
+                TradeMatch trade = trades.get(i);
+                fills.add(trade.getMakerClientOrderId() + "@" + trade.getPriceTicks() + "x" + trade.getQuantityLots());
+            }
+        };
+    }
+
+    private static List<Long> prices(OrderBook book, Side side) {
+        return book.topLevels(side, 1_000).stream().map(PriceLevel::getPrice).toList();
+    }
+}
@@ -0,0 +1,132 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.BinaryEventSerializer;
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JournalPartitionsTest {
+    private static final int SEGMENT_SIZE = BinaryEventSerializer.MAX_RECORD_SIZE * 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopen_keeps_journal_without_gap() throws IOException {
+        try (JournalPartitions partitions = open()) {
+            partitions.append(deposit());
+            partitions.append(order(1));
+            partitions.append(order(2));
+            partitions.commit();
+            partitions.force();
+        }
+        try (JournalPartitions partitions = open()) {
+            assertEquals(3L, partitions.committedSequence());
+            assertEquals(List.of(1L, 2L, 3L), sequences(partitions));
+            assertEquals(4L, partitions.append(deposit()));
+        }
+    }
+
+    @Test
+    void lost_record_cuts_every_partition_back_before_it() throws IOException {
+        long lostOffset;
+        try (JournalPartitions partitions = open()) {
+            partitions.append(deposit());
+            partitions.append(order(1));
+            partitions.append(deposit());
+            partitions.append(order(2));
+            partitions.append(order(3));
+            partitions.commit();
+            lostOffset = partitions.stores().get(0).offsetOfSequence(3L);
+        }
+        // the instrument partition reached the disk, the account one did not
+        loseFrom(directory.resolve("account"), lostOffset);
+
+        try (JournalPartitions partitions = open()) {
+            assertEquals(2L, partitions.committedSequence());
+            assertEquals(List.of(1L, 2L), sequences(partitions));
+            assertEquals(2L, partitions.instrument(1L).committedRecords());
+            assertEquals(3L, partitions.append(order(4)));
+            partitions.commit();
+        }
+        try (JournalPartitions partitions = open()) {
+            assertEquals(List.of(1L, 2L, 3L), sequences(partitions));
+        }
+    }
+
+    @Test
+    void lost_record_drops_later_segments_of_other_partitions() throws IOException {
+        long lostOffset;
+        try (JournalPartitions partitions = open()) {
+            partitions.append(deposit());
+            partitions.append(deposit());
+            for (int i = 0; i < 60; i++) {
+                partitions.append(order(i));
+            }
+            partitions.commit();
+            lostOffset = partitions.stores().get(0).offsetOfSequence(2L);
+            assertEquals(true, partitions.instrument(1L).segments().size() > 1);
+        }
+        loseFrom(directory.resolve("account"), lostOffset);
+
+        try (JournalPartitions partitions = open()) {
+            assertEquals(1L, partitions.committedSequence());
+            assertEquals(List.of(1L), sequences(partitions));
+            JournalStore instrument = partitions.instrument(1L);
+            assertEquals(1, instrument.segments().size());
+            assertEquals(0L, instrument.committedOffset());
+            for (int i = 0; i < 60; i++) {
+                partitions.append(order(100 + i));
+            }
+            partitions.commit();
+        }
+        try (JournalPartitions partitions = open()) {
+            assertEquals(61L, partitions.committedSequence());
+            assertEquals(61, sequences(partitions).size());
+        }
+    }
+
+    private JournalPartitions open() throws IOException {
+        JournalPartitions partitions = new JournalPartitions(directory, SEGMENT_SIZE, false, 4);
+        partitions.open();
+        return partitions;
+    }
+
+    private static List<Long> sequences(JournalPartitions partitions) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        MergedReader reader = partitions.reader(1L);
+        while (reader.read(record -> sequences.add(record.sequence()), 1000) > 0) {
+            // until the committed sequence
+        }
+        return sequences;
+    }
+
+    // zeroes the first segment of a store from offset on, as if the pages never reached the disk
+    private static void loseFrom(Path store, long offset) throws IOException {
+        Path segment = store.resolve(String.format("journal-%020d.seg", 0L));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate((int) (SEGMENT_SIZE - offset)), offset);
+        }
+    }
+
+    private static Deposit deposit() {
+        return new Deposit(1L, 1L, new BigDecimal("10"));
+    }
+
+    private static Order order(int id) {
+        return new Order("order-" + id, 1L, Side.BUY, 1L, new BigDecimal("1"), new BigDecimal("2"));
+    }
+}
@@ -0,0 +1,241 @@
+package org.exchange.modules.engine.domain.journal;
+
+import org.exchange.modules.engine.domain.BinaryEventSerializer;
+import org.exchange.modules.engine.domain.EventRecordView;
+import org.exchange.modules.engine.domain.JournalRecords;
+import org.exchange.modules.engine.domain.model.Deposit;
+import org.exchange.modules.engine.domain.model.EventType;
+import org.exchange.modules.engine.domain.model.Order;
+import org.exchange.modules.engine.domain.model.OrderCancel;
+import org.exchange.modules.engine.domain.model.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalStoreTest {
+    private static final int SEGMENT_SIZE = BinaryEventSerializer.MAX_RECORD_SIZE * 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void committed_records_survive_reopen() throws IOException {
+        try (JournalStore store = open()) {
+            assertEquals(1L, store.append(order(1)));
+            assertEquals(2L, store.append(new OrderCancel("order-1", 1L, 1L)));
+            assertEquals(3L, store.append(new Deposit(1L, 2L, new BigDecimal("5.5"))));
+            assertEquals(List.of(), types(store));
+            assertEquals(3L, store.commit());
+        }
+        try (JournalStore store = open()) {
+            assertEquals(3L, store.committedRecords());
+            assertEquals(List.of(EventType.ORDER_NEW, EventType.ORDER_CANCEL, EventType.BALANCE_DEPOSIT), types(store));
+            assertEquals(List.of(1L, 2L, 3L), sequences(store));
+            assertEquals(4L, store.append(order(4)));
+        }
+    }
+
+    @Test
+    void torn_write_after_the_last_record_is_zeroed() throws IOException {
+        long end;
+        try (JournalStore store = open()) {
+            store.append(order(1));
+            store.append(order(2));
+            store.commit();
+            end = store.committedOffset();
+        }
+        // part of a record whose length never reached the disk
+        write(segment(0L), end + 6, new byte[] { 1, 2, 3, 4, 5 });
+
+        try (JournalStore store = open()) {
+            assertEquals(end, store.committedOffset());
+            assertEquals(2L, store.committedRecords());
+            assertTrue(isZero(segment(0L), end, SEGMENT_SIZE));
+            store.append(order(3));
+            store.commit();
+            assertEquals(List.of(1L, 2L, 3L), sequences(store));
+        }
+    }
+
+    @Test
+    void rolls_over_to_new_segments() throws IOException {
+        try (JournalStore store = open()) {
+            for (int i = 1; i <= 100; i++) {
+                store.append(order(i));
+            }
+            store.commit();
+            assertTrue(store.segments().size() > 3);
+            assertEquals(100, sequences(store).size());
+        }
+        try (JournalStore store = open()) {
+            assertEquals(100L, store.committedRecords());
+            List<Long> sequences = sequences(store);
+            assertEquals(100, sequences.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i + 1L, sequences.get(i));
+            }
+            for (JournalStore.SegmentFile segment : store.segments()) {
+                assertTrue(Files.exists(directory.resolve(segment.fileName())));
+                assertEquals(segment.fileName(), String.format("journal-%020d.seg", segment.base()));
+            }
+        }
+    }
+
+    @Test
+    void files_missing_from_manifest_are_removed() throws IOException {
+        try (JournalStore store = open()) {
+            store.append(order(1));
+            store.commit();
+        }
+        Path leftover = segment(5L * SEGMENT_SIZE);
+        Files.write(leftover, new byte[SEGMENT_SIZE]);
+        Path foreign = directory.resolve("other-00000000000000000000.seg");
+        Files.write(foreign, new byte[16]);
+
+        try (JournalStore store = open()) {
+            assertFalse(Files.exists(leftover));
+            assertTrue(Files.exists(foreign));
+            assertEquals(1, store.segments().size());
+            assertEquals(List.of(1L), sequences(store));
+        }
+        assertEquals(List.of("0 " + SEGMENT_SIZE + " journal-00000000000000000000.seg"),
+                Files.readAllLines(directory.resolve("journal.manifest")));
+    }
+
+    @Test
+    void index_is_rebuilt_when_lost() throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        try (JournalStore store = open()) {
+            for (int i = 1; i <= 60; i++) {
+                store.append(order(i));
+                store.commit();
+                offsets.add(store.committedOffset() - BinaryEventSerializer.ORDER_RECORD_SIZE);
+            }
+        }
+        Files.write(directory.resolve("journal.index"), new byte[0]);
+
+        try (JournalStore store = open()) {
+            assertEquals(60L, store.committedRecords());
+            for (int i = 1; i <= 60; i++) {
+                assertEquals(offsets.get(i - 1), store.offsetOfSequence(i), "offset of sequence " + i);
+            }
+            assertEquals(store.committedOffset(), store.offsetOfSequence(61));
+            assertEquals(61L, store.append(order(61)));
+        }
+    }
+
+    @Test
+    void index_entries_past_the_recovered_end_are_dropped() throws IOException {
+        long end;
+        try (JournalStore store = open()) {
+            store.append(order(1));
+            store.commit();
+            end = store.committedOffset();
+            for (int i = 2; i <= 8; i++) {
+                store.append(order(i));
+            }
+            store.commit();
+        }
+        // the records after the first one were lost, their index entries were not
+        write(segment(0L), end, new byte[(int) (SEGMENT_SIZE - end)]);
+
+        try (JournalStore store = open()) {
+            assertEquals(1L, store.committedRecords());
+            assertEquals(store.committedOffset(), store.offsetOfSequence(5));
+            assertEquals(2L, store.append(order(2)));
+            store.commit();
+            assertEquals(List.of(1L, 2L), sequences(store));
+        }
+    }
+
+    @Test
+    void legacy_journal_file_is_imported_at_same_offsets() throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(8192);
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            offsets.add(file.position());
+            JournalRecords.legacy(order(i), file);
+        }
+        Path legacy = directory.resolve("journal.log");
+        Files.write(legacy, Arrays.copyOf(file.array(), file.position()));
+
+        try (JournalStore store = new JournalStore(directory.resolve("store"), "journal", SEGMENT_SIZE, false, 4)) {
+            store.open();
+            store.importFile(legacy);
+            assertEquals(30L, store.committedRecords());
+            assertEquals(file.position(), store.committedOffset());
+            List<String> ids = new ArrayList<>();
+            EventRecordView view = new EventRecordView();
+            store.read(0L, record -> ids.add(view.wrap(record).clientOrderId()));
+            assertEquals(30, ids.size());
+            assertEquals("order-30", ids.get(29));
+            assertEquals((long) offsets.get(9), store.offsetOfSequence(10));
+            // new records are stamped and continue the count
+            assertEquals(31L, store.append(order(31)));
+            store.commit();
+        }
+        try (JournalStore store = new JournalStore(directory.resolve("store"), "journal", SEGMENT_SIZE, false, 4)) {
+            store.open();
+            assertEquals(31L, store.committedRecords());
+            assertEquals((long) offsets.get(29), store.offsetOfSequence(30));
+        }
+    }
+
+    private JournalStore open() throws IOException {
+        JournalStore store = new JournalStore(directory, "journal", SEGMENT_SIZE, false, 4);
+        store.open();
+        return store;
+    }
+
+    private Path segment(long base) {
+        return directory.resolve(String.format("journal-%020d.seg", base));
+    }
+
+    private static List<Long> sequences(JournalStore store) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        EventRecordView view = new EventRecordView();
+        store.read(0L, record -> sequences.add(view.wrap(record).sequence()));
+        return sequences;
+    }
+
+    private static List<EventType> types(JournalStore store) throws IOException {
+        List<EventType> types = new ArrayList<>();
+        EventRecordView view = new EventRecordView();
+        store.read(0L, record -> types.add(view.wrap(record).type()));
+        return types;
+    }
+
+    private static void write(Path file, long position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private static boolean isZero(Path file, long from, long to) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        for (long i = from; i < to; i++) {
+            if (content[(int) i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Order order(int id) {
+        return new Order("order-" + id, 1L, Side.BUY, 1L, new BigDecimal("0.5"), new BigDecimal("100.25"));
+    }
+}
@@ -0,0 +1,66 @@
+package org.exchange.modules.engine.domain.ring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * halt() has to wake a consumer parked by any wait strategy without interrupting it.
+ */
+public class EventRingBufferTest {
+
+    @Test
+    void halt_wakes_waiting_consumer_of_every_strategy() throws Exception {
+        List<WaitStrategy> strategies = List.of(
+                new BlockingWaitStrategy(),
+                new BackoffWaitStrategy(10, 10),
+                new BusySpinWaitStrategy(),
+                new SleepingWaitStrategy(10, 1_000_000L),
+                new YieldingWaitStrategy(10)
+        );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (WaitStrategy strategy : strategies) {
+                EventRingBuffer ring = new EventRingBuffer(8, strategy);
+                CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+                Future<?> consumer = executor.submit(() -> {
+                    try {
+                        ring.waitFor(0L);
+                        interrupted.complete(Thread.currentThread().isInterrupted());
+                    } catch (InterruptedException e) {
+                        interrupted.complete(true);
+                    }
+                });
+                Thread.sleep(50L);
+                assertFalse(consumer.isDone(), strategy.getClass().getSimpleName());
+
+                ring.halt();
+                consumer.get(5, TimeUnit.SECONDS);
+                assertFalse(interrupted.get(), strategy.getClass().getSimpleName());
+                assertTrue(ring.isHalted());
+                assertFalse(ring.isPublished(0L));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void claim_on_full_halted_ring_fails() {
+        EventRingBuffer ring = new EventRingBuffer(2, new BlockingWaitStrategy());
+        ring.publish(ring.claim());
+        ring.publish(ring.claim());
+        ring.halt();
+
+        assertThrows(IllegalStateException.class, ring::claim);
+    }
+}